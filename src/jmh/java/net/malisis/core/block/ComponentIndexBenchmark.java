@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.block;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Compares {@link ComponentIndex} lookups with the previous implementation, which concatenated the block and extra components into a
+ * new list and streamed over it for each call.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentIndexBenchmark
+{
+	public static interface IShape extends IComponent
+	{}
+
+	public static interface IColored extends IComponent
+	{}
+
+	public static interface IMissing extends IComponent
+	{}
+
+	public static class ShapeComponent implements IShape
+	{}
+
+	public static class ColoredShapeComponent extends ShapeComponent implements IColored
+	{}
+
+	public static class ExtraComponent implements IComponent
+	{}
+
+	private final List<IComponent> blockComponents = Lists.newArrayList();
+	private final List<IComponent> components = Lists.newArrayList();
+	private ComponentIndex index;
+
+	@Setup
+	public void setup()
+	{
+		for (int i = 0; i < 4; i++)
+			blockComponents.add(new ShapeComponent());
+		blockComponents.add(new ColoredShapeComponent());
+		components.add(new ExtraComponent());
+		components.add(new ExtraComponent());
+
+		index = ComponentIndex.of(blockComponents, components);
+	}
+
+	private List<IComponent> streamComponents()
+	{
+		return Stream.concat(blockComponents.stream(), components.stream()).collect(Collectors.toList());
+	}
+
+	private <T> T streamComponent(Class<T> type)
+	{
+		return streamComponents().stream().filter(type::isInstance).map(type::cast).findFirst().orElse(null);
+	}
+
+	@Benchmark
+	public Object streamFirst()
+	{
+		return streamComponent(IShape.class);
+	}
+
+	@Benchmark
+	public Object streamLast()
+	{
+		return streamComponent(IColored.class);
+	}
+
+	@Benchmark
+	public Object streamMissing()
+	{
+		return streamComponent(IMissing.class);
+	}
+
+	@Benchmark
+	public Object indexFirst()
+	{
+		return index.getComponent(IShape.class);
+	}
+
+	@Benchmark
+	public Object indexLast()
+	{
+		return index.getComponent(IColored.class);
+	}
+
+	@Benchmark
+	public Object indexMissing()
+	{
+		return index.getComponent(IMissing.class);
+	}
+
+	@Benchmark
+	public List<IShape> indexAll()
+	{
+		return index.getComponents(IShape.class);
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package net.malisis.core.registry;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.lwjgl.opengl.GL11;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.malisis.core.renderer.BenchmarkRenderer;
+import net.malisis.core.renderer.LightingBenchmark.StubWorld;
+import net.malisis.core.renderer.MalisisRenderer;
+import net.malisis.core.renderer.RenderParameters;
+import net.malisis.core.renderer.element.Shape;
+import net.malisis.core.renderer.element.shape.Cube;
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Stress test and benchmark for chunk rebuilds done in parallel through {@link Registries#processRenderBlockCallbacks}, the way the
+ * chunk builder threads render the blocks.<br>
+ * Each chunk is a pseudo random set of blocks drawn into its own {@link BufferBuilder}. The setup rebuilds all the chunks serially, then
+ * several times in parallel on all the cores, and fails if any parallel output differs from the serial one. The benchmarks then compare
+ * the serial and parallel rebuild throughput.<br>
+ * With <code>copy</code>, the {@link ClientRegistry} gives each thread its own copy of the renderer from
+ * {@link MalisisRenderer#newThreadInstance()}. With <code>shared</code>, the renderer does not provide copies and every thread goes through
+ * the shared instance lock.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelRenderBenchmark
+{
+	/** Number of chunks rebuilt per operation. */
+	private static final int CHUNKS = 64;
+	/** Number of blocks per chunk (8x8x8). */
+	private static final int BLOCKS = 512;
+	/** Number of parallel rebuilds checked against the serial one. */
+	private static final int STRESS_ROUNDS = 20;
+
+	/**
+	 * {@link MalisisRenderer} drawing a cube, keeping its shape and parameters in instance fields like regular renderers.
+	 */
+	public static class CubeRenderer extends MalisisRenderer<TileEntity>
+	{
+		private final boolean copy;
+		private final Shape cube = new Cube();
+		private final RenderParameters rp = BenchmarkRenderer.standaloneParameters();
+
+		public CubeRenderer(boolean copy)
+		{
+			this.copy = copy;
+		}
+
+		@Override
+		public MalisisRenderer<TileEntity> newThreadInstance()
+		{
+			return copy ? super.newThreadInstance() : null;
+		}
+
+		@Override
+		public void render()
+		{
+			cube.resetState();
+			drawShape(cube, rp);
+		}
+	}
+
+	/**
+	 * {@link ClientRegistry} for which every thread is a chunk builder thread.
+	 */
+	public static class BenchmarkRegistry extends ClientRegistry
+	{
+		@Override
+		boolean isClientThread()
+		{
+			return false;
+		}
+	}
+
+	@Param({ "copy", "shared" })
+	public String mode;
+
+	private final StubWorld world = new StubWorld();
+	private final IBlockState state = new Block(Material.ROCK).getDefaultState();
+	private ExecutorService executor;
+	private final ThreadLocal<BufferBuilder> threadBuffer = ThreadLocal.withInitial(() -> new BufferBuilder(1 << 16));
+
+	@Setup
+	public void setup() throws InterruptedException, ExecutionException
+	{
+		BenchmarkRegistry registry = new BenchmarkRegistry();
+		registry.blockRenderers.put(state.getBlock(), new CubeRenderer(mode.equals("copy")));
+		executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+		byte[][] expected = serial();
+		for (int round = 0; round < STRESS_ROUNDS; round++)
+		{
+			byte[][] result = parallel();
+			for (int chunk = 0; chunk < CHUNKS; chunk++)
+			{
+				if (!Arrays.equals(expected[chunk], result[chunk]))
+					throw new IllegalStateException("Parallel rebuild differs from serial for chunk " + chunk + " (round " + round + ")");
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Renders the chunk into the {@link BufferBuilder} of the current thread, block by block.
+	 *
+	 * @param chunk the chunk
+	 * @return the vertex data
+	 */
+	private byte[] renderChunk(int chunk)
+	{
+		BufferBuilder buffer = threadBuffer.get();
+		buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.BLOCK);
+		for (int i = 0; i < BLOCKS; i++)
+		{
+			if (((i * 31 + chunk * 17) % 7) > 2)
+				continue;
+			BlockPos pos = new BlockPos(chunk * 16 + (i & 7), 64 + ((i >> 3) & 7), i >> 6);
+			Registries.processRenderBlockCallbacks(buffer, world, pos, state);
+		}
+		buffer.finishDrawing();
+
+		byte[] data = new byte[buffer.getVertexCount() * buffer.getVertexFormat().getSize()];
+		ByteBuffer bb = buffer.getByteBuffer();
+		bb.position(0);
+		bb.get(data);
+		return data;
+	}
+
+	@Benchmark
+	public byte[][] serial()
+	{
+		byte[][] result = new byte[CHUNKS][];
+		for (int chunk = 0; chunk < CHUNKS; chunk++)
+			result[chunk] = renderChunk(chunk);
+		return result;
+	}
+
+	@Benchmark
+	public byte[][] parallel() throws InterruptedException, ExecutionException
+	{
+		List<Future<byte[]>> futures = new ArrayList<>(CHUNKS);
+		for (int chunk = 0; chunk < CHUNKS; chunk++)
+		{
+			int c = chunk;
+			futures.add(executor.submit(() -> renderChunk(c)));
+		}
+
+		byte[][] result = new byte[CHUNKS][];
+		for (int chunk = 0; chunk < CHUNKS; chunk++)
+			result[chunk] = futures.get(chunk).get();
+		return result;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.tileentity.TileEntity;
+
+/**
+ * {@link MalisisRenderer} drawing into an in-memory {@link BufferBuilder}, without world, block or GL context.<br>
+ * Used by the benchmarks to measure the element pipeline alone.
+ *
+ * @author Ordinastie
+ */
+public class BenchmarkRenderer extends MalisisRenderer<TileEntity>
+{
+	/**
+	 * Gets {@link RenderParameters} that do not require Minecraft to be running (no texture, no environment brightness, no AO).
+	 *
+	 * @return the render parameters
+	 */
+	public static RenderParameters standaloneParameters()
+	{
+		RenderParameters rp = new RenderParameters();
+		rp.applyTexture.set(false);
+		rp.useEnvironmentBrightness.set(false);
+		rp.calculateAOColor.set(false);
+		rp.calculateBrightness.set(false);
+		return rp;
+	}
+
+	/**
+	 * Sets up this {@link BenchmarkRenderer} to draw into the {@link BufferBuilder} with {@link DefaultVertexFormats#BLOCK}.
+	 *
+	 * @param buffer the buffer
+	 */
+	public void begin(BufferBuilder buffer)
+	{
+		this.buffer = buffer;
+		this.renderType = RenderType.BLOCK;
+		this.vertexFormat = DefaultVertexFormats.BLOCK;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.lwjgl.opengl.GL11;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.malisis.core.renderer.element.Face;
+import net.malisis.core.renderer.element.Shape;
+import net.malisis.core.renderer.element.Vertex;
+import net.malisis.core.renderer.element.VertexWriter;
+import net.malisis.core.renderer.element.shape.Cube;
+import net.malisis.core.renderer.element.shape.Slope;
+import net.malisis.core.renderer.model.MalisisModel;
+import net.malisis.core.renderer.model.loader.ObjFileImporter;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+
+/**
+ * Benchmarks for {@link MalisisRenderer#drawShape(Shape, RenderParameters)} writing into an in-memory {@link BufferBuilder}.<br>
+ * Also compares {@link Vertex#getVertexData(VertexFormat, net.minecraft.util.math.Vec3d)} with {@link VertexWriter}.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawShapeBenchmark
+{
+	/** Number of faces of the generated OBJ model. */
+	private static final int MODEL_FACES = 500;
+
+	private final VertexFormat format = DefaultVertexFormats.BLOCK;
+	private BufferBuilder buffer;
+	private BenchmarkRenderer renderer;
+	private RenderParameters rp;
+
+	private Shape cube;
+	private Shape slope;
+	private MalisisModel model;
+	private VertexWriter writer;
+
+	@Setup
+	public void setup()
+	{
+		buffer = new BufferBuilder(1 << 20);
+		renderer = new BenchmarkRenderer();
+		rp = BenchmarkRenderer.standaloneParameters();
+
+		cube = new Cube();
+		slope = new Slope();
+		model = new MalisisModel(new ObjFileImporter(new ByteArrayInputStream(generateObj(MODEL_FACES).getBytes(StandardCharsets.UTF_8))));
+		writer = VertexWriter.of(format);
+	}
+
+	/**
+	 * Generates an OBJ model made of separate unit quads laid on a grid.
+	 *
+	 * @param faces the number of faces
+	 * @return the OBJ content
+	 */
+	private static String generateObj(int faces)
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("o model\n");
+		sb.append("vn 0 1 0\n");
+		for (int i = 0; i < faces; i++)
+		{
+			int x = i % 25;
+			int z = i / 25;
+			sb.append("v ").append(x).append(" 0 ").append(z).append('\n');
+			sb.append("v ").append(x).append(" 0 ").append(z + 1).append('\n');
+			sb.append("v ").append(x + 1).append(" 0 ").append(z + 1).append('\n');
+			sb.append("v ").append(x + 1).append(" 0 ").append(z).append('\n');
+			int v = i * 4 + 1;
+			sb.append("f ").append(v).append("//1 ").append(v + 1).append("//1 ").append(v + 2).append("//1 ").append(v + 3).append("//1\n");
+		}
+		return sb.toString();
+	}
+
+	private void begin()
+	{
+		buffer.begin(GL11.GL_QUADS, format);
+		renderer.begin(buffer);
+	}
+
+	private BufferBuilder end()
+	{
+		buffer.finishDrawing();
+		return buffer;
+	}
+
+	@Benchmark
+	public BufferBuilder drawCube()
+	{
+		begin();
+		cube.resetState();
+		renderer.drawShape(cube, rp);
+		return end();
+	}
+
+	@Benchmark
+	public BufferBuilder drawSlope()
+	{
+		begin();
+		slope.resetState();
+		renderer.drawShape(slope, rp);
+		return end();
+	}
+
+	@Benchmark
+	public BufferBuilder drawModel()
+	{
+		begin();
+		model.resetState();
+		model.render(renderer, rp);
+		return end();
+	}
+
+	@Benchmark
+	public BufferBuilder cubeVertexData()
+	{
+		buffer.begin(GL11.GL_QUADS, format);
+		for (Face f : cube.getFaces())
+			for (Vertex v : f.getVertexes())
+				buffer.addVertexData(v.getVertexData(format, null));
+		return end();
+	}
+
+	@Benchmark
+	public BufferBuilder cubeVertexWriter()
+	{
+		buffer.begin(GL11.GL_QUADS, format);
+		for (Face f : cube.getFaces())
+			for (Vertex v : f.getVertexes())
+				writer.write(buffer, v, 0, 0, 0);
+		return end();
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.malisis.core.renderer.element.Face;
+import net.malisis.core.renderer.element.shape.Cube;
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.biome.Biome;
+
+/**
+ * Benchmark for the brightness and ambient occlusion lookups done when lighting a {@link Cube}.<br>
+ * <code>snapshot</code> reads the values through the {@link BlockNeighborhood} of the renderer. <code>world</code> uses a renderer
+ * overriding {@link MalisisRenderer#getMixedBrightnessForBlock(IBlockAccess, BlockPos)} and
+ * {@link MalisisRenderer#getBlockAmbientOcclusion(IBlockAccess, BlockPos)} with the world queries done before the snapshot existed, so
+ * every lookup goes to the world.<br>
+ * The setup fails if both renderers do not compute the same values.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightingBenchmark
+{
+	/**
+	 * {@link MalisisRenderer} querying the world for each lookup.
+	 */
+	public static class WorldLightingRenderer extends BenchmarkRenderer
+	{
+		@Override
+		protected float getBlockAmbientOcclusion(IBlockAccess world, BlockPos pos)
+		{
+			return world.getBlockState(pos).getAmbientOcclusionLightValue();
+		}
+
+		@Override
+		protected int getMixedBrightnessForBlock(IBlockAccess world, BlockPos pos)
+		{
+			return world.getBlockState(pos).getPackedLightmapCoords(world, pos);
+		}
+	}
+
+	/**
+	 * {@link IBlockAccess} alternating solid and empty blocks, with a light value depending on the position.
+	 */
+	public static class StubWorld implements IBlockAccess
+	{
+		private final IBlockState solid = new Block(Material.ROCK).getDefaultState();
+		private final IBlockState empty = new Block(Material.GLASS).getDefaultState();
+
+		@Override
+		public TileEntity getTileEntity(BlockPos pos)
+		{
+			return null;
+		}
+
+		@Override
+		public int getCombinedLight(BlockPos pos, int lightValue)
+		{
+			return ((pos.getX() + pos.getZ()) & 15) << 20 | (pos.getY() & 15) << 4;
+		}
+
+		@Override
+		public IBlockState getBlockState(BlockPos pos)
+		{
+			return ((pos.getX() ^ pos.getY() ^ pos.getZ()) & 1) == 0 ? solid : empty;
+		}
+
+		@Override
+		public boolean isAirBlock(BlockPos pos)
+		{
+			return false;
+		}
+
+		@Override
+		public Biome getBiome(BlockPos pos)
+		{
+			return null;
+		}
+
+		@Override
+		public int getStrongPower(BlockPos pos, EnumFacing direction)
+		{
+			return 0;
+		}
+
+		@Override
+		public WorldType getWorldType()
+		{
+			return WorldType.DEFAULT;
+		}
+
+		@Override
+		public boolean isSideSolid(BlockPos pos, EnumFacing side, boolean _default)
+		{
+			return getBlockState(pos) == solid;
+		}
+	}
+
+	private final BlockPos pos = new BlockPos(8, 64, 8);
+	private StubWorld world;
+	private BenchmarkRenderer snapshotRenderer;
+	private BenchmarkRenderer worldRenderer;
+	/** Direction of each face of the cube. */
+	private EnumFacing[] directions;
+	/** AO matrix of each vertex of each face of the cube. */
+	private int[][][][] aoMatrices;
+
+	@Setup
+	public void setup()
+	{
+		world = new StubWorld();
+		snapshotRenderer = new BenchmarkRenderer();
+		worldRenderer = new WorldLightingRenderer();
+
+		Face[] faces = new Cube().getFaces();
+		directions = new EnumFacing[faces.length];
+		aoMatrices = new int[faces.length][][][];
+		for (int i = 0; i < faces.length; i++)
+		{
+			directions[i] = faces[i].getParameters().direction.get();
+			aoMatrices[i] = faces[i].getParameters().aoMatrix.get();
+		}
+
+		if (light(snapshotRenderer) != light(worldRenderer))
+			throw new IllegalStateException("Snapshot and world lookups computed different values");
+	}
+
+	/**
+	 * Does the lookups needed to light the cube : for each vertex, the brightness of the three blocks of its AO matrix and the ambient
+	 * occlusion of those blocks plus the block in front.
+	 *
+	 * @param renderer the renderer
+	 * @return a sum of the values read
+	 */
+	private long light(BenchmarkRenderer renderer)
+	{
+		renderer.set(world, pos);
+		long sum = 0;
+		for (int f = 0; f < aoMatrices.length; f++)
+		{
+			EnumFacing dir = directions[f];
+			for (int[][] vertex : aoMatrices[f])
+			{
+				float ao = renderer.getBlockAmbientOcclusion(dir.getXOffset(), dir.getYOffset(), dir.getZOffset());
+				for (int[] offset : vertex)
+				{
+					sum += renderer.getMixedBrightnessForBlock(offset[0], offset[1], offset[2]);
+					ao += renderer.getBlockAmbientOcclusion(offset[0], offset[1], offset[2]);
+				}
+				sum += Float.floatToRawIntBits(ao);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long snapshot()
+	{
+		return light(snapshotRenderer);
+	}
+
+	@Benchmark
+	public long world()
+	{
+		return light(worldRenderer);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraft.util.EnumFacing;
+
+/**
+ * Benchmarks for {@link RenderParameters} merging, done for every face drawn.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderParametersBenchmark
+{
+	private RenderParameters shapeParams;
+	private RenderParameters faceParams;
+	private RenderParameters into;
+
+	@Setup
+	public void setup()
+	{
+		shapeParams = BenchmarkRenderer.standaloneParameters();
+		shapeParams.colorMultiplier.set(0xFF8800);
+		shapeParams.alpha.set(200);
+
+		faceParams = new RenderParameters();
+		faceParams.direction.set(EnumFacing.NORTH);
+		faceParams.colorFactor.set(0.8F);
+		faceParams.textureSide.set(EnumFacing.NORTH);
+
+		into = new RenderParameters();
+	}
+
+	@Benchmark
+	public RenderParameters mergeInto()
+	{
+		return RenderParameters.merge(shapeParams, faceParams, into);
+	}
+
+	@Benchmark
+	public RenderParameters mergeNew()
+	{
+		return RenderParameters.merge(shapeParams, faceParams);
+	}
+
+	@Benchmark
+	public RenderParameters copy()
+	{
+		into.copy(shapeParams);
+		return into;
+	}
+}
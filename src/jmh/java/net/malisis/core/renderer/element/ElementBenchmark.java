@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer.element;
+
+import java.util.concurrent.TimeUnit;
+
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.malisis.core.renderer.element.face.NorthFace;
+import net.malisis.core.renderer.element.shape.Cube;
+
+/**
+ * Benchmarks for the {@link Shape}, {@link Face} and {@link Vertex} operations done each frame by animated shapes.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementBenchmark
+{
+	private Shape cube;
+	private Face face;
+	private Vertex vertex;
+	private Matrix4f matrix;
+
+	@Setup
+	public void setup()
+	{
+		cube = new Cube();
+		face = new NorthFace();
+		vertex = new Vertex(0.25F, 0.5F, 0.75F);
+		matrix = new Matrix4f();
+		matrix.rotate((float) Math.toRadians(30), new Vector3f(0, 1, 0));
+	}
+
+	@Benchmark
+	public Shape newCube()
+	{
+		return new Cube();
+	}
+
+	@Benchmark
+	public Shape copyShape()
+	{
+		return new Shape(cube);
+	}
+
+	@Benchmark
+	public Shape transformAndReset()
+	{
+		cube.resetState();
+		cube.rotate(45, 0, 1, 0);
+		cube.translate(0, 0.5F, 0);
+		return cube.applyMatrix();
+	}
+
+	@Benchmark
+	public Shape storeState()
+	{
+		return cube.storeState();
+	}
+
+	@Benchmark
+	public Face copyFace()
+	{
+		return new Face(face);
+	}
+
+	@Benchmark
+	public Vertex applyMatrix()
+	{
+		vertex.set(0.25F, 0.5F, 0.75F);
+		vertex.applyMatrix(matrix);
+		return vertex;
+	}
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package net.malisis.core.util.chunkblock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import net.malisis.core.registry.Registries;
+import net.malisis.core.util.callback.CallbackResult;
+import net.malisis.core.util.chunklistener.ChunkListener;
+import net.malisis.core.util.chunklistener.IBlockListener;
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.profiler.Profiler;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.GameType;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProviderSurface;
+import net.minecraft.world.WorldSettings;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.storage.WorldInfo;
+
+/**
+ * Compares an edit of 102400 blocks (64x25x64) set one by one with {@link World#setBlockState(BlockPos, IBlockState, int)}, where the
+ * {@link IBlockListener.Post} listeners are looked up and called for every block, with the same edit applied by
+ * {@link BlockEditBatch#apply()}, where the listeners are resolved once per chunk and receive all their changes in a single call.<br>
+ * The blocks are set in a {@link BenchmarkWorld} that calls the set block callbacks the way the patched
+ * {@link Chunk#setBlockState(BlockPos, IBlockState)} does, so the real {@link ChunkBlockHandler} and {@link ChunkListener} are used. Each
+ * operation is a full edit, alternating between two states so every block actually changes.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockEditBatchBenchmark
+{
+	static
+	{
+		//normally registered by @AutoLoad
+		ChunkBlockHandler.get();
+		new ChunkListener();
+	}
+
+	public static class ListenerBlock extends Block implements IBlockListener.Post
+	{
+		private final int range;
+		private int calls;
+
+		public ListenerBlock(int range)
+		{
+			super(Material.ROCK);
+			this.range = range;
+		}
+
+		@Override
+		public int blockRange()
+		{
+			return range;
+		}
+
+		@Override
+		public void onBlockSet(World world, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+		{
+			calls++;
+		}
+	}
+
+	/**
+	 * {@link World} keeping its blocks in a {@link Map}, with all its chunks loaded.<br>
+	 * Setting a block processes the pre and post set block callbacks around the change, like the patched {@link Chunk} does.
+	 */
+	public static class BenchmarkWorld extends World
+	{
+		private final IBlockState air = new Block(Material.AIR).getDefaultState();
+		private final Map<BlockPos, IBlockState> states = Maps.newHashMap();
+		private final Map<Long, Chunk> chunks = Maps.newHashMap();
+
+		public BenchmarkWorld()
+		{
+			super(	null,
+					new WorldInfo(new WorldSettings(0, GameType.SURVIVAL, false, false, WorldType.DEFAULT), "benchmark"),
+					new WorldProviderSurface(),
+					new Profiler(),
+					false);
+			chunkProvider = createChunkProvider();
+		}
+
+		@Override
+		protected IChunkProvider createChunkProvider()
+		{
+			return new IChunkProvider()
+			{
+				@Override
+				public Chunk getLoadedChunk(int x, int z)
+				{
+					return provideChunk(x, z);
+				}
+
+				@Override
+				public Chunk provideChunk(int x, int z)
+				{
+					return chunks.computeIfAbsent(ChunkPos.asLong(x, z), k -> new Chunk(BenchmarkWorld.this, x, z));
+				}
+
+				@Override
+				public boolean tick()
+				{
+					return false;
+				}
+
+				@Override
+				public String makeString()
+				{
+					return "BenchmarkWorld";
+				}
+
+				@Override
+				public boolean isChunkGeneratedAt(int x, int z)
+				{
+					return true;
+				}
+			};
+		}
+
+		@Override
+		protected boolean isChunkLoaded(int x, int z, boolean allowEmpty)
+		{
+			return true;
+		}
+
+		@Override
+		public IBlockState getBlockState(BlockPos pos)
+		{
+			IBlockState state = states.get(pos);
+			return state != null ? state : air;
+		}
+
+		@Override
+		public boolean setBlockState(BlockPos pos, IBlockState newState, int flags)
+		{
+			Chunk chunk = getChunk(pos);
+			IBlockState oldState = getBlockState(pos);
+			CallbackResult<Void> result = Registries.processPreSetBlock(chunk, pos, oldState, newState);
+			if (result != null && result.shouldReturn())
+				return false;
+
+			states.put(pos.toImmutable(), newState);
+			Registries.processPostSetBlock(chunk, pos, oldState, newState);
+			return true;
+		}
+	}
+
+	private static final int SIZE_XZ = 64;
+	private static final int SIZE_Y = 25;
+	private static final int MIN_Y = 60;
+
+	@Param({ "1000" })
+	public int listeners;
+
+	@Param({ "8" })
+	public int range;
+
+	private BenchmarkWorld world;
+	private ListenerBlock block;
+	private IBlockState[] states;
+	private int next = 0;
+	/** The edited positions, all the positions of the area except the listeners. */
+	private final List<BlockPos> edits = new ArrayList<>();
+
+	@Setup
+	public void setup()
+	{
+		Random rand = new Random(0);
+		world = new BenchmarkWorld();
+		block = new ListenerBlock(range);
+		states = new IBlockState[] { new Block(Material.ROCK).getDefaultState(), new Block(Material.ROCK).getDefaultState() };
+
+		Set<BlockPos> listenerPositions = Sets.newHashSet();
+		for (int i = 0; i < listeners; i++)
+		{
+			BlockPos pos = new BlockPos(rand.nextInt(SIZE_XZ), MIN_Y + rand.nextInt(SIZE_Y), rand.nextInt(SIZE_XZ));
+			if (listenerPositions.add(pos))
+				world.setBlockState(pos, block.getDefaultState(), 3);
+		}
+
+		for (int x = 0; x < SIZE_XZ; x++)
+			for (int z = 0; z < SIZE_XZ; z++)
+				for (int y = MIN_Y; y < MIN_Y + SIZE_Y; y++)
+				{
+					BlockPos pos = new BlockPos(x, y, z);
+					if (!listenerPositions.contains(pos))
+						edits.add(pos);
+				}
+	}
+
+	private IBlockState nextState()
+	{
+		next = (next + 1) % states.length;
+		return states[next];
+	}
+
+	@Benchmark
+	public int perBlock()
+	{
+		block.calls = 0;
+		IBlockState state = nextState();
+		for (BlockPos pos : edits)
+			world.setBlockState(pos, state, 3);
+		return block.calls;
+	}
+
+	@Benchmark
+	public int batched()
+	{
+		block.calls = 0;
+		IBlockState state = nextState();
+		BlockEditBatch batch = new BlockEditBatch(world);
+		for (BlockPos pos : edits)
+			batch.setBlockState(pos, state);
+		batch.apply();
+		return block.calls;
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.util.chunkblock;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.malisis.core.registry.Registries;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.malisis.core.util.chunkblock.BlockEditBatchBenchmark.BenchmarkWorld;
+import net.malisis.core.util.chunklistener.ChunkListener;
+import net.malisis.core.util.chunklistener.ChunkListener.IBlockListenerCallback;
+import net.malisis.core.util.chunklistener.ChunkListener.IBlockListenerPredicate;
+import net.malisis.core.util.chunklistener.IBlockListener;
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * Compares the {@link IBlockListener.Pre} listeners lookup for a setBlock through {@link ChunkListener}, which queries the
+ * {@link ChunkBlockIndex} for the listeners in range and uses the components stored with their coordinates, with the previous
+ * implementation, which processed the {@link ChunkCallbackRegistry} for every coordinate of the chunk and read each listener block from
+ * the world.<br>
+ * Both use the real {@link ChunkListener} callbacks, on a {@link BenchmarkWorld}.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkBlockIndexBenchmark
+{
+	/** Normally registered by @AutoLoad. */
+	private static final ChunkListener chunkListener;
+	static
+	{
+		ChunkBlockHandler.get();
+		chunkListener = new ChunkListener();
+	}
+
+	public static class ListenerBlock extends Block implements IBlockListener.Pre
+	{
+		private final int range;
+		private int calls;
+
+		public ListenerBlock(int range)
+		{
+			super(Material.ROCK);
+			this.range = range;
+		}
+
+		@Override
+		public int blockRange()
+		{
+			return range;
+		}
+
+		@Override
+		public boolean onBlockSet(World world, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+		{
+			calls++;
+			return true;
+		}
+	}
+
+	private static final int QUERIES = 256;
+
+	@Param({ "1000" })
+	public int listeners;
+
+	@Param({ "8" })
+	public int range;
+
+	private BenchmarkWorld world;
+	private Chunk chunk;
+	private ListenerBlock block;
+	private IBlockState newState;
+	/** Registry processed like {@link ChunkListener} did before the index, for the whole chunk. */
+	private final ChunkCallbackRegistry<IBlockListenerCallback, IBlockListenerPredicate, Void> linearRegistry =
+			new ChunkCallbackRegistry<>();
+	private final BlockPos[] queries = new BlockPos[QUERIES];
+	private int query;
+
+	@Setup
+	public void setup()
+	{
+		Random rand = new Random(0);
+		world = new BenchmarkWorld();
+		chunk = world.getChunk(0, 0);
+		block = new ListenerBlock(range);
+		newState = new Block(Material.ROCK).getDefaultState();
+		linearRegistry.registerCallback(chunkListener::callPreListener, CallbackOption.of(chunkListener::isValidPreListener));
+
+		for (int i = 0; i < listeners; i++)
+			world.setBlockState(new BlockPos(rand.nextInt(16), rand.nextInt(256), rand.nextInt(16)), block.getDefaultState(), 3);
+
+		for (int i = 0; i < QUERIES; i++)
+			queries[i] = new BlockPos(rand.nextInt(16), rand.nextInt(256), rand.nextInt(16));
+	}
+
+	private BlockPos nextQuery()
+	{
+		query = (query + 1) % QUERIES;
+		return queries[query];
+	}
+
+	@Benchmark
+	public int linearScan()
+	{
+		BlockPos pos = nextQuery();
+		block.calls = 0;
+		linearRegistry.processCallbacks(chunk, pos, world.getBlockState(pos), newState);
+		return block.calls;
+	}
+
+	@Benchmark
+	public int indexQuery()
+	{
+		BlockPos pos = nextQuery();
+		block.calls = 0;
+		Registries.processPreSetBlock(chunk, pos, world.getBlockState(pos), newState);
+		return block.calls;
+	}
+}
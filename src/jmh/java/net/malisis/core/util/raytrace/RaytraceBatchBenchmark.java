@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package net.malisis.core.util.raytrace;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.malisis.core.block.BoundingBoxType;
+import net.malisis.core.util.Point;
+import net.malisis.core.util.chunkblock.BlockEditBatchBenchmark.BenchmarkWorld;
+import net.malisis.core.util.chunkblock.ChunkBlockHandler;
+import net.malisis.core.util.chunkcollision.ChunkCollision;
+import net.malisis.core.util.chunkcollision.IChunkCollidable;
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.RayTraceResult.Type;
+import net.minecraft.world.IBlockAccess;
+
+/**
+ * Compares the per-ray cost of 64 rays cast from the same source, traced with a single {@link RaytraceWorld#trace()} call each, where
+ * every ray resolves the chunks it crosses and the {@link IChunkCollidable} blocks stored in them, with a single
+ * {@link RaytraceBatch#trace(double[])} call, where chunks and collidables are resolved once for all the rays.<br>
+ * The collidables are set in a {@link BenchmarkWorld}, so they are registered in the real {@link ChunkBlockHandler} and hit through the
+ * real {@link ChunkCollision}. Each operation is a single ray.
+ *
+ * @author Ordinastie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaytraceBatchBenchmark
+{
+	static
+	{
+		//normally registered by @AutoLoad
+		ChunkBlockHandler.get();
+		ChunkCollision.get();
+	}
+
+	public static class CollidableBlock extends Block implements IChunkCollidable
+	{
+		private final int range;
+
+		public CollidableBlock(int range)
+		{
+			super(Material.ROCK);
+			this.range = range;
+		}
+
+		@Override
+		public int blockRange()
+		{
+			return range;
+		}
+
+		@Override
+		public AxisAlignedBB getBoundingBox(IBlockAccess world, BlockPos pos, IBlockState state, BoundingBoxType type)
+		{
+			return new AxisAlignedBB(-range, 0, -range, range + 1, 1, range + 1);
+		}
+	}
+
+	private static final int RAYS = 64;
+	private static final int SIZE_XZ = 128;
+	private static final int MIN_Y = 60;
+	private static final int SIZE_Y = 20;
+
+	@Param({ "200" })
+	public int collidables;
+
+	@Param({ "2" })
+	public int range;
+
+	@Param({ "48" })
+	public int distance;
+
+	private BenchmarkWorld world;
+	private final Point src = new Point(SIZE_XZ / 2 + 0.5D, MIN_Y + SIZE_Y / 2 + 0.5D, SIZE_XZ / 2 + 0.5D);
+	private final double[] destinations = new double[RAYS * 3];
+
+	@Setup
+	public void setup()
+	{
+		Random rand = new Random(0);
+		world = new BenchmarkWorld();
+		IBlockState state = new CollidableBlock(range).getDefaultState();
+		for (int i = 0; i < collidables; i++)
+			world.setBlockState(new BlockPos(rand.nextInt(SIZE_XZ), MIN_Y + rand.nextInt(SIZE_Y), rand.nextInt(SIZE_XZ)), state, 3);
+
+		//scan cone pointing east
+		for (int i = 0; i < RAYS; i++)
+		{
+			double yaw = (rand.nextDouble() - 0.5D) * Math.PI / 3;
+			double pitch = (rand.nextDouble() - 0.5D) * Math.PI / 6;
+			destinations[i * 3] = src.x + Math.cos(yaw) * Math.cos(pitch) * distance;
+			destinations[i * 3 + 1] = src.y + Math.sin(pitch) * distance;
+			destinations[i * 3 + 2] = src.z + Math.sin(yaw) * Math.cos(pitch) * distance;
+		}
+
+		RaytraceBatch.Result result = new RaytraceBatch(world, src).trace(destinations);
+		for (int i = 0; i < RAYS; i++)
+		{
+			RayTraceResult hit = traceSingle(i);
+			boolean isHit = hit != null && hit.typeOfHit == Type.BLOCK;
+			if (isHit != result.isHit(i) || (isHit && hit.getBlockPos().toLong() != result.getPositions()[i]))
+				throw new IllegalStateException("Single and batched traces hit different blocks for ray " + i);
+		}
+	}
+
+	private RayTraceResult traceSingle(int index)
+	{
+		Point dest = new Point(destinations[index * 3], destinations[index * 3 + 1], destinations[index * 3 + 2]);
+		return new RaytraceWorld(world, src, dest).trace();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public int single()
+	{
+		int hits = 0;
+		for (int i = 0; i < RAYS; i++)
+		{
+			RayTraceResult hit = traceSingle(i);
+			if (hit != null && hit.typeOfHit == Type.BLOCK)
+				hits++;
+		}
+		return hits;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public int batched()
+	{
+		RaytraceBatch.Result result = new RaytraceBatch(world, src).trace(destinations);
+		int hits = 0;
+		for (int i = 0; i < result.size(); i++)
+			if (result.isHit(i))
+				hits++;
+		return hits;
+	}
+}
@@ -42,15 +42,15 @@ import net.minecraft.world.chunk.Chunk;
 @Mixin(value = Chunk.class, priority = 1001)
 public class MixinChunk
 {
-	private IBlockState oldState;
-
+	//no state is kept between the injections : setBlockState can be called concurrently (async world generation) or reentrantly (from
+	//the callbacks themselves), so the previous state is read from the return value instead
 	@Inject(method = "setBlockState(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/state/IBlockState;)Lnet/minecraft/block/state/IBlockState;",
 			at = @At("HEAD"),
 			cancellable = true)
 	private void preSetBlock(BlockPos pos, IBlockState newState, CallbackInfoReturnable<IBlockState> cir)
 	{
 		Chunk chunk = (Chunk) (Object) this;
-		oldState = chunk.getBlockState(pos);
+		IBlockState oldState = chunk.getBlockState(pos);
 		if (oldState != null) {
 			CallbackResult<Void> cb = Registries.processPreSetBlock(chunk, pos, oldState, newState);
 			if (cb != null) {
@@ -61,10 +61,13 @@ public class MixinChunk
 		}
 	}
 
+	//TAIL is the only return where the block was actually changed, and setBlockState returns the previous state there
 	@Inject(method = "setBlockState(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/state/IBlockState;)Lnet/minecraft/block/state/IBlockState;",
 			at = @At("TAIL"))
 	private void postSetBlock(BlockPos pos, IBlockState newState, CallbackInfoReturnable<IBlockState> cir)
 	{
-		Registries.processPostSetBlock((Chunk) (Object) this, pos, oldState, newState);
+		IBlockState oldState = cir.getReturnValue();
+		if (oldState != null)
+			Registries.processPostSetBlock((Chunk) (Object) this, pos, oldState, newState);
 	}
 }
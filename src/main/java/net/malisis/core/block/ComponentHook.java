@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.block;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hooks of {@link IBlockComponent} called by {@link MalisisBlock}.<br>
+ * {@link #buildTable(List)} computes, for each hook, the components that actually override it, so that {@link MalisisBlock} only calls
+ * those, and falls back to the vanilla behavior directly when none do. Components not overriding a hook always return the neutral default
+ * value, so skipping them does not change the result.
+ *
+ * @author Ordinastie
+ */
+public enum ComponentHook
+{
+	//@formatter:off
+	GET_TRANSLATION_KEY("getTranslationKey"),
+	ON_BLOCK_ADDED("onBlockAdded"),
+	GET_STATE_FOR_PLACEMENT("getStateForPlacement"),
+	ON_BLOCK_PLACED_BY("onBlockPlacedBy"),
+	ON_BLOCK_ACTIVATED("onBlockActivated"),
+	ON_NEIGHBOR_BLOCK_CHANGE("onNeighborBlockChange"),
+	BREAK_BLOCK("breakBlock"),
+	GET_BOUNDING_BOX("getBoundingBox"),
+	GET_BOUNDING_BOXES("getBoundingBoxes"),
+	CAN_PLACE_BLOCK_ON_SIDE("canPlaceBlockOnSide"),
+	CAN_PLACE_BLOCK_AT("canPlaceBlockAt"),
+	DAMAGE_DROPPED("damageDropped"),
+	GET_MAP_COLOR("getMapColor"),
+	GET_STATE_FROM_META("getStateFromMeta"),
+	GET_META_FROM_STATE("getMetaFromState"),
+	SHOULD_SIDE_BE_RENDERED("shouldSideBeRendered"),
+	IS_FULL_BLOCK("isFullBlock"),
+	IS_FULL_CUBE("isFullCube"),
+	IS_OPAQUE_CUBE("isOpaqueCube"),
+	CAN_PROVIDE_POWER("canProvidePower"),
+	GET_PACKED_LIGHTMAP_COORDS("getPackedLightmapCoords"),
+	GET_ITEM_DROPPED("getItemDropped"),
+	QUANTITY_DROPPED("quantityDropped"),
+	GET_LIGHT_OPACITY("getLightOpacity");
+	//@formatter:on
+
+	/** Empty table, used while the block is not constructed yet. */
+	static final IBlockComponent[][] EMPTY_TABLE = new IBlockComponent[values().length][0];
+
+	/** Which hooks are overridden for each component class. */
+	private static final ClassValue<boolean[]> overrides = new ClassValue<boolean[]>()
+	{
+		@Override
+		protected boolean[] computeValue(Class<?> type)
+		{
+			ComponentHook[] hooks = values();
+			boolean[] overridden = new boolean[hooks.length];
+			for (ComponentHook hook : hooks)
+			{
+				try
+				{
+					overridden[hook.ordinal()] = type.getMethod(hook.method.getName(), hook.method.getParameterTypes())
+														.getDeclaringClass() != IBlockComponent.class;
+				}
+				catch (NoSuchMethodException e)
+				{
+					overridden[hook.ordinal()] = true;
+				}
+			}
+			return overridden;
+		}
+	};
+
+	/** The {@link IBlockComponent} method for this hook. */
+	private final Method method;
+
+	private ComponentHook(String name)
+	{
+		Method found = null;
+		for (Method m : IBlockComponent.class.getDeclaredMethods())
+			if (m.getName().equals(name))
+				found = m;
+		if (found == null)
+			throw new IllegalArgumentException("No method " + name + " in IBlockComponent");
+		this.method = found;
+	}
+
+	/**
+	 * Checks whether the {@link IBlockComponent} overrides this hook.
+	 *
+	 * @param component the component
+	 * @return true, if overridden
+	 */
+	public boolean isOverriddenBy(IBlockComponent component)
+	{
+		return overrides.get(component.getClass())[ordinal()];
+	}
+
+	/**
+	 * Builds the table of components overriding each hook, indexed by {@link #ordinal()}. The order of the components is kept.
+	 *
+	 * @param components the components
+	 * @return the table
+	 */
+	public static IBlockComponent[][] buildTable(List<IBlockComponent> components)
+	{
+		ComponentHook[] hooks = values();
+		IBlockComponent[][] table = new IBlockComponent[hooks.length][];
+		List<IBlockComponent> list = new ArrayList<>();
+		for (ComponentHook hook : hooks)
+		{
+			list.clear();
+			for (IBlockComponent component : components)
+				if (hook.isOverriddenBy(component))
+					list.add(component);
+			table[hook.ordinal()] = list.toArray(new IBlockComponent[0]);
+		}
+		return table;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.block;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable index of the {@link IComponent components} of a {@link IComponentProvider}, keyed by every class and interface they
+ * implement.<br>
+ * Once built, {@link #getComponent(Class)} and {@link #getComponents(Class)} are a single identity map lookup, instead of streaming over
+ * the components for each call. Providers rebuild the index when a component is added.
+ *
+ * @author Ordinastie
+ */
+public class ComponentIndex
+{
+	/** Index without any component. */
+	public static final ComponentIndex EMPTY = new ComponentIndex(Collections.emptyList());
+
+	/** All the components, in insertion order. */
+	private final List<IComponent> components;
+	/** Components for each class or interface they implement, in insertion order. */
+	private final Map<Class<?>, List<?>> byType = new IdentityHashMap<>();
+
+	private ComponentIndex(Collection<? extends IComponent> components)
+	{
+		this.components = ImmutableList.copyOf(components);
+
+		Map<Class<?>, List<Object>> types = new IdentityHashMap<>();
+		for (IComponent component : this.components)
+		{
+			for (Class<?> type : getTypes(component.getClass()))
+				types.computeIfAbsent(type, t -> new ArrayList<>()).add(component);
+		}
+		types.forEach((type, list) -> byType.put(type, ImmutableList.copyOf(list)));
+	}
+
+	/**
+	 * Gets all the components.
+	 *
+	 * @return the components
+	 */
+	public List<IComponent> getComponents()
+	{
+		return components;
+	}
+
+	/**
+	 * Gets the first component of the specified type.
+	 *
+	 * @param <T> the generic type
+	 * @param type the type
+	 * @return the component, or null if none
+	 */
+	public <T> T getComponent(Class<T> type)
+	{
+		List<?> list = byType.get(type);
+		return list != null ? type.cast(list.get(0)) : null;
+	}
+
+	/**
+	 * Gets all the components of the specified type.
+	 *
+	 * @param <T> the generic type
+	 * @param type the type
+	 * @return the components
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getComponents(Class<T> type)
+	{
+		List<?> list = byType.get(type);
+		return list != null ? (List<T>) list : ImmutableList.of();
+	}
+
+	/**
+	 * Builds a {@link ComponentIndex} from the lists of components, in order.
+	 *
+	 * @param lists the lists
+	 * @return the component index
+	 */
+	@SafeVarargs
+	public static ComponentIndex of(Collection<? extends IComponent>... lists)
+	{
+		List<IComponent> all = new ArrayList<>();
+		for (Collection<? extends IComponent> list : lists)
+			all.addAll(list);
+		return all.isEmpty() ? EMPTY : new ComponentIndex(all);
+	}
+
+	/**
+	 * Gets the class, its superclasses and all the interfaces they implement.
+	 *
+	 * @param clazz the clazz
+	 * @return the types
+	 */
+	private static Set<Class<?>> getTypes(Class<?> clazz)
+	{
+		Set<Class<?>> types = new LinkedHashSet<>();
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass())
+			addInterfaces(c, types);
+		return types;
+	}
+
+	private static void addInterfaces(Class<?> clazz, Set<Class<?>> types)
+	{
+		if (!types.add(clazz))
+			return;
+		for (Class<?> itf : clazz.getInterfaces())
+			addInterfaces(itf, types);
+	}
+}
@@ -25,6 +25,7 @@
 package net.malisis.core.block;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import net.minecraft.block.Block;
 
@@ -60,4 +61,16 @@ public interface IComponentProvider
 	{
 		return getComponents().stream().filter(type::isInstance).map(type::cast).findFirst().orElse(null);
 	}
+
+	/**
+	 * Gets all the {@link IComponent} of the specified type from this {@link IComponentProvider}.
+	 *
+	 * @param <T> the generic type
+	 * @param type the type
+	 * @return the components
+	 */
+	public default <T> List<T> getComponents(Class<T> type)
+	{
+		return getComponents().stream().filter(type::isInstance).map(type::cast).collect(Collectors.toList());
+	}
 }
@@ -25,6 +25,8 @@
 package net.malisis.core.block;
 
 import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.AxisAlignedBB;
 
 /**
@@ -46,6 +48,20 @@ public interface ISmartCull
 		return true;
 	}
 
+	/**
+	 * Gets the sides of the render bounds touching the block boundaries for the {@link IBlockState}.<br>
+	 * Bit <code>1 << side.getIndex()</code> is set if the bounds reach that side. The mask is cached per state, so it must only depend on
+	 * the state.<br>
+	 * Returns -1 if the bounds depend on the world, in which case the render bounds are checked for each face.
+	 *
+	 * @param state the state
+	 * @return the boundary mask
+	 */
+	public default int getBoundaryMask(IBlockState state)
+	{
+		return -1;
+	}
+
 	/**
 	 * Whether the {@link Block} should use smart culling.
 	 *
@@ -58,4 +74,28 @@ public interface ISmartCull
 		return sc != null && sc.shouldSmartCull();
 	}
 
+	/**
+	 * Gets the sides of the {@link AxisAlignedBB} touching the block boundaries.
+	 *
+	 * @param aabb the aabb
+	 * @return the boundary mask
+	 */
+	public static int getBoundaryMask(AxisAlignedBB aabb)
+	{
+		int mask = 0;
+		if (aabb.minY <= 0)
+			mask |= 1 << EnumFacing.DOWN.getIndex();
+		if (aabb.maxY >= 1)
+			mask |= 1 << EnumFacing.UP.getIndex();
+		if (aabb.minZ <= 0)
+			mask |= 1 << EnumFacing.NORTH.getIndex();
+		if (aabb.maxZ >= 1)
+			mask |= 1 << EnumFacing.SOUTH.getIndex();
+		if (aabb.minX <= 0)
+			mask |= 1 << EnumFacing.WEST.getIndex();
+		if (aabb.maxX >= 1)
+			mask |= 1 << EnumFacing.EAST.getIndex();
+		return mask;
+	}
+
 }
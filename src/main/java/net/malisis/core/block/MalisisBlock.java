@@ -29,8 +29,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
@@ -49,6 +47,7 @@ import net.malisis.core.renderer.DefaultRenderer;
 import net.malisis.core.renderer.MalisisRendered;
 import net.malisis.core.renderer.icon.Icon;
 import net.malisis.core.renderer.icon.provider.IIconProvider;
+import net.malisis.core.util.AABBUtils;
 import net.minecraft.block.Block;
 import net.minecraft.block.material.MapColor;
 import net.minecraft.block.material.Material;
@@ -87,6 +86,12 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	protected AxisAlignedBB boundingBox;
 	protected final List<IBlockComponent> blockComponents = Lists.newArrayList();
 	protected final List<IComponent> components = Lists.newArrayList();
+	/** Index of {@link #blockComponents} and {@link #components} by type, built on first use after a component is added. */
+	private volatile ComponentIndex componentIndex;
+	/** Components overriding each {@link ComponentHook}, built on first use after a component is added. */
+	private volatile IBlockComponent[][] hookTable;
+	/** Answers of the {@link StateCacheable} hooks for each state, built on first use after a component is added. */
+	private volatile StateCache stateCache;
 
 	protected MalisisBlock(Material material)
 	{
@@ -128,10 +133,82 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 		return blockComponents;
 	}
 
+	/**
+	 * Gets the {@link ComponentIndex} for this {@link MalisisBlock}, building it if components were added since the last call.
+	 *
+	 * @return the component index
+	 */
+	protected ComponentIndex getComponentIndex()
+	{
+		ComponentIndex index = componentIndex;
+		if (index == null)
+			componentIndex = index = ComponentIndex.of(blockComponents, components);
+		return index;
+	}
+
+	/**
+	 * Gets the {@link IBlockComponent components} of this {@link MalisisBlock} that override the {@link ComponentHook}.
+	 *
+	 * @param hook the hook
+	 * @return the components
+	 */
+	protected IBlockComponent[] getHookComponents(ComponentHook hook)
+	{
+		IBlockComponent[][] table = hookTable;
+		if (table == null)
+		{
+			//parent constructor call
+			if (blockComponents == null)
+				return ComponentHook.EMPTY_TABLE[hook.ordinal()];
+			hookTable = table = ComponentHook.buildTable(blockComponents);
+		}
+		return table[hook.ordinal()];
+	}
+
+	/**
+	 * Gets the {@link StateCache} for this {@link MalisisBlock}.
+	 *
+	 * @return the state cache
+	 */
+	protected StateCache getStateCache()
+	{
+		StateCache cache = stateCache;
+		if (cache == null)
+		{
+			//parent constructor call
+			if (blockComponents == null)
+				return StateCache.NONE;
+			stateCache = cache = StateCache.build(this);
+		}
+		return cache;
+	}
+
+	/**
+	 * Drops the component index, hook table and state cache so they are rebuilt with the current components and states.
+	 */
+	private void invalidateCaches()
+	{
+		componentIndex = null;
+		hookTable = null;
+		stateCache = null;
+	}
+
 	@Override
 	public List<IComponent> getComponents()
 	{
-		return Stream.concat(blockComponents.stream(), components.stream()).collect(Collectors.toList());
+		return getComponentIndex().getComponents();
+	}
+
+	@Override
+	public <T> T getComponent(Class<T> type)
+	{
+		return getComponentIndex().getComponent(type);
+	}
+
+	@Override
+	public <T> List<T> getComponents(Class<T> type)
+	{
+		return getComponentIndex().getComponents(type);
 	}
 
 	@Override
@@ -143,14 +220,20 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 		if (component instanceof IBlockComponent)
 		{
 			blockComponents.add((IBlockComponent) component);
+			invalidateCaches();
 			for (IComponent dep : ((IBlockComponent) component).getDependencies())
 				addComponent(dep);
 
 			buildBlockState();
 			buildDefaultState();
+			//states were rebuilt
+			invalidateCaches();
 		}
 		else
+		{
 			components.add(component);
+			invalidateCaches();
+		}
 
 		component.onComponentAdded(this);
 
@@ -167,7 +250,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 
 	public String getTranslationKey(IBlockState state)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_TRANSLATION_KEY))
 		{
 			String name = component.getTranslationKey(this, state);
 			if (name != null)
@@ -239,14 +322,15 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public void onBlockAdded(World world, BlockPos pos, IBlockState state)
 	{
-		getBlockComponents().forEach(c -> c.onBlockAdded(this, world, pos, state));
+		for (IBlockComponent component : getHookComponents(ComponentHook.ON_BLOCK_ADDED))
+			component.onBlockAdded(this, world, pos, state);
 	}
 
 	@Override
 	public IBlockState getStateForPlacement(World world, BlockPos pos, EnumFacing facing, float hitX, float hitY, float hitZ, int meta, EntityLivingBase placer, EnumHand hand)
 	{
 		IBlockState state = super.getStateForPlacement(world, pos, facing, hitX, hitY, hitZ, meta, placer, hand);
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_STATE_FOR_PLACEMENT))
 			state = component.getStateForPlacement(this, world, pos, state, facing, hitX, hitY, hitZ, meta, placer, hand);
 
 		return state;
@@ -255,14 +339,15 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public void onBlockPlacedBy(World world, BlockPos pos, IBlockState state, EntityLivingBase placer, ItemStack stack)
 	{
-		getBlockComponents().forEach(c -> c.onBlockPlacedBy(this, world, pos, state, placer, stack));
+		for (IBlockComponent component : getHookComponents(ComponentHook.ON_BLOCK_PLACED_BY))
+			component.onBlockPlacedBy(this, world, pos, state, placer, stack);
 	}
 
 	@Override
 	public boolean onBlockActivated(World world, BlockPos pos, IBlockState state, EntityPlayer player, EnumHand hand, EnumFacing side, float hitX, float hitY, float hitZ)
 	{
 		boolean b = false;
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.ON_BLOCK_ACTIVATED))
 			b |= component.onBlockActivated(this, world, pos, state, player, hand, side, hitX, hitY, hitZ);
 
 		return b;
@@ -271,14 +356,15 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public void neighborChanged(IBlockState state, World world, BlockPos pos, Block neighborBlock, BlockPos neighborPos)
 	{
-		getBlockComponents().forEach(c -> c.onNeighborBlockChange(this, world, pos, state, neighborBlock, neighborPos));
+		for (IBlockComponent component : getHookComponents(ComponentHook.ON_NEIGHBOR_BLOCK_CHANGE))
+			component.onNeighborBlockChange(this, world, pos, state, neighborBlock, neighborPos);
 	}
 
 	@Override
 	public boolean canProvidePower(IBlockState state)
 	{
 		boolean b = false;
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.CAN_PROVIDE_POWER))
 			b |= component.canProvidePower(this, state);
 
 		return b;
@@ -287,7 +373,8 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public void breakBlock(World world, BlockPos pos, IBlockState state)
 	{
-		getBlockComponents().forEach(c -> c.breakBlock(this, world, pos, state));
+		for (IBlockComponent component : getHookComponents(ComponentHook.BREAK_BLOCK))
+			component.breakBlock(this, world, pos, state);
 
 		super.breakBlock(world, pos, state);
 	}
@@ -317,7 +404,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public AxisAlignedBB getBoundingBox(IBlockAccess world, BlockPos pos, IBlockState state, BoundingBoxType type)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_BOUNDING_BOX))
 		{
 			AxisAlignedBB aabb = component.getBoundingBox(this, world, pos, state, type);
 			if (aabb != null)
@@ -331,7 +418,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	public AxisAlignedBB[] getBoundingBoxes(IBlockAccess world, BlockPos pos, IBlockState state, BoundingBoxType type)
 	{
 		List<AxisAlignedBB> list = Lists.newArrayList();
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_BOUNDING_BOXES))
 		{
 			AxisAlignedBB[] aabbs = component.getBoundingBoxes(this, world, pos, state, type);
 			if (aabbs != null)
@@ -341,18 +428,80 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 		return list.size() != 0 ? list.toArray(new AxisAlignedBB[0]) : IBoundingBox.super.getBoundingBoxes(world, pos, state, type);
 	}
 
+	/**
+	 * Checks whether the bounding boxes of the {@link BoundingBoxType} only depend on the {@link IBlockState}.<br>
+	 * In that case, they only change when the block is set in the world.
+	 *
+	 * @param state the state
+	 * @param type the type
+	 * @return true, if the bounding boxes are cached for the state
+	 */
+	public boolean hasStateBoundingBoxes(IBlockState state, BoundingBoxType type)
+	{
+		return getStateCache().getBoundingBoxes(state, type) != null;
+	}
+
+	@Override
+	public AxisAlignedBB[] getCollisionBoundingBoxes(World world, BlockPos pos, IBlockState state)
+	{
+		AxisAlignedBB[] cached = getStateCache().getBoundingBoxes(state, BoundingBoxType.COLLISION);
+		if (cached != null)
+			return cached.clone();
+
+		return IBoundingBox.super.getCollisionBoundingBoxes(world, pos, state);
+	}
+
 	@Override
 	public void addCollisionBoxToList(IBlockState state, World world, BlockPos pos, AxisAlignedBB mask, List<AxisAlignedBB> list, @Nullable Entity collidingEntity, boolean useActualState)
 	{
-		IBoundingBox.super.addCollisionBoxToList(state, world, pos, mask, list, collidingEntity, false);
+		AxisAlignedBB[] cached = getStateCache().getBoundingBoxes(state, BoundingBoxType.COLLISION);
+		if (cached == null)
+		{
+			IBoundingBox.super.addCollisionBoxToList(state, world, pos, mask, list, collidingEntity, false);
+			return;
+		}
+
+		int x = pos.getX();
+		int y = pos.getY();
+		int z = pos.getZ();
+		for (AxisAlignedBB aabb : cached)
+		{
+			//check before offsetting to avoid allocating boxes that don't intersect
+			if (aabb != null && mask.intersects(aabb.minX + x, aabb.minY + y, aabb.minZ + z, aabb.maxX + x, aabb.maxY + y, aabb.maxZ + z))
+				list.add(aabb.offset(x, y, z));
+		}
 	}
 
 	@Override
 	public AxisAlignedBB getSelectedBoundingBox(IBlockState state, World world, BlockPos pos)
 	{
+		AxisAlignedBB cached = getStateCache().getSelectedBoundingBox(state);
+		if (cached != null)
+			return AABBUtils.offset(pos, cached);
+
 		return IBoundingBox.super.getSelectedBoundingBox(state, world, pos);
 	}
 
+	@Override
+	public AxisAlignedBB[] getRenderBoundingBox(IBlockAccess world, BlockPos pos, IBlockState state)
+	{
+		AxisAlignedBB[] cached = getStateCache().getBoundingBoxes(state, BoundingBoxType.RENDER);
+		if (cached != null)
+			return cached.clone();
+
+		return IBoundingBox.super.getRenderBoundingBox(world, pos, state);
+	}
+
+	@Override
+	public AxisAlignedBB[] getRayTraceBoundingBox(IBlockAccess world, BlockPos pos, IBlockState state)
+	{
+		AxisAlignedBB[] cached = getStateCache().getBoundingBoxes(state, BoundingBoxType.RAYTRACE);
+		if (cached != null)
+			return cached.clone();
+
+		return IBoundingBox.super.getRayTraceBoundingBox(world, pos, state);
+	}
+
 	@Override
 	public RayTraceResult collisionRayTrace(IBlockState state, World world, BlockPos pos, Vec3d src, Vec3d dest)
 	{
@@ -362,7 +511,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public boolean canPlaceBlockOnSide(World world, BlockPos pos, EnumFacing side)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.CAN_PLACE_BLOCK_ON_SIDE))
 			if (!component.canPlaceBlockOnSide(this, world, pos, side))
 				return false;
 
@@ -372,7 +521,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public boolean canPlaceBlockAt(World world, BlockPos pos)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.CAN_PLACE_BLOCK_AT))
 			if (!component.canPlaceBlockAt(this, world, pos))
 				return false;
 
@@ -383,7 +532,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public int damageDropped(IBlockState state)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.DAMAGE_DROPPED))
 		{
 			int damage = component.damageDropped(this, state);
 			if (damage != 0)
@@ -412,7 +561,11 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public MapColor getMapColor(IBlockState state, IBlockAccess world, BlockPos pos)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		MapColor cached = getStateCache().getMapColor(state);
+		if (cached != null)
+			return cached;
+
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_MAP_COLOR))
 		{
 			MapColor color = component.getMapColor(this, state, world, pos);
 			if (color != null)
@@ -426,7 +579,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	public IBlockState getStateFromMeta(int meta)
 	{
 		IBlockState state = getDefaultState();
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_STATE_FROM_META))
 			state = component.getStateFromMeta(this, state, meta);
 
 		return state;
@@ -436,7 +589,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	public int getMetaFromState(IBlockState state)
 	{
 		int meta = 0;
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_META_FROM_STATE))
 			meta += component.getMetaFromState(this, state);
 
 		return meta;
@@ -447,7 +600,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public boolean shouldSideBeRendered(IBlockState state, IBlockAccess world, BlockPos pos, EnumFacing side)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.SHOULD_SIDE_BE_RENDERED))
 		{
 			Boolean render = component.shouldSideBeRendered(this, world, pos, state, side);
 			if (render != null)
@@ -459,7 +612,11 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public boolean isFullBlock(IBlockState state)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		Boolean cached = getStateCache().isFullBlock(state);
+		if (cached != null)
+			return cached;
+
+		for (IBlockComponent component : getHookComponents(ComponentHook.IS_FULL_BLOCK))
 		{
 			Boolean full = component.isFullBlock(this, state);
 			if (full != null)
@@ -472,7 +629,11 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public boolean isFullCube(IBlockState state)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		Boolean cached = getStateCache().isFullCube(state);
+		if (cached != null)
+			return cached;
+
+		for (IBlockComponent component : getHookComponents(ComponentHook.IS_FULL_CUBE))
 		{
 			Boolean full = component.isFullCube(this, state);
 			if (full != null)
@@ -485,11 +646,11 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public boolean isOpaqueCube(IBlockState state)
 	{
-		//parent constructor call
-		if (getBlockComponents() == null)
-			return super.isOpaqueCube(state);
+		Boolean cached = getStateCache().isOpaqueCube(state);
+		if (cached != null)
+			return cached;
 
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.IS_OPAQUE_CUBE))
 		{
 			Boolean opaque = component.isOpaqueCube(this, state);
 			if (opaque != null)
@@ -504,7 +665,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@SideOnly(Side.CLIENT)
 	public int getPackedLightmapCoords(IBlockState state, IBlockAccess world, BlockPos pos)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_PACKED_LIGHTMAP_COORDS))
 		{
 			//TODO: use max light value
 			Integer light = component.getPackedLightmapCoords(this, world, pos, state);
@@ -517,7 +678,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public Item getItemDropped(IBlockState state, Random rand, int fortune)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_ITEM_DROPPED))
 		{
 			Item item = component.getItemDropped(this, state, rand, fortune);
 			if (item != null)
@@ -531,7 +692,7 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public int quantityDropped(IBlockState state, int fortune, Random random)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		for (IBlockComponent component : getHookComponents(ComponentHook.QUANTITY_DROPPED))
 		{
 			Integer quantity = component.quantityDropped(this, state, fortune, random);
 			if (quantity != null)
@@ -544,7 +705,11 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public int getLightOpacity(IBlockState state, IBlockAccess world, BlockPos pos)
 	{
-		for (IBlockComponent component : getBlockComponents())
+		int cached = getStateCache().getLightOpacity(state);
+		if (cached != -1)
+			return cached;
+
+		for (IBlockComponent component : getHookComponents(ComponentHook.GET_LIGHT_OPACITY))
 		{
 			Integer quantity = component.getLightOpacity(this, world, pos, state);
 			if (quantity != null)
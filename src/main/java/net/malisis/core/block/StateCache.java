@@ -0,0 +1,314 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.block;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import com.google.common.collect.ImmutableList;
+
+import net.malisis.core.block.component.DirectionalComponent;
+import net.malisis.core.util.AABBUtils;
+import net.minecraft.block.material.MapColor;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+
+/**
+ * Answers of the {@link StateCacheable} hooks of a {@link MalisisBlock}, computed once for each {@link IBlockState} of its
+ * {@link net.minecraft.block.state.BlockStateContainer BlockStateContainer} and stored in arrays indexed by the position of the state in
+ * {@link net.minecraft.block.state.BlockStateContainer#getValidStates() getValidStates()}.<br>
+ * A <code>null</code> (or -1 for light opacity) value means the hook is not cached for the block or that no component answered, in which
+ * case {@link MalisisBlock} computes the value normally.<br>
+ * The bounding boxes are stored already rotated by the {@link DirectionalComponent} direction, and relative to the block position.
+ *
+ * @author Ordinastie
+ */
+public class StateCache
+{
+	/** Cache used when nothing can be cached. */
+	static final StateCache NONE = new StateCache(ImmutableList.of());
+
+	/** Whether the block class overrides {@link MalisisBlock#getBoundingBoxes} or {@link MalisisBlock#getBoundingBox}. */
+	private static final ClassValue<Boolean> overridesBoundingBoxes = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			try
+			{
+				Class<?>[] params = { IBlockAccess.class, BlockPos.class, IBlockState.class, BoundingBoxType.class };
+				return type.getMethod("getBoundingBoxes", params).getDeclaringClass() != MalisisBlock.class
+						|| type.getMethod("getBoundingBox", params).getDeclaringClass() != MalisisBlock.class;
+			}
+			catch (NoSuchMethodException e)
+			{
+				return true;
+			}
+		}
+	};
+
+	/** Index of each state. */
+	private final Map<IBlockState, Integer> ordinals = new IdentityHashMap<>();
+	private Boolean[] fullBlock;
+	private Boolean[] fullCube;
+	private Boolean[] opaqueCube;
+	private int[] lightOpacity;
+	private MapColor[] mapColor;
+	/** Rotated bounding boxes, indexed by {@link BoundingBoxType} then state. */
+	private AxisAlignedBB[][][] boundingBoxes;
+	/** Combined rotated {@link BoundingBoxType#SELECTION} box of each state. */
+	private AxisAlignedBB[] selectedBoundingBox;
+
+	private StateCache(List<IBlockState> states)
+	{
+		for (int i = 0; i < states.size(); i++)
+			ordinals.put(states.get(i), i);
+	}
+
+	private int ordinal(IBlockState state)
+	{
+		Integer ordinal = ordinals.get(state);
+		return ordinal != null ? ordinal : -1;
+	}
+
+	private <T> T get(T[] values, IBlockState state)
+	{
+		int index = values != null ? ordinal(state) : -1;
+		return index != -1 ? values[index] : null;
+	}
+
+	public Boolean isFullBlock(IBlockState state)
+	{
+		return get(fullBlock, state);
+	}
+
+	public Boolean isFullCube(IBlockState state)
+	{
+		return get(fullCube, state);
+	}
+
+	public Boolean isOpaqueCube(IBlockState state)
+	{
+		return get(opaqueCube, state);
+	}
+
+	public int getLightOpacity(IBlockState state)
+	{
+		int index = lightOpacity != null ? ordinal(state) : -1;
+		return index != -1 ? lightOpacity[index] : -1;
+	}
+
+	public MapColor getMapColor(IBlockState state)
+	{
+		return get(mapColor, state);
+	}
+
+	/**
+	 * Gets the cached bounding boxes for the {@link IBlockState}, already rotated.<br>
+	 * The returned array is shared and must not be modified.
+	 *
+	 * @param state the state
+	 * @param type the type
+	 * @return the bounding boxes, or <code>null</code> if not cached
+	 */
+	public AxisAlignedBB[] getBoundingBoxes(IBlockState state, BoundingBoxType type)
+	{
+		return boundingBoxes != null ? get(boundingBoxes[type.ordinal()], state) : null;
+	}
+
+	/**
+	 * Gets the cached selection box for the {@link IBlockState}, already rotated and combined.
+	 *
+	 * @param state the state
+	 * @return the selected bounding box, or <code>null</code> if not cached
+	 */
+	public AxisAlignedBB getSelectedBoundingBox(IBlockState state)
+	{
+		return get(selectedBoundingBox, state);
+	}
+
+	/**
+	 * Checks whether all the components overriding the hook are {@link StateCacheable}.<br>
+	 * Hooks without any component are not cached since the vanilla value is already cheap.
+	 *
+	 * @param components the components
+	 * @return true, if cacheable
+	 */
+	private static boolean isCacheable(IBlockComponent[] components)
+	{
+		if (components.length == 0)
+			return false;
+		for (IBlockComponent component : components)
+			if (!component.getClass().isAnnotationPresent(StateCacheable.class))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Checks whether the bounding boxes of the {@link MalisisBlock} can be cached.<br>
+	 * Unlike the other hooks, the bounding boxes are cached even when no component provides them, since the rotation and the arrays are
+	 * allocated for each call anyway.
+	 *
+	 * @param block the block
+	 * @return true, if cacheable
+	 */
+	private static boolean isBoundingBoxCacheable(MalisisBlock block)
+	{
+		if (overridesBoundingBoxes.get(block.getClass()))
+			return false;
+
+		for (ComponentHook hook : new ComponentHook[] { ComponentHook.GET_BOUNDING_BOX, ComponentHook.GET_BOUNDING_BOXES })
+		{
+			for (IBlockComponent component : block.getHookComponents(hook))
+			{
+				StateCacheable cacheable = component.getClass().getAnnotation(StateCacheable.class);
+				if (cacheable == null || !cacheable.boundingBoxes())
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Builds the {@link StateCache} for the {@link MalisisBlock}.
+	 *
+	 * @param block the block
+	 * @return the state cache
+	 */
+	static StateCache build(MalisisBlock block)
+	{
+		IBlockComponent[] fullBlockHook = block.getHookComponents(ComponentHook.IS_FULL_BLOCK);
+		IBlockComponent[] fullCubeHook = block.getHookComponents(ComponentHook.IS_FULL_CUBE);
+		IBlockComponent[] opaqueCubeHook = block.getHookComponents(ComponentHook.IS_OPAQUE_CUBE);
+		IBlockComponent[] lightOpacityHook = block.getHookComponents(ComponentHook.GET_LIGHT_OPACITY);
+		IBlockComponent[] mapColorHook = block.getHookComponents(ComponentHook.GET_MAP_COLOR);
+
+		boolean cacheBoundingBoxes = isBoundingBoxCacheable(block);
+
+		if (!isCacheable(fullBlockHook) && !isCacheable(fullCubeHook) && !isCacheable(opaqueCubeHook) && !isCacheable(lightOpacityHook)
+				&& !isCacheable(mapColorHook) && !cacheBoundingBoxes)
+			return NONE;
+
+		List<IBlockState> states = block.getBlockState().getValidStates();
+		int count = states.size();
+		StateCache cache = new StateCache(states);
+		if (isCacheable(fullBlockHook))
+			cache.fullBlock = new Boolean[count];
+		if (isCacheable(fullCubeHook))
+			cache.fullCube = new Boolean[count];
+		if (isCacheable(opaqueCubeHook))
+			cache.opaqueCube = new Boolean[count];
+		if (isCacheable(lightOpacityHook))
+			cache.lightOpacity = new int[count];
+		if (isCacheable(mapColorHook))
+			cache.mapColor = new MapColor[count];
+		if (cacheBoundingBoxes)
+		{
+			cache.boundingBoxes = new AxisAlignedBB[BoundingBoxType.values().length][count][];
+			cache.selectedBoundingBox = new AxisAlignedBB[count];
+		}
+
+		for (int i = 0; i < count; i++)
+		{
+			IBlockState state = states.get(i);
+			if (cache.fullBlock != null)
+				cache.fullBlock[i] = firstBoolean(fullBlockHook, c -> c.isFullBlock(block, state));
+			if (cache.fullCube != null)
+				cache.fullCube[i] = firstBoolean(fullCubeHook, c -> c.isFullCube(block, state));
+			if (cache.opaqueCube != null)
+				cache.opaqueCube[i] = firstBoolean(opaqueCubeHook, c -> c.isOpaqueCube(block, state));
+			if (cache.lightOpacity != null)
+			{
+				cache.lightOpacity[i] = -1;
+				for (IBlockComponent component : lightOpacityHook)
+				{
+					Integer opacity = component.getLightOpacity(block, null, null, state);
+					if (opacity != null)
+					{
+						cache.lightOpacity[i] = opacity;
+						break;
+					}
+				}
+			}
+			if (cache.mapColor != null)
+			{
+				for (IBlockComponent component : mapColorHook)
+				{
+					MapColor color = component.getMapColor(block, state, null, null);
+					if (color != null)
+					{
+						cache.mapColor[i] = color;
+						break;
+					}
+				}
+			}
+			if (cache.boundingBoxes != null)
+				cache.buildBoundingBoxes(block, state, i);
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Computes and rotates the bounding boxes of each {@link BoundingBoxType} for the {@link IBlockState}, the same way
+	 * {@link IBoundingBox} does.
+	 *
+	 * @param block the block
+	 * @param state the state
+	 * @param index the index of the state
+	 */
+	private void buildBoundingBoxes(MalisisBlock block, IBlockState state, int index)
+	{
+		for (BoundingBoxType type : BoundingBoxType.values())
+		{
+			AxisAlignedBB[] aabbs = block.getBoundingBoxes(null, null, state, type);
+			boundingBoxes[type.ordinal()][index] = AABBUtils.rotate(aabbs, DirectionalComponent.getDirection(state));
+		}
+
+		AxisAlignedBB[] selection = boundingBoxes[BoundingBoxType.SELECTION.ordinal()][index];
+		if (ArrayUtils.isEmpty(selection) || selection[0] == null)
+			selectedBoundingBox[index] = AABBUtils.empty();
+		else
+			selectedBoundingBox[index] = AABBUtils.combine(selection);
+	}
+
+	private static Boolean firstBoolean(IBlockComponent[] components, Function<IBlockComponent, Boolean> hook)
+	{
+		for (IBlockComponent component : components)
+		{
+			Boolean value = hook.apply(component);
+			if (value != null)
+				return value;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.block;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import net.minecraft.block.state.IBlockState;
+
+/**
+ * Marks an {@link IBlockComponent} whose answers to {@link IBlockComponent#isFullBlock isFullBlock}, {@link IBlockComponent#isFullCube
+ * isFullCube}, {@link IBlockComponent#isOpaqueCube isOpaqueCube}, {@link IBlockComponent#getLightOpacity getLightOpacity} and
+ * {@link IBlockComponent#getMapColor getMapColor} only depend on the {@link IBlockState}.<br>
+ * When all the components of a {@link MalisisBlock} overriding one of those hooks are marked, the answers are computed once for each
+ * state and stored in a {@link StateCache}. The world and position are <code>null</code> when the values are computed.<br>
+ * The rotated bounding boxes of the block are cached the same way, unless {@link #boundingBoxes()} is set to <code>false</code> for a
+ * component whose {@link IBlockComponent#getBoundingBoxes getBoundingBoxes} or {@link IBlockComponent#getBoundingBox getBoundingBox}
+ * depends on the world or the position (connected blocks, item rendering with a <code>null</code> world, etc.).<br>
+ * The annotation is not inherited.
+ *
+ * @author Ordinastie
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StateCacheable
+{
+	/**
+	 * Whether the bounding boxes of the component only depend on the {@link IBlockState} and can be cached.
+	 *
+	 * @return true, if bounding boxes can be cached
+	 */
+	public boolean boundingBoxes() default true;
+}
@@ -29,6 +29,7 @@ import net.malisis.core.block.IComponent;
 import net.malisis.core.block.IComponentProvider;
 import net.malisis.core.block.IRegisterComponent;
 import net.malisis.core.block.MalisisBlock;
+import net.malisis.core.block.StateCacheable;
 import net.malisis.core.item.MalisisItemBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockColored;
@@ -56,6 +57,7 @@ import net.minecraftforge.fml.relauncher.SideOnly;
  *
  * @author Ordinastie
  */
+@StateCacheable
 public class ColorComponent extends SubtypeComponent<EnumDyeColor> implements IRegisterComponent
 {
 	/** Whether the color is handled by the renderer. */
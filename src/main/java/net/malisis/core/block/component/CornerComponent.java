@@ -32,6 +32,7 @@ import net.malisis.core.MalisisCore;
 import net.malisis.core.block.BoundingBoxType;
 import net.malisis.core.block.IBlockComponent;
 import net.malisis.core.block.IComponent;
+import net.malisis.core.block.StateCacheable;
 import net.malisis.core.renderer.component.CornerShapeComponent;
 import net.malisis.core.util.AABBUtils;
 import net.minecraft.block.Block;
@@ -45,6 +46,7 @@ import net.minecraft.world.IBlockAccess;
  * @author Ordinastie
  *
  */
+@StateCacheable
 public class CornerComponent implements IBlockComponent
 {
 	private static final AxisAlignedBB[] BOUNDING_BOXES = AABBUtils.slice(
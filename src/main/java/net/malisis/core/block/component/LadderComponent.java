@@ -31,6 +31,7 @@ import com.google.common.collect.Lists;
 import net.malisis.core.block.BoundingBoxType;
 import net.malisis.core.block.IBlockComponent;
 import net.malisis.core.block.IComponent;
+import net.malisis.core.block.StateCacheable;
 import net.malisis.core.block.component.DirectionalComponent.IPlacement;
 import net.minecraft.block.Block;
 import net.minecraft.block.properties.IProperty;
@@ -45,6 +46,7 @@ import net.minecraft.world.World;
  * @author Ordinastie
  *
  */
+@StateCacheable
 public class LadderComponent implements IBlockComponent
 {
 	private static final AxisAlignedBB BOUNDING_BOX = new AxisAlignedBB(0, 0, 0, 1, 1, 0.125f);
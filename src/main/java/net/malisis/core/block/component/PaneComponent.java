@@ -31,6 +31,7 @@ import com.google.common.collect.Lists;
 import net.malisis.core.block.BoundingBoxType;
 import net.malisis.core.block.IBlockComponent;
 import net.malisis.core.block.ISmartCull;
+import net.malisis.core.block.StateCacheable;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockPane;
 import net.minecraft.block.properties.IProperty;
@@ -47,6 +48,7 @@ import net.minecraft.world.IBlockAccess;
  * @author Ordinastie
  *
  */
+@StateCacheable(boundingBoxes = false)
 public class PaneComponent implements IBlockComponent, ISmartCull
 {
 	public static final PropertyBool NORTH = BlockPane.NORTH;
@@ -31,6 +31,7 @@ import net.malisis.core.block.IBlockComponent;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.block.IMergedBlock;
 import net.malisis.core.block.ISmartCull;
+import net.malisis.core.block.StateCacheable;
 import net.malisis.core.util.AABBUtils;
 import net.minecraft.block.Block;
 import net.minecraft.block.properties.PropertyBool;
@@ -50,6 +51,7 @@ import net.minecraft.world.World;
  * @author Ordinastie
  *
  */
+@StateCacheable
 public class SlabComponent implements IBlockComponent, IMergedBlock, ISmartCull
 {
 	public PropertyBool BOTTOM = PropertyBool.create("bottom");
@@ -164,7 +166,16 @@ public class SlabComponent implements IBlockComponent, IMergedBlock, ISmartCull
 	@Override
 	public Integer getLightOpacity(Block block, IBlockAccess world, BlockPos pos, IBlockState state)
 	{
-		return isDoubleSlab(world, pos) ? 255 : 0;
+		return isDoubleSlab(state) ? 255 : 0;
+	}
+
+	@Override
+	public int getBoundaryMask(IBlockState state)
+	{
+		if (isDoubleSlab(state))
+			return ISmartCull.getBoundaryMask(AABBUtils.identity());
+
+		return ISmartCull.getBoundaryMask(state.getValue(getBottomProperty()) ? BOTTOM_AABB : TOP_AABB);
 	}
 
 	public static boolean isDoubleSlab(IBlockAccess world, BlockPos pos)
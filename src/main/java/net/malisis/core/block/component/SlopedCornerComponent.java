@@ -32,6 +32,7 @@ import net.malisis.core.MalisisCore;
 import net.malisis.core.block.BoundingBoxType;
 import net.malisis.core.block.IBlockComponent;
 import net.malisis.core.block.IComponent;
+import net.malisis.core.block.StateCacheable;
 import net.malisis.core.renderer.component.SlopedCornerShapeComponent;
 import net.malisis.core.util.AABBUtils;
 import net.minecraft.block.Block;
@@ -53,6 +54,7 @@ import net.minecraft.world.World;
  * @author Ordinastie
  *
  */
+@StateCacheable
 public class SlopedCornerComponent implements IBlockComponent
 {
 	private static final float[][] FY = {
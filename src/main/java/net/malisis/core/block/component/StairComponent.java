@@ -33,6 +33,7 @@ import net.malisis.core.block.BoundingBoxType;
 import net.malisis.core.block.IBlockComponent;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.block.ISmartCull;
+import net.malisis.core.block.StateCacheable;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockStairs;
 import net.minecraft.block.properties.PropertyBool;
@@ -49,6 +50,7 @@ import net.minecraft.world.World;
  * @author Ordinastie
  *
  */
+@StateCacheable(boundingBoxes = false)
 public class StairComponent implements IBlockComponent, ISmartCull
 {
 	public static PropertyBool TOP = PropertyBool.create("top");
@@ -35,6 +35,7 @@ import net.malisis.core.block.IComponent;
 import net.malisis.core.block.IMergedBlock;
 import net.malisis.core.block.ISmartCull;
 import net.malisis.core.block.MalisisBlock;
+import net.malisis.core.block.StateCacheable;
 import net.malisis.core.util.AABBUtils;
 import net.malisis.core.util.EnumFacingUtils;
 import net.minecraft.block.Block;
@@ -55,6 +56,7 @@ import net.minecraft.world.World;
  *
  * @author Ordinastie
  */
+@StateCacheable(boundingBoxes = false)
 public class WallComponent implements IBlockComponent, IMergedBlock, ISmartCull
 {
 	public static PropertyBool CORNER = PropertyBool.create("corner");
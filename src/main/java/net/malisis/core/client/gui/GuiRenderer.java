@@ -34,6 +34,7 @@ import net.malisis.core.client.gui.element.GuiShape;
 import net.malisis.core.client.gui.element.SimpleGuiShape;
 import net.malisis.core.renderer.MalisisRenderer;
 import net.malisis.core.renderer.RenderParameters;
+import net.malisis.core.renderer.RenderStats;
 import net.malisis.core.renderer.RenderType;
 import net.malisis.core.renderer.element.Face;
 import net.malisis.core.renderer.element.Shape;
@@ -564,6 +565,7 @@ public class GuiRenderer extends MalisisRenderer<TileEntity>
 			label = formatStr + label;
 
 		Tessellator.getInstance().draw();
+		RenderStats.tessellatorDrawn();
 
 		//RenderHelper.disableStandardItemLighting();
 		RenderHelper.enableGUIStandardItemLighting();
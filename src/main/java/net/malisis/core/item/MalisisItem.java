@@ -31,6 +31,7 @@ import org.apache.commons.lang3.StringUtils;
 import com.google.common.collect.Lists;
 
 import net.malisis.core.MalisisCore;
+import net.malisis.core.block.ComponentIndex;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.block.IComponentProvider;
 import net.malisis.core.block.IRegisterable;
@@ -52,6 +53,8 @@ import net.minecraft.item.Item;
 public class MalisisItem extends Item implements IComponentProvider, IRegisterable<Item>
 {
 	protected final List<IComponent> components = Lists.newArrayList();
+	/** Index of {@link #components} by type, built on first use after a component is added. */
+	private volatile ComponentIndex componentIndex;
 
 	@Override
 	public MalisisItem setName(String name)
@@ -65,12 +68,39 @@ public class MalisisItem extends Item implements IComponentProvider, IRegisterab
 	public void addComponent(IComponent component)
 	{
 		components.add(component);
+		//invalidate so the next lookup sees the new component
+		componentIndex = null;
 	}
 
 	@Override
 	public List<IComponent> getComponents()
 	{
-		return components;
+		return getComponentIndex().getComponents();
+	}
+
+	/**
+	 * Gets the {@link ComponentIndex} for this {@link MalisisItem}, building it if components were added since the last call.
+	 *
+	 * @return the component index
+	 */
+	protected ComponentIndex getComponentIndex()
+	{
+		ComponentIndex index = componentIndex;
+		if (index == null)
+			componentIndex = index = ComponentIndex.of(components);
+		return index;
+	}
+
+	@Override
+	public <T> T getComponent(Class<T> type)
+	{
+		return getComponentIndex().getComponent(type);
+	}
+
+	@Override
+	public <T> List<T> getComponents(Class<T> type)
+	{
+		return getComponentIndex().getComponents(type);
 	}
 
 	public void setTexture(String textureName)
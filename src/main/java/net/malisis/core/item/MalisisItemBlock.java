@@ -76,6 +76,18 @@ public class MalisisItemBlock extends ItemBlock implements IRegisterable<Item>,
 		return block().getComponents();
 	}
 
+	@Override
+	public <T> T getComponent(Class<T> type)
+	{
+		return block().getComponent(type);
+	}
+
+	@Override
+	public <T> List<T> getComponents(Class<T> type)
+	{
+		return block().getComponents(type);
+	}
+
 	@Override
 	public String getTranslationKey(ItemStack itemStack)
 	{
@@ -26,6 +26,7 @@ package net.malisis.core.registry;
 
 import static net.malisis.core.registry.Registries.*;
 
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -50,6 +51,7 @@ import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.BlockModelShapes;
 import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
@@ -86,6 +88,8 @@ public class ClientRegistry
 	List<BlockRendererOverride> blockRendererOverrides = Lists.newArrayList();
 	/** List of {@link ItemRendererOverride}. */
 	List<ItemRendererOverride> itemRendererOverrides = Lists.newArrayList();
+	/** Copies of the {@link MalisisRenderer} used by the chunk builder threads. */
+	private final ThreadLocal<Map<IBlockRenderer, IBlockRenderer>> threadRenderers = ThreadLocal.withInitial(IdentityHashMap::new);
 
 	public ClientRegistry()
 	{
@@ -243,6 +247,7 @@ public class ClientRegistry
 		if (renderer == null)
 			return CallbackResult.noResult();
 
+		renderer = getThreadRenderer(renderer);
 		//convert pos to immutable one
 		return CallbackResult	.<Boolean> builder()
 								.value(renderer.renderBlock(buffer, world, new BlockPos(pos), state))
@@ -250,6 +255,36 @@ public class ClientRegistry
 								.result();
 	}
 
+	/**
+	 * Gets the {@link IBlockRenderer} to use for the current thread.<br>
+	 * The client thread uses the registered renderer, while each chunk builder thread uses its own copy created with
+	 * {@link MalisisRenderer#newThreadInstance()}, so that blocks can be rendered concurrently. If no copy could be created, the
+	 * registered renderer is used.
+	 *
+	 * @param renderer the registered renderer
+	 * @return the renderer for the current thread
+	 */
+	private IBlockRenderer getThreadRenderer(IBlockRenderer renderer)
+	{
+		if (!(renderer instanceof MalisisRenderer) || isClientThread())
+			return renderer;
+
+		return threadRenderers.get().computeIfAbsent(renderer, r -> {
+			MalisisRenderer<?> copy = ((MalisisRenderer<?>) r).newThreadInstance();
+			return copy != null ? copy : r;
+		});
+	}
+
+	/**
+	 * Checks whether the current thread is the client thread.
+	 *
+	 * @return true, if called from the client thread
+	 */
+	boolean isClientThread()
+	{
+		return Minecraft.getMinecraft().isCallingFromMinecraftThread();
+	}
+
 	/**
 	 * Gets the {@link BlockRendererOverride} for the {@link IBlockState} at the {@link BlockPos}.
 	 *
@@ -166,8 +166,13 @@ public class MalisisRegistry
 	}
 
 	/**
-	 * Registers a {@link ISetBlockCallback} with the specified {@link CallbackOption} to be called after a {@link Block} is placed in the
-	 * world.
+	 * Registers a {@link ISetBlockCallback} with the specified {@link CallbackOption} to be called before a {@link Block} is placed in the
+	 * world.<br>
+	 * The callback is called on the thread setting the block, so it must be safe to run concurrently if blocks can be set outside the main
+	 * thread (asynchronous world generation). The callbacks registered by MalisisCore are :
+	 * {@link net.malisis.core.util.chunkblock.ChunkBlockHandler ChunkBlockHandler} storing the chunk blocks coordinates, which is
+	 * thread-safe, and {@link net.malisis.core.util.chunklistener.ChunkListener ChunkListener} calling the block listeners in range, whose
+	 * lookup is thread-safe but which calls the listeners on that same thread.
 	 *
 	 * @param callback the callback
 	 * @param option the option
@@ -178,8 +183,11 @@ public class MalisisRegistry
 	}
 
 	/**
-	 * Registers a {@link ISetBlockCallback} with the specified {@link CallbackOption} to be called before a {@link Block} is placed in the
-	 * world.
+	 * Registers a {@link ISetBlockCallback} with the specified {@link CallbackOption} to be called after a {@link Block} is placed in the
+	 * world.<br>
+	 * Like {@link #onPreSetBlock(ISetBlockCallback, CallbackOption)}, the callback is called on the thread setting the block. The callbacks
+	 * registered by MalisisCore are : {@link net.malisis.core.util.chunklistener.ChunkListener ChunkListener} calling the block listeners in
+	 * range, and {@link net.malisis.core.renderer.AnimatedRenderer AnimatedRenderer} which only acts on the client thread.
 	 *
 	 * @param callback the callback
 	 * @param option the option
@@ -126,7 +126,9 @@ public class Registries
 
 	/**
 	 * Processes {@link ISetBlockCallback ISetBlockCallbacks}.<br>
-	 * Called by ASM from {@link Chunk#setBlockState(BlockPos, IBlockState)}.
+	 * Called by ASM from {@link Chunk#setBlockState(BlockPos, IBlockState)}, on the thread setting the block, which may not be the main
+	 * thread (asynchronous world generation).<br>
+	 * No state is shared with {@link #processPostSetBlock(Chunk, BlockPos, IBlockState, IBlockState)} between the two calls.
 	 *
 	 * @param chunk the chunk
 	 * @param pos the pos
@@ -141,7 +143,8 @@ public class Registries
 
 	/**
 	 * Processes {@link ISetBlockCallback ISetBlockCallbacks}.<br>
-	 * Called by ASM from {@link Chunk#setBlockState(BlockPos, IBlockState)}.
+	 * Called by ASM from {@link Chunk#setBlockState(BlockPos, IBlockState)}, only when the block was actually changed, on the thread
+	 * setting the block, which may not be the main thread (asynchronous world generation).
 	 *
 	 * @param chunk the chunk
 	 * @param pos the pos
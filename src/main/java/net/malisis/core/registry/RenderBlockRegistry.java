@@ -41,6 +41,20 @@ import net.minecraft.world.IBlockAccess;
  */
 public class RenderBlockRegistry extends CallbackRegistry<IRenderBlockCallback, IRenderBlockCallbackPredicate, Boolean>
 {
+	/**
+	 * Processes the {@link IRenderBlockCallback IRenderBlockCallbacks} registered, without allocating.
+	 *
+	 * @param buffer the buffer
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 * @return the callback result
+	 */
+	public CallbackResult<Boolean> processCallbacks(BufferBuilder buffer, IBlockAccess world, BlockPos pos, IBlockState state)
+	{
+		return processCallbacks(IRenderBlockCallbackPredicate::apply, IRenderBlockCallback::callback, buffer, world, pos, state);
+	}
+
 	/**
 	 * Specialized {@link ICallback} called when a block is rendered.
 	 */
@@ -40,6 +40,20 @@ import net.minecraft.world.chunk.Chunk;
  */
 public class SetBlockCallbackRegistry extends CallbackRegistry<ISetBlockCallback, ISetBlockCallbackPredicate, Void>
 {
+	/**
+	 * Processes the {@link ISetBlockCallback ISetBlockCallbacks} registered, without allocating.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return the callback result
+	 */
+	public CallbackResult<Void> processCallbacks(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		return processCallbacks(ISetBlockCallbackPredicate::apply, ISetBlockCallback::call, chunk, pos, oldState, newState);
+	}
+
 	public static interface ISetBlockCallback extends ICallback<Void>
 	{
 		@Override
@@ -118,6 +118,7 @@ public class AnimatedRenderer extends MalisisRenderer<TileEntity>
 		posOffset = new Vec3d(pos.getX(), pos.getY(), pos.getZ());
 
 		renderable.renderAnimated(block, this);
+		RenderStats.animatedRenderableDrawn();
 	}
 
 	/**
@@ -0,0 +1,257 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+
+import net.malisis.core.registry.AutoLoad;
+import net.malisis.core.registry.MalisisRegistry;
+import net.malisis.core.renderer.element.Face;
+import net.malisis.core.renderer.element.Vertex;
+import net.malisis.core.util.callback.CallbackResult;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.TextureMap;
+import net.minecraft.client.resources.IReloadableResourceManager;
+import net.minecraft.util.BlockRenderLayer;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/**
+ * Geometry recorded by a {@link MalisisRenderer} for a {@link IBlockState}, once the shapes are transformed and textured.<br>
+ * Only the data prior to lighting is stored (position, UVs, color, alpha and brightness) along with the {@link RenderParameters} of each
+ * face, so brightness and ambient occlusion can still be computed for the position the geometry is drawn at.<br>
+ * The geometry is cached per renderer instance (shared with its thread instances), {@link IBlockState}, culled sides mask and
+ * {@link BlockRenderLayer}, and the caches are cleared when the textures are stitched or the resources reloaded.<br>
+ * Geometries are published through an {@link AtomicReferenceArray} so chunk builder threads only see them once fully recorded, and
+ * geometries baked before the last clear are discarded.
+ *
+ * @author Ordinastie
+ */
+@AutoLoad
+@SideOnly(Side.CLIENT)
+public class BakedGeometry
+{
+	/** Number of vertexes for a face. Only quads are drawn in BLOCK render type. */
+	private static final int VERTEX_COUNT = 4;
+	/** Number of slots for each {@link IBlockState} : 6-bit mask of culled sides for each render layer (and no layer). */
+	private static final int SLOTS = (BlockRenderLayer.values().length + 1) << 6;
+
+	/** All the caches created, so they can be cleared. Caches are weakly referenced and compared by identity. */
+	private static final Set<Cache> caches = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+	/** Lock for storing and clearing geometries. */
+	private static final Object lock = new Object();
+	/** Generation of the cache, incremented each time it is cleared. */
+	private static volatile int generation = 0;
+
+	static
+	{
+		MalisisRegistry.onTextureStitched(BakedGeometry::onTextureStitched, CallbackOption.of());
+		if (Minecraft.getMinecraft().getResourceManager() instanceof IReloadableResourceManager)
+			((IReloadableResourceManager) Minecraft.getMinecraft().getResourceManager()).registerReloadListener(manager -> clear());
+	}
+
+	/** Generation of the cache when this {@link BakedGeometry} was created. */
+	private final int bakeGeneration = generation;
+	/** Number of faces recorded. */
+	private int faceCount = 0;
+	/** Parameters of each face. */
+	private RenderParameters[] params = new RenderParameters[6];
+	/** X, Y, Z, U and V of each vertex. */
+	private double[] positions = new double[6 * VERTEX_COUNT * 5];
+	/** Color, alpha and brightness of each vertex. */
+	private int[] colors = new int[6 * VERTEX_COUNT * 3];
+
+	/**
+	 * Records a {@link Face} with its {@link RenderParameters}.<br>
+	 * Should be called before the face vertexes are lit.
+	 *
+	 * @param face the face
+	 * @param rp the merged parameters for the face
+	 */
+	void addFace(Face face, RenderParameters rp)
+	{
+		if (faceCount == params.length)
+		{
+			params = Arrays.copyOf(params, faceCount * 2);
+			positions = Arrays.copyOf(positions, positions.length * 2);
+			colors = Arrays.copyOf(colors, colors.length * 2);
+		}
+
+		params[faceCount] = rp.clone();
+		Vertex[] vertexes = face.getVertexes();
+		for (int i = 0; i < VERTEX_COUNT; i++)
+		{
+			Vertex vertex = vertexes[i];
+			int index = (faceCount * VERTEX_COUNT + i) * 5;
+			positions[index] = vertex.getX();
+			positions[index + 1] = vertex.getY();
+			positions[index + 2] = vertex.getZ();
+			positions[index + 3] = vertex.getU();
+			positions[index + 4] = vertex.getV();
+
+			index = (faceCount * VERTEX_COUNT + i) * 3;
+			colors[index] = vertex.getColor();
+			colors[index + 1] = vertex.getAlpha();
+			colors[index + 2] = vertex.getBrightness();
+		}
+		faceCount++;
+	}
+
+	/**
+	 * Gets the number of faces in this {@link BakedGeometry}.
+	 *
+	 * @return the face count
+	 */
+	public int getFaceCount()
+	{
+		return faceCount;
+	}
+
+	/**
+	 * Gets the number of vertexes for each face.
+	 *
+	 * @return the vertex count
+	 */
+	public int getVertexCount()
+	{
+		return VERTEX_COUNT;
+	}
+
+	/**
+	 * Gets the {@link RenderParameters} of the face.
+	 *
+	 * @param face the face index
+	 * @return the parameters
+	 */
+	public RenderParameters getParameters(int face)
+	{
+		return params[face];
+	}
+
+	/**
+	 * Loads the data of a recorded vertex into the {@link Vertex}.
+	 *
+	 * @param face the face index
+	 * @param number the vertex index inside the face
+	 * @param vertex the vertex to load into
+	 */
+	public void loadVertex(int face, int number, Vertex vertex)
+	{
+		int index = (face * VERTEX_COUNT + number) * 5;
+		vertex.set(positions[index], positions[index + 1], positions[index + 2]);
+		vertex.setUV(positions[index + 3], positions[index + 4]);
+
+		index = (face * VERTEX_COUNT + number) * 3;
+		vertex.setColor(colors[index]);
+		vertex.setAlpha(colors[index + 1]);
+		vertex.setBrightness(colors[index + 2]);
+	}
+
+	/**
+	 * Gets the slot index for the culled sides mask and the {@link BlockRenderLayer}.
+	 *
+	 * @param cullMask the cull mask
+	 * @param layer the layer
+	 * @return the index
+	 */
+	static int index(int cullMask, BlockRenderLayer layer)
+	{
+		return (layer != null ? layer.ordinal() + 1 : 0) << 6 | cullMask;
+	}
+
+	/**
+	 * Clears all the cached {@link BakedGeometry}.
+	 */
+	public static void clear()
+	{
+		synchronized (lock)
+		{
+			generation++;
+			caches.forEach(c -> c.geometries.clear());
+		}
+	}
+
+	private static CallbackResult<Void> onTextureStitched(TextureMap map)
+	{
+		clear();
+		return CallbackResult.noResult();
+	}
+
+	/**
+	 * Geometries baked by a {@link MalisisRenderer}.<br>
+	 * Held by the renderer instance, and shared with the instances created for the chunk builder threads.
+	 */
+	static class Cache
+	{
+		/** Geometries for each {@link IBlockState}, indexed by {@link BakedGeometry#index(int, BlockRenderLayer)}. */
+		private final Map<IBlockState, AtomicReferenceArray<BakedGeometry>> geometries = Maps.newConcurrentMap();
+
+		Cache()
+		{
+			caches.add(this);
+		}
+
+		/**
+		 * Gets the cached {@link BakedGeometry} for the {@link IBlockState}.
+		 *
+		 * @param state the state
+		 * @param index the index
+		 * @return the baked geometry, or <code>null</code> if not baked yet
+		 */
+		BakedGeometry get(IBlockState state, int index)
+		{
+			AtomicReferenceArray<BakedGeometry> array = geometries.get(state);
+			return array != null ? array.get(index) : null;
+		}
+
+		/**
+		 * Caches the {@link BakedGeometry} for the {@link IBlockState}.<br>
+		 * The geometry is dropped if the caches were cleared while it was being recorded.
+		 *
+		 * @param state the state
+		 * @param index the index
+		 * @param geometry the geometry
+		 */
+		void put(IBlockState state, int index, BakedGeometry geometry)
+		{
+			synchronized (lock)
+			{
+				if (geometry.bakeGeneration != generation)
+					return;
+				geometries.computeIfAbsent(state, s -> new AtomicReferenceArray<>(SLOTS)).set(index, geometry);
+			}
+		}
+	}
+}
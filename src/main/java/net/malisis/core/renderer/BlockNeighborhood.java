@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockPos.MutableBlockPos;
+import net.minecraft.world.IBlockAccess;
+
+/**
+ * Snapshot of the 3x3x3 blocks around the block being rendered.<br>
+ * Holds the packed light, ambient occlusion value and opacity of each neighbor, so that they are only queried once from the world for
+ * each rendered block, no matter how many faces and vertexes need them. Values are read lazily the first time they are requested.<br>
+ * Offsets outside the 3x3x3 area are still supported but read directly from the world.
+ *
+ * @author Ordinastie
+ */
+public class BlockNeighborhood
+{
+	/** World the snapshot is taken from. */
+	private IBlockAccess world;
+	/** X coordinate of the center block. */
+	private int x;
+	/** Y coordinate of the center block. */
+	private int y;
+	/** Z coordinate of the center block. */
+	private int z;
+	/** Bit mask of the cells already read from the world. */
+	private int filled;
+	/** Packed light of each cell. */
+	private final int[] light = new int[27];
+	/** Ambient occlusion value of each cell. */
+	private final float[] ao = new float[27];
+	/** Whether each cell is an opaque cube. */
+	private final boolean[] opaque = new boolean[27];
+	/** Position used to query the world. */
+	private final MutableBlockPos cursor = new MutableBlockPos();
+
+	/**
+	 * Sets the center of this {@link BlockNeighborhood} and invalidates the previous values.
+	 *
+	 * @param world the world
+	 * @param pos the pos
+	 */
+	public void set(IBlockAccess world, BlockPos pos)
+	{
+		this.world = world;
+		this.x = pos.getX();
+		this.y = pos.getY();
+		this.z = pos.getZ();
+		this.filled = 0;
+	}
+
+	/**
+	 * Clears this {@link BlockNeighborhood}.
+	 */
+	public void clear()
+	{
+		this.world = null;
+		this.filled = 0;
+	}
+
+	/**
+	 * Gets the index of the cell at the offset, or -1 if outside the 3x3x3 area.
+	 *
+	 * @param dx the X offset
+	 * @param dy the Y offset
+	 * @param dz the Z offset
+	 * @return the index
+	 */
+	private int index(int dx, int dy, int dz)
+	{
+		if (dx < -1 || dx > 1 || dy < -1 || dy > 1 || dz < -1 || dz > 1)
+			return -1;
+		return (dx + 1) * 9 + (dy + 1) * 3 + dz + 1;
+	}
+
+	/**
+	 * Reads the {@link IBlockState} at the offset and moves the cursor there.
+	 *
+	 * @param dx the X offset
+	 * @param dy the Y offset
+	 * @param dz the Z offset
+	 * @return the block state
+	 */
+	private IBlockState read(int dx, int dy, int dz)
+	{
+		cursor.setPos(x + dx, y + dy, z + dz);
+		return world.getBlockState(cursor);
+	}
+
+	/**
+	 * Reads the values for the cell from the world if not already done.
+	 *
+	 * @param index the index
+	 * @param dx the X offset
+	 * @param dy the Y offset
+	 * @param dz the Z offset
+	 */
+	private void fill(int index, int dx, int dy, int dz)
+	{
+		if ((filled & (1 << index)) != 0)
+			return;
+
+		IBlockState state = read(dx, dy, dz);
+		light[index] = state.getPackedLightmapCoords(world, cursor);
+		ao[index] = state.getAmbientOcclusionLightValue();
+		opaque[index] = state.isOpaqueCube();
+		filled |= 1 << index;
+	}
+
+	/**
+	 * Gets the packed light (sky + block) at the offset.
+	 *
+	 * @param dx the X offset
+	 * @param dy the Y offset
+	 * @param dz the Z offset
+	 * @return the packed light
+	 */
+	public int getPackedLight(int dx, int dy, int dz)
+	{
+		int index = index(dx, dy, dz);
+		if (index == -1)
+			return read(dx, dy, dz).getPackedLightmapCoords(world, cursor);
+
+		fill(index, dx, dy, dz);
+		return light[index];
+	}
+
+	/**
+	 * Gets the ambient occlusion value at the offset.
+	 *
+	 * @param dx the X offset
+	 * @param dy the Y offset
+	 * @param dz the Z offset
+	 * @return the ambient occlusion value
+	 */
+	public float getAmbientOcclusion(int dx, int dy, int dz)
+	{
+		int index = index(dx, dy, dz);
+		if (index == -1)
+			return read(dx, dy, dz).getAmbientOcclusionLightValue();
+
+		fill(index, dx, dy, dz);
+		return ao[index];
+	}
+
+	/**
+	 * Checks whether the block at the offset is an opaque cube.
+	 *
+	 * @param dx the X offset
+	 * @param dy the Y offset
+	 * @param dz the Z offset
+	 * @return true, if opaque cube
+	 */
+	public boolean isOpaqueCube(int dx, int dy, int dz)
+	{
+		int index = index(dx, dy, dz);
+		if (index == -1)
+			return read(dx, dy, dz).isOpaqueCube();
+
+		fill(index, dx, dy, dz);
+		return opaque[index];
+	}
+
+	/**
+	 * Checks whether this {@link BlockNeighborhood} is set for the world.
+	 *
+	 * @param world the world
+	 * @return true, if the values can be read for that world
+	 */
+	public boolean isFor(IBlockAccess world)
+	{
+		return world != null && this.world == world;
+	}
+
+	/**
+	 * Gets the X offset of the position relative to the center.
+	 *
+	 * @param pos the pos
+	 * @return the offset
+	 */
+	public int offsetX(BlockPos pos)
+	{
+		return pos.getX() - x;
+	}
+
+	/**
+	 * Gets the Y offset of the position relative to the center.
+	 *
+	 * @param pos the pos
+	 * @return the offset
+	 */
+	public int offsetY(BlockPos pos)
+	{
+		return pos.getY() - y;
+	}
+
+	/**
+	 * Gets the Z offset of the position relative to the center.
+	 *
+	 * @param pos the pos
+	 * @return the offset
+	 */
+	public int offsetZ(BlockPos pos)
+	{
+		return pos.getZ() - z;
+	}
+}
@@ -24,6 +24,9 @@
 
 package net.malisis.core.renderer;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Set;
 
@@ -43,6 +46,7 @@ import net.malisis.core.registry.MalisisRegistry;
 import net.malisis.core.renderer.element.Face;
 import net.malisis.core.renderer.element.Shape;
 import net.malisis.core.renderer.element.Vertex;
+import net.malisis.core.renderer.element.VertexWriter;
 import net.malisis.core.renderer.element.shape.Cube;
 import net.malisis.core.renderer.font.FontOptions;
 import net.malisis.core.renderer.font.MalisisFont;
@@ -50,6 +54,7 @@ import net.malisis.core.renderer.icon.Icon;
 import net.malisis.core.renderer.icon.provider.IBlockIconProvider;
 import net.malisis.core.renderer.icon.provider.IIconProvider;
 import net.malisis.core.renderer.icon.provider.IItemIconProvider;
+import net.malisis.core.renderer.icon.provider.IconCache;
 import net.malisis.core.renderer.model.MalisisModel;
 import net.malisis.core.util.AABBUtils;
 import net.malisis.core.util.BlockPosUtils;
@@ -98,7 +103,8 @@ import net.minecraftforge.fml.client.registry.ClientRegistry;
  * @author Ordinastie
  *
  */
-public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRenderer<T> implements IBlockRenderer, IRenderWorldLast
+public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRenderer<T>
+		implements IBlockRenderer, IRenderWorldLast, Cloneable
 {
 	/** Batched buffer reference. */
 	protected static final BufferBuilder batchedBuffer = ((Tessellator) Silenced.get(() -> AsmUtils	.changeFieldAccess(	TileEntityRendererDispatcher.class,
@@ -123,6 +129,8 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	protected BufferBuilder buffer = null;
 	/** Current used vertex format. */
 	protected VertexFormat vertexFormat = malisisVertexFormat;
+	/** Writer for the current vertex format. */
+	private VertexWriter vertexWriter;
 	/** Current world reference (BLOCK/TESR/IRWL). */
 	protected IBlockAccess world;
 	/** Position of the block (BLOCK/TESR). */
@@ -165,6 +173,60 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	/** Whether at least one vertex has been drawn. */
 	protected boolean vertexDrawn = false;
 
+	/** Reusable {@link RenderParameters} holding the merged parameters of the face being drawn. */
+	private RenderParameters faceParams = new RenderParameters();
+	/** Reusable {@link RenderParameters} holding the merged parameters of the face being textured. */
+	private RenderParameters textureParams = new RenderParameters();
+
+	/** Mask of the sides culled by the neighbors when rendering baked geometry, or -1. */
+	private int cullMask = -1;
+	/** Whether this renderer opted in for baked geometry through {@link #enableBakedGeometry()}. */
+	private boolean bakedGeometryEnabled = false;
+	/** Geometries baked by this renderer, shared with its thread instances. */
+	private final BakedGeometry.Cache bakedGeometries = new BakedGeometry.Cache();
+	/** Geometry being recorded for the current block. */
+	private BakedGeometry bakingGeometry = null;
+	/** Whether a vertex was drawn outside {@link #drawFace(Face, RenderParameters)} while recording the geometry. */
+	private boolean bakingIncomplete = false;
+	/** Whether the vertexes of a face are being drawn by {@link #drawFace(Face, RenderParameters)}. */
+	private boolean drawingFace = false;
+	/** Reusable {@link Vertex} used to draw baked geometry. */
+	private Vertex bakedVertex = new Vertex(0, 0, 0);
+	/** Light, AO and opacity of the blocks around the block rendered (BLOCK/TESR). */
+	protected BlockNeighborhood neighborhood = new BlockNeighborhood();
+	/** Whether this renderer class overrides the world based brightness or ambient occlusion lookups. */
+	private final boolean worldLighting = overridesWorldLighting.get(getClass());
+	/** {@link SmartCullCache} boundary mask of the block rendered, or {@link Integer#MIN_VALUE} if not resolved yet. */
+	private int boundaryMask = Integer.MIN_VALUE;
+	/** Sides of the block rendered already checked against their neighbor. */
+	private int sidesChecked = 0;
+	/** Sides of the block rendered hidden by their neighbor, only valid for {@link #sidesChecked}. */
+	private int sidesCulled = 0;
+	/** {@link IBlockState} the cull results are computed for. */
+	private IBlockState cullState = null;
+
+	/**
+	 * Whether the renderer class overrides {@link #getBlockAmbientOcclusion(IBlockAccess, BlockPos)} or
+	 * {@link #getMixedBrightnessForBlock(IBlockAccess, BlockPos)}, in which case those are used instead of the {@link #neighborhood}.
+	 */
+	private static final ClassValue<Boolean> overridesWorldLighting = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			for (Class<?> c = type; c != null && c != MalisisRenderer.class; c = c.getSuperclass())
+			{
+				for (Method method : c.getDeclaredMethods())
+				{
+					if ((method.getName().equals("getBlockAmbientOcclusion") || method.getName().equals("getMixedBrightnessForBlock"))
+							&& Arrays.equals(method.getParameterTypes(), new Class<?>[] { IBlockAccess.class, BlockPos.class }))
+						return true;
+				}
+			}
+			return false;
+		}
+	};
+
 	/**
 	 * Instantiates a new {@link MalisisRenderer}.
 	 */
@@ -225,6 +287,11 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		this.destroyBlockProgress = null;
 		this.tranformType = null;
 		this.posOffset = null;
+		this.cullMask = -1;
+		this.bakingGeometry = null;
+		this.drawingFace = false;
+		this.neighborhood.clear();
+		resetCullCache();
 	}
 
 	/**
@@ -243,6 +310,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		this.block = block;
 		this.blockState = blockState;
 		this.tileEntity = (T) world.getTileEntity(pos);
+		updateNeighborhood();
 	}
 
 	public void set(IBlockAccess world, BlockPos pos)
@@ -250,6 +318,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		this.world = world;
 		this.pos = pos;
 		set(world.getBlockState(pos));
+		updateNeighborhood();
 	}
 
 	/**
@@ -260,6 +329,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	public void set(IBlockAccess world)
 	{
 		this.world = world;
+		updateNeighborhood();
 	}
 
 	/**
@@ -271,6 +341,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	{
 		this.block = block;
 		this.blockState = block.getDefaultState();
+		resetCullCache();
 	}
 
 	/**
@@ -282,6 +353,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	{
 		this.block = blockState.getBlock();
 		this.blockState = blockState;
+		resetCullCache();
 	}
 
 	/**
@@ -292,6 +364,30 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	public void set(BlockPos pos)
 	{
 		this.pos = new BlockPos(pos);
+		updateNeighborhood();
+	}
+
+	/**
+	 * Centers the {@link #neighborhood} on the current {@link #world} and {@link #pos}.
+	 */
+	private void updateNeighborhood()
+	{
+		resetCullCache();
+		if (world != null && pos != null)
+			neighborhood.set(world, pos);
+		else
+			neighborhood.clear();
+	}
+
+	/**
+	 * Discards the cull results computed for the block rendered.
+	 */
+	private void resetCullCache()
+	{
+		boundaryMask = Integer.MIN_VALUE;
+		sidesChecked = 0;
+		sidesCulled = 0;
+		cullState = blockState;
 	}
 
 	/**
@@ -359,16 +455,86 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 	// #end
 
+	/**
+	 * Creates a new instance of this {@link MalisisRenderer} to be used by a chunk builder thread.<br>
+	 * Each chunk builder thread renders with its own instance, so that the per-call state ({@link #world}, {@link #pos},
+	 * {@link #blockState}, {@link #buffer}, etc.) is never shared between threads.<br>
+	 * By default, the copy is a shallow clone of this instance : no constructor is called again, and the configuration of this instance
+	 * is kept. The {@link Shape} and {@link RenderParameters} fields are then copied so that each thread transforms its own elements.<br>
+	 * Renderers keeping other mutable state should override this method to return a fully configured instance that does not register
+	 * itself anywhere, or <code>null</code>, in which case this instance is used and calls are serialized.
+	 *
+	 * @return the renderer instance for the calling thread, or <code>null</code> to use this instance
+	 */
+	@SuppressWarnings("unchecked")
+	public MalisisRenderer<T> newThreadInstance()
+	{
+		try
+		{
+			MalisisRenderer<T> copy = (MalisisRenderer<T>) clone();
+			copy.faceParams = new RenderParameters();
+			copy.textureParams = new RenderParameters();
+			copy.bakedVertex = new Vertex(0, 0, 0);
+			copy.neighborhood = new BlockNeighborhood();
+			copy.reset();
+			copy.copyElements();
+			return copy;
+		}
+		catch (CloneNotSupportedException | ReflectiveOperationException | RuntimeException e)
+		{
+			MalisisCore.log.warn("[MalisisRenderer] Could not create a thread instance for {}, rendering will be synchronized.",
+									getClass().getSimpleName(),
+									e);
+			return null;
+		}
+	}
+
+	/**
+	 * Replaces the {@link Shape} and {@link RenderParameters} fields declared by the subclasses with copies.
+	 *
+	 * @throws IllegalAccessException if a field could not be replaced
+	 */
+	private void copyElements() throws IllegalAccessException
+	{
+		for (Class<?> c = getClass(); c != MalisisRenderer.class; c = c.getSuperclass())
+		{
+			for (Field field : c.getDeclaredFields())
+			{
+				if (Modifier.isStatic(field.getModifiers()))
+					continue;
+
+				field.setAccessible(true);
+				Object value = field.get(this);
+				if (value instanceof Shape)
+					field.set(this, ((Shape) value).duplicate());
+				else if (value instanceof RenderParameters)
+					field.set(this, new RenderParameters((RenderParameters) value));
+			}
+		}
+	}
+
 	//#region IBlockRenderer
+	/**
+	 * Renders the block.<br>
+	 * Chunk builder threads are given their own instance through {@link #newThreadInstance()} so this lock is only contended when that
+	 * instance could not be created.
+	 */
 	@Override
 	public synchronized boolean renderBlock(BufferBuilder wr, IBlockAccess world, BlockPos pos, IBlockState state)
 	{
+		long start = RenderStats.start();
 		this.buffer = wr;
 		set(world, state.getBlock(), pos, state);
 		prepare(RenderType.BLOCK);
 		if (checkBlock())
-			render();
+		{
+			if (useBakedGeometry())
+				renderBaked();
+			else
+				render();
+		}
 		clean();
+		RenderStats.blockRendered(state.getBlock().getClass(), start);
 
 		return vertexDrawn;
 	}
@@ -438,7 +604,10 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		set(te, partialTick);
 		prepare(RenderType.TILE_ENTITY, x, y, z);
 		if (checkBlock())
+		{
 			render();
+			RenderStats.tesrDrawn();
+		}
 		//TODO
 		//		if (getBlockDamage)
 		//		{
@@ -514,6 +683,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		_initialize();
 		vertexDrawn = false;
 		this.renderType = renderType;
+		updateNeighborhood();
 
 		if (renderType == RenderType.BLOCK)
 		{
@@ -702,7 +872,10 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	public void draw()
 	{
 		if (canDraw() && isDrawing())
+		{
 			Tessellator.getInstance().draw();
+			RenderStats.tessellatorDrawn();
+		}
 	}
 
 	private boolean canDraw()
@@ -809,6 +982,135 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	protected void initialize()
 	{}
 
+	/**
+	 * Enables baked geometry for this {@link MalisisRenderer} when rendering blocks in the world.<br>
+	 * The geometry produced by {@link #render()} is then recorded once for each {@link IBlockState}, culled sides and
+	 * {@link BlockRenderLayer}, and reused for the subsequent blocks, only computing the brightness and ambient occlusion again.<br>
+	 * Only the faces drawn through {@link #drawFace(Face, RenderParameters)} (and so {@link #drawShape(Shape)}) are recorded. Only enable
+	 * it if {@link #render()} draws solely through those methods, and depends solely on the {@link IBlockState} (no world or tile entity
+	 * data). Geometry where a vertex was drawn another way is not cached, and baked geometry is disabled for the renderer.<br>
+	 * Should be called from the constructor or {@link #initialize()}.
+	 */
+	protected void enableBakedGeometry()
+	{
+		bakedGeometryEnabled = true;
+	}
+
+	/**
+	 * Whether this {@link MalisisRenderer} uses baked geometry when rendering blocks in the world.
+	 *
+	 * @return true, if baked geometry was enabled with {@link #enableBakedGeometry()}
+	 * @see #enableBakedGeometry()
+	 */
+	protected boolean useBakedGeometry()
+	{
+		return bakedGeometryEnabled;
+	}
+
+	/**
+	 * Renders the block using the {@link BakedGeometry} for the current {@link IBlockState}.<br>
+	 * If the geometry is not baked yet, {@link #render()} is called and its output recorded.
+	 */
+	protected void renderBaked()
+	{
+		cullMask = getCullMask();
+		int index = BakedGeometry.index(cullMask, getRenderLayer());
+		BakedGeometry geometry = bakedGeometries.get(blockState, index);
+		if (geometry != null)
+		{
+			drawBaked(geometry);
+			return;
+		}
+
+		bakingGeometry = new BakedGeometry();
+		bakingIncomplete = false;
+		render();
+		if (!bakingIncomplete)
+			bakedGeometries.put(blockState, index, bakingGeometry);
+		else
+		{
+			MalisisCore.log.warn(	"[MalisisRenderer] {} draws vertexes outside of drawFace, baked geometry disabled.",
+									getClass().getSimpleName());
+			bakedGeometryEnabled = false;
+		}
+		bakingGeometry = null;
+	}
+
+	/**
+	 * Draws a {@link BakedGeometry}. Only the brightness and colors are computed.
+	 *
+	 * @param geometry the geometry
+	 */
+	protected void drawBaked(BakedGeometry geometry)
+	{
+		for (int f = 0; f < geometry.getFaceCount(); f++)
+		{
+			RenderParameters params = geometry.getParameters(f);
+			baseBrightness = getBaseBrightness(params);
+			for (int i = 0; i < geometry.getVertexCount(); i++)
+			{
+				geometry.loadVertex(f, i, bakedVertex);
+				drawVertex(bakedVertex, i, params);
+			}
+		}
+	}
+
+	/**
+	 * Gets the mask of the sides of the current block hidden by their neighbor.<br>
+	 * Bit <code>1 << side.getIndex()</code> is set if the side is culled.
+	 *
+	 * @return the cull mask
+	 */
+	protected int getCullMask()
+	{
+		int mask = 0;
+		for (EnumFacing side : EnumFacing.VALUES)
+		{
+			if (isSideCulled(side))
+				mask |= 1 << side.getIndex();
+		}
+		return mask;
+	}
+
+	/**
+	 * Checks whether the side of the current block is hidden by its neighbor.<br>
+	 * The neighbor is only queried once per side for each block rendered.
+	 *
+	 * @param side the side
+	 * @return true, if culled
+	 */
+	protected boolean isSideCulled(EnumFacing side)
+	{
+		//the state may have been changed directly through the field
+		if (cullState != blockState)
+			resetCullCache();
+		int bit = 1 << side.getIndex();
+		if ((sidesChecked & bit) == 0)
+		{
+			boolean culled = getBoundaryMask() != SmartCullCache.NO_SMART_CULL
+					? neighborhood.isOpaqueCube(side.getXOffset(), side.getYOffset(), side.getZOffset())
+					: !blockState.shouldSideBeRendered(world, pos, side);
+			if (culled)
+				sidesCulled |= bit;
+			sidesChecked |= bit;
+		}
+		return (sidesCulled & bit) != 0;
+	}
+
+	/**
+	 * Gets the {@link SmartCullCache} boundary mask of the current block.
+	 *
+	 * @return the boundary mask
+	 */
+	private int getBoundaryMask()
+	{
+		if (cullState != blockState)
+			resetCullCache();
+		if (boundaryMask == Integer.MIN_VALUE)
+			boundaryMask = SmartCullCache.getBoundaryMask(blockState);
+		return boundaryMask;
+	}
+
 	/**
 	 * Renders the blocks using the default Minecraft rendering system.
 	 */
@@ -892,25 +1194,33 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		if (params == null)
 			params = face.getParameters();
 
-		if (params.deductParameters.get())
+		if (params.getBoolean(params.deductParameters))
 			face.deductParameters();
 
-		params = RenderParameters.merge(params, face.getParameters());
+		params = RenderParameters.merge(params, face.getParameters(), faceParams);
 
 		if (!shouldRenderFace(face, params))
+		{
+			RenderStats.faceCulled();
 			return;
+		}
 
-		if (params.applyTexture.get())
+		if (params.getBoolean(params.applyTexture))
 			applyTexture(face, params);
 
 		baseBrightness = getBaseBrightness(params);
 
+		if (bakingGeometry != null)
+			bakingGeometry.addFace(face, params);
+
 		//debug
 		//		if (vertexCount != 4)
 		//			params.colorMultiplier.set(0xFF0000);
 
+		drawingFace = true;
 		for (int i = 0; i < face.getVertexes().length; i++)
 			drawVertex(face.getVertexes()[i], i, params);
+		drawingFace = false;
 
 		//use normals if available
 		//		if ((renderType == RenderType.ITEM || params.useNormals.get()) && params.direction.get() != null)
@@ -934,6 +1244,9 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		if (vertex == null)
 			vertex = new Vertex(0, 0, 0);
 
+		if (bakingGeometry != null && !drawingFace)
+			bakingIncomplete = true;
+
 		// brightness
 		int brightness = calcVertexBrightness(vertex, number, params);
 		//brightness = 255;
@@ -944,15 +1257,21 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		vertex.setColor(color);
 
 		// alpha
-		if (params != null && !params.usePerVertexAlpha.get())
-			vertex.setAlpha(params.alpha.get());
+		if (params != null && !params.getBoolean(params.usePerVertexAlpha))
+			vertex.setAlpha(params.getInt(params.alpha));
 
 		if (params != null && renderType == RenderType.ITEM)
 			vertex.setNormal(params.direction.get());
 
-		buffer.addVertexData(vertex.getVertexData(vertexFormat, posOffset));
+		if (vertexWriter == null || vertexWriter.getVertexFormat() != vertexFormat)
+			vertexWriter = VertexWriter.of(vertexFormat);
+		if (posOffset != null)
+			vertexWriter.write(buffer, vertex, posOffset.x, posOffset.y, posOffset.z);
+		else
+			vertexWriter.write(buffer, vertex, 0, 0, 0);
 
 		vertexDrawn = true;
+		RenderStats.vertexDrawn();
 	}
 
 	/**
@@ -985,22 +1304,26 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	{
 		if (renderType != RenderType.BLOCK || world == null || block == null)
 			return true;
-		if (params != null && params.renderAllFaces.get())
+		if (params != null && params.getBoolean(params.renderAllFaces))
 			return true;
 
 		RenderParameters p = face.getParameters();
-		if (p.direction.get() == null || p.renderAllFaces.get())
+		if (p.direction.get() == null || p.getBoolean(p.renderAllFaces))
 			return true;
 
-		if (ISmartCull.shouldSmartCull(block))
+		if (getBoundaryMask() != SmartCullCache.NO_SMART_CULL)
 			return smartCull(face, params);
 
-		boolean b = blockState.shouldSideBeRendered(world, pos, p.direction.get());
-		return b;
+		if (cullMask != -1)
+			return (cullMask & (1 << p.direction.get().getIndex())) == 0;
+
+		return !isSideCulled(p.direction.get());
 	}
 
 	/**
-	 * Culls a face based on the actual render bounds used and not block bounding box.
+	 * Culls a face based on the actual render bounds used and not block bounding box.<br>
+	 * When the block bounds are used and the block provides a {@link ISmartCull#getBoundaryMask(IBlockState) boundary mask}, the bounds
+	 * are not computed.
 	 *
 	 * @param face the face
 	 * @param params the params
@@ -1009,22 +1332,18 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	protected boolean smartCull(Face face, RenderParameters params)
 	{
 		EnumFacing side = params.direction.get();
-		AxisAlignedBB bounds = getRenderBounds(params);
+		int bit = 1 << side.getIndex();
+		int mask = getBoundaryMask();
+		if (mask < 0 || !params.getBoolean(params.useBlockBounds))
+			mask = ISmartCull.getBoundaryMask(getRenderBounds(params));
 
-		if (side == EnumFacing.DOWN && bounds.minY > 0)
-			return true;
-		if (side == EnumFacing.UP && bounds.maxY < 1)
-			return true;
-		if (side == EnumFacing.NORTH && bounds.minZ > 0)
-			return true;
-		if (side == EnumFacing.SOUTH && bounds.maxZ < 1)
-			return true;
-		if (side == EnumFacing.WEST && bounds.minX > 0)
-			return true;
-		if (side == EnumFacing.EAST && bounds.maxX < 1)
+		if ((mask & bit) == 0)
 			return true;
 
-		return !world.getBlockState(pos.offset(side)).isOpaqueCube();
+		if (cullMask != -1)
+			return (cullMask & bit) == 0;
+
+		return !isSideCulled(side);
 	}
 
 	/**
@@ -1052,7 +1371,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		//shape.applyMatrix();
 		for (Face f : shape.getFaces())
 		{
-			RenderParameters rp = RenderParameters.merge(params, f.getParameters());
+			RenderParameters rp = RenderParameters.merge(params, f.getParameters(), textureParams);
 			applyTexture(f, rp);
 		}
 	}
@@ -1076,11 +1395,11 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 				icon.setRotation(0);
 		}
 
-		boolean flipU = params.flipU.get();
+		boolean flipU = params.getBoolean(params.flipU);
 		//if parameters are deducted, do not flip because the new direction can now NORTH from the last frame
-		if (!params.deductParameters.get() && (params.direction.get() == EnumFacing.NORTH || params.direction.get() == EnumFacing.EAST))
+		if (!params.getBoolean(params.deductParameters) && (params.direction.get() == EnumFacing.NORTH || params.direction.get() == EnumFacing.EAST))
 			flipU = !flipU;
-		face.setTexture(icon, flipU, params.flipV.get(), params.interpolateUV.get());
+		face.setTexture(icon, flipU, params.getBoolean(params.flipV), params.getBoolean(params.interpolateUV));
 	}
 
 	/**
@@ -1109,7 +1428,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 			IBlockIconProvider iblockp = (IBlockIconProvider) iconProvider;
 			if (renderType == RenderType.BLOCK || renderType == RenderType.TILE_ENTITY)
-				return iblockp.getIcon(world, pos, blockState, side);
+				return IconCache.getIcon(iblockp, world, pos, blockState, side);
 			else if (renderType == RenderType.ITEM)
 				return iblockp.getIcon(itemStack, side);
 		}
@@ -1135,7 +1454,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 	protected boolean shouldRotateIcon(RenderParameters params)
 	{
-		return blockState != null && params.rotateIcon.get();
+		return blockState != null && params.getBoolean(params.rotateIcon);
 	}
 
 	/**
@@ -1154,10 +1473,10 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		if (params == null)
 			return color;
 
-		if (params.usePerVertexColor.get()) //vertex should use their own colors
+		if (params.getBoolean(params.usePerVertexColor)) //vertex should use their own colors
 			color = vertex.getColor();
-		else if (params.colorMultiplier.get() != null) //global color multiplier is set
-			color = params.colorMultiplier.get();
+		else if (params.hasValue(params.colorMultiplier)) //global color multiplier is set
+			color = params.getInt(params.colorMultiplier);
 		else if (block != null) //use block color multiplier
 			color = Minecraft.getMinecraft().getBlockColors().colorMultiplier(blockState, world, pos, 0);
 		//color = world != null ? block.colorMultiplier(world, pos, 0) : block.getRenderColor(blockState);
@@ -1170,19 +1489,20 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		int[][] aoMatrix = (int[][]) params.aoMatrix.get(number);
 		float factor = 1;
 		//calculate AO
-		if (params.calculateAOColor.get() && aoMatrix != null && Minecraft.isAmbientOcclusionEnabled()
+		if (params.getBoolean(params.calculateAOColor) && aoMatrix != null && Minecraft.isAmbientOcclusionEnabled()
 				&& blockState.getLightValue(world, pos) == 0 && params.direction.get() != null)
 		{
-			factor = getBlockAmbientOcclusion(world, pos.offset(params.direction.get()));
+			EnumFacing dir = params.direction.get();
+			factor = getBlockAmbientOcclusion(dir.getXOffset(), dir.getYOffset(), dir.getZOffset());
 
 			for (int i = 0; i < aoMatrix.length; i++)
-				factor += getBlockAmbientOcclusion(world, pos.add(aoMatrix[i][0], aoMatrix[i][1], aoMatrix[i][2]));
+				factor += getBlockAmbientOcclusion(aoMatrix[i][0], aoMatrix[i][1], aoMatrix[i][2]);
 
 			factor /= (aoMatrix.length + 1);
 		}
 
 		//apply face dependent shading
-		factor *= params.colorFactor.get();
+		factor *= params.getFloat(params.colorFactor);
 
 		int r = (int) ((color >> 16 & 255) * factor);
 		int g = (int) ((color >> 8 & 255) * factor);
@@ -1204,8 +1524,8 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	@SuppressWarnings("deprecation")
 	protected int getBaseBrightness(RenderParameters params)
 	{
-		if (!params.useEnvironmentBrightness.get())
-			return params.brightness.get();
+		if (!params.getBoolean(params.useEnvironmentBrightness))
+			return params.getInt(params.brightness);
 
 		if (block != null)
 		{
@@ -1220,7 +1540,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 		//not in world
 		if (world == null || block == null)
-			return params.brightness.get();
+			return params.getInt(params.brightness);
 
 		//no direction, we can only use current block brightness
 		if (params.direction.get() == null && block != null)
@@ -1228,27 +1548,18 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 		AxisAlignedBB bounds = getRenderBounds(params);
 		EnumFacing dir = params.direction.get();
-		BlockPos p = pos;
 
 		//use the brightness of the block next to it
 		//TODO: check if face is actually at bounds
 		if (bounds != null)
 		{
-			if (dir == EnumFacing.WEST && bounds.minX <= 0)
-				p = p.west();
-			else if (dir == EnumFacing.EAST && bounds.maxX >= 1)
-				p = p.east();
-			else if (dir == EnumFacing.NORTH && bounds.minZ <= 0)
-				p = p.north();
-			else if (dir == EnumFacing.SOUTH && bounds.maxZ >= 1)
-				p = p.south();
-			else if (dir == EnumFacing.DOWN && bounds.minY <= 0)
-				p = p.down();
-			else if (dir == EnumFacing.UP && bounds.maxY >= 1)
-				p = p.up();
+			if ((dir == EnumFacing.WEST && bounds.minX <= 0) || (dir == EnumFacing.EAST && bounds.maxX >= 1)
+					|| (dir == EnumFacing.NORTH && bounds.minZ <= 0) || (dir == EnumFacing.SOUTH && bounds.maxZ >= 1)
+					|| (dir == EnumFacing.DOWN && bounds.minY <= 0) || (dir == EnumFacing.UP && bounds.maxY >= 1))
+				return getMixedBrightnessForBlock(dir.getXOffset(), dir.getYOffset(), dir.getZOffset());
 		}
 
-		return getMixedBrightnessForBlock(world, p);
+		return getMixedBrightnessForBlock(0, 0, 0);
 	}
 
 	/**
@@ -1264,24 +1575,23 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	{
 		if (params == null)
 			return baseBrightness;
-		if (params.usePerVertexBrightness.get())
+		if (params.getBoolean(params.usePerVertexBrightness))
 			return vertex.getBrightness();
 		if (drawMode == GL11.GL_LINE) //no AO for lines
 			return baseBrightness;
 		if (renderType != RenderType.BLOCK && renderType != RenderType.TILE_ENTITY) //not in world
 			return baseBrightness;
 		int[][] aoMatrix = (int[][]) params.aoMatrix.get(number);
-		if (!params.calculateBrightness.get() || aoMatrix == null) //no data
+		if (!params.getBoolean(params.calculateBrightness) || aoMatrix == null) //no data
 			return baseBrightness;
 		if (!Minecraft.isAmbientOcclusionEnabled() || blockState.getLightValue(world, pos) != 0) // emit light
 			return baseBrightness;
 
-		int[] b = new int[Math.max(3, aoMatrix.length)];
-
-		for (int i = 0; i < b.length; i++)
-			b[i] += getMixedBrightnessForBlock(world, pos.add(aoMatrix[i][0], aoMatrix[i][1], aoMatrix[i][2]));
+		int b1 = aoMatrix.length > 0 ? getMixedBrightnessForBlock(aoMatrix[0][0], aoMatrix[0][1], aoMatrix[0][2]) : 0;
+		int b2 = aoMatrix.length > 1 ? getMixedBrightnessForBlock(aoMatrix[1][0], aoMatrix[1][1], aoMatrix[1][2]) : 0;
+		int b3 = aoMatrix.length > 2 ? getMixedBrightnessForBlock(aoMatrix[2][0], aoMatrix[2][1], aoMatrix[2][2]) : 0;
 
-		int brightness = getAoBrightness(b[0], b[1], b[2], baseBrightness);
+		int brightness = getAoBrightness(b1, b2, b3, baseBrightness);
 
 		return brightness;
 	}
@@ -1318,9 +1628,28 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	 */
 	protected float getBlockAmbientOcclusion(IBlockAccess world, BlockPos pos)
 	{
+		if (neighborhood.isFor(world))
+			return neighborhood.getAmbientOcclusion(neighborhood.offsetX(pos), neighborhood.offsetY(pos), neighborhood.offsetZ(pos));
 		return world.getBlockState(pos).getAmbientOcclusionLightValue();
 	}
 
+	/**
+	 * Gets the block ambient occlusion value for the block at the offset from the current block.<br>
+	 * The value is read from the {@link #neighborhood} snapshot, unless this renderer overrides
+	 * {@link #getBlockAmbientOcclusion(IBlockAccess, BlockPos)}.
+	 *
+	 * @param x the X offset
+	 * @param y the Y offset
+	 * @param z the Z offset
+	 * @return the block ambient occlusion
+	 */
+	protected float getBlockAmbientOcclusion(int x, int y, int z)
+	{
+		if (worldLighting)
+			return getBlockAmbientOcclusion(world, pos.add(x, y, z));
+		return neighborhood.getAmbientOcclusion(x, y, z);
+	}
+
 	/**
 	 * Gets the mix brightness for a block (sky + block source).
 	 *
@@ -1331,9 +1660,28 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	protected int getMixedBrightnessForBlock(IBlockAccess world, BlockPos pos)
 	{
 		// return world.getLightBrightnessForSkyBlocks(x, y, z, 0);
+		if (neighborhood.isFor(world))
+			return neighborhood.getPackedLight(neighborhood.offsetX(pos), neighborhood.offsetY(pos), neighborhood.offsetZ(pos));
 		return world.getBlockState(pos).getPackedLightmapCoords(world, pos);
 	}
 
+	/**
+	 * Gets the mix brightness for the block at the offset from the current block.<br>
+	 * The value is read from the {@link #neighborhood} snapshot, unless this renderer overrides
+	 * {@link #getMixedBrightnessForBlock(IBlockAccess, BlockPos)}.
+	 *
+	 * @param x the X offset
+	 * @param y the Y offset
+	 * @param z the Z offset
+	 * @return the mixed brightness for block
+	 */
+	protected int getMixedBrightnessForBlock(int x, int y, int z)
+	{
+		if (worldLighting)
+			return getMixedBrightnessForBlock(world, pos.add(x, y, z));
+		return neighborhood.getPackedLight(x, y, z);
+	}
+
 	/**
 	 * Gets the rendering bounds. If <i>params.useBlockBounds</i> = false, <i>params.renderBounds</i> is used instead of the actual block
 	 * bounds.
@@ -1343,7 +1691,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	 */
 	protected AxisAlignedBB getRenderBounds(RenderParameters params)
 	{
-		if (params != null && !params.useBlockBounds.get())
+		if (params != null && !params.getBoolean(params.useBlockBounds))
 			return params.renderBounds.get();
 
 		if (block instanceof IBoundingBox)
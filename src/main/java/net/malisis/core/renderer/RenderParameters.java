@@ -24,7 +24,8 @@
 
 package net.malisis.core.renderer;
 
-import java.util.LinkedList;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.List;
 
 import net.malisis.core.block.component.DirectionalComponent;
@@ -35,73 +36,111 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.AxisAlignedBB;
 
 /**
+ * Holds the parameters used for the rendering.<br>
+ * The values are stored in flat arrays, one slot per parameter, along with a mask of the parameters explicitly set. The public
+ * {@link Parameter} fields are views over those slots. Booleans, ints and floats are stored as primitives and can be read without boxing
+ * through {@link #getBoolean(Parameter)}, {@link #getInt(Parameter)} and {@link #getFloat(Parameter)}.
+ *
  * @author Ordinastie
  *
  */
 public class RenderParameters implements ITransformable.Color, ITransformable.Alpha, ITransformable.Brightness, Cloneable
 {
-	/** List of parameters inside this {@link RenderParameters}. */
+	/** Number of parameters inside a {@link RenderParameters}. */
+	private static final int COUNT = 28;
+	/** Default primitive values for each slot (identical for every instance). */
+	private static final int[] defaultValues = new int[COUNT];
+	/** Default reference values for each slot (identical for every instance). */
+	private static final Object[] defaultObjects = new Object[COUNT];
+	/** Mask of the slots whose default value is <code>null</code>. */
+	private static long nullDefaults = 0;
+	/** Whether the default values were already stored. */
+	private static boolean defaultsInitialized = false;
+
+	static
+	{
+		//the defaults are declared by the parameters, store them once from a first instance
+		new RenderParameters();
+		defaultsInitialized = true;
+	}
+
+	/** Mask of the parameters explicitly set. */
+	private long setMask = 0;
+	/** Primitive values of the parameters (booleans, ints and float bits). */
+	private final int[] values = new int[COUNT];
+	/** Reference values of the parameters. */
+	private final Object[] objects = new Object[COUNT];
+	/** Index for the next declared parameter. */
+	private int nextIndex = 0;
+
+	/**
+	 * List of parameters inside this {@link RenderParameters}.<br>
+	 * Parameters added by subclasses after the declared ones are reset and merged along with them.
+	 *
+	 * @deprecated the declared parameters are stored in slots, use the fields directly
+	 */
+	@Deprecated
 	protected List<Parameter<?>> listParams;
 
 	/** Defines whether to render all faces even if shoudSideBeRendered is false */
-	public Parameter<Boolean> renderAllFaces = new Parameter<>(false);
+	public Parameter<Boolean> renderAllFaces = new BooleanParameter(false);
 
 	/** Defines whether to use the block bounding box instead of renderBounds (Block Level) */
-	public Parameter<Boolean> useBlockBounds = new Parameter<>(true);
+	public Parameter<Boolean> useBlockBounds = new BooleanParameter(true);
 
 	/** Defines the rendering bounds to limit the vertex inside (Block Level) */
-	public Parameter<AxisAlignedBB> renderBounds = new Parameter<>(null);
+	public Parameter<AxisAlignedBB> renderBounds = new ObjectParameter<>(null);
 
 	/** Define whether a custom texture for drawing. It disable default icon behavior. A ResourceLocation need to be bound. */
-	public Parameter<Boolean> useCustomTexture = new Parameter<>(false);
+	public Parameter<Boolean> useCustomTexture = new BooleanParameter(false);
 
 	/** Define whether to apply texture UV for the shape (Block level) */
-	public Parameter<Boolean> applyTexture = new Parameter<>(true);
+	public Parameter<Boolean> applyTexture = new BooleanParameter(true);
 
 	/** Defines an {@link IIconProvider} to be used to get the icon for the faces. (Block Level) */
-	public Parameter<IIconProvider> iconProvider = new Parameter<>(null);
+	public Parameter<IIconProvider> iconProvider = new ObjectParameter<>(null);
 
 	/** Defines a {@link Icon} to be used for the rendering. */
-	public Parameter<Icon> icon = new Parameter<>(null);
+	public Parameter<Icon> icon = new ObjectParameter<>(null);
 
 	/** Defines whether to use block.getIcon(world, x, y, z, side) instead of block.getIcon(side, metadata) to get the IIcon */
-	public Parameter<Boolean> useWorldSensitiveIcon = new Parameter<>(true);
+	public Parameter<Boolean> useWorldSensitiveIcon = new BooleanParameter(true);
 
 	/** Defines whether to use a texture (will call addVertexWithUV instead of addVertex) */
-	public Parameter<Boolean> useTexture = new Parameter<>(true);
+	public Parameter<Boolean> useTexture = new BooleanParameter(true);
 
 	/** Defines whether to calculate interpolated textures coordinates depending on block bounds (Block Level) */
-	public Parameter<Boolean> interpolateUV = new Parameter<>(true);
+	public Parameter<Boolean> interpolateUV = new BooleanParameter(true);
 
 	/** Defines whether to automatically rotate the icons for {@link DirectionalComponent} */
-	public Parameter<Boolean> rotateIcon = new Parameter<>(true);
+	public Parameter<Boolean> rotateIcon = new BooleanParameter(true);
 
 	/** Defines whether to calculate ambient occlusion color or not (Block Level) */
-	public Parameter<Boolean> calculateAOColor = new Parameter<>(true);
+	public Parameter<Boolean> calculateAOColor = new BooleanParameter(true);
 
 	/** Defines whether to calculate brightness or not (Block Level) */
-	public Parameter<Boolean> calculateBrightness = new Parameter<>(true);
+	public Parameter<Boolean> calculateBrightness = new BooleanParameter(true);
 
 	/** Define whether to override each vertex color. If false, FaceParams.colorMultiplier will be used instead (Block Level) */
-	public Parameter<Boolean> usePerVertexColor = new Parameter<>(false);
+	public Parameter<Boolean> usePerVertexColor = new BooleanParameter(false);
 
 	/** Define whether to override each vertex alpha. If false, FaceParams.alpha will be used instead (Block Level) */
-	public Parameter<Boolean> usePerVertexAlpha = new Parameter<>(false);
+	public Parameter<Boolean> usePerVertexAlpha = new BooleanParameter(false);
 
 	/** Define whether to override each vertex brightness. If false, FaceParams.brightness will be used instead (Block Level) */
-	public Parameter<Boolean> usePerVertexBrightness = new Parameter<>(false);
+	public Parameter<Boolean> usePerVertexBrightness = new BooleanParameter(false);
 
 	/** Defines whether to use the block mixBlockBrightness (if false, RenderParameters.brightness will be used) (Block Level) */
-	public Parameter<Boolean> useEnvironmentBrightness = new Parameter<>(true);
+	public Parameter<Boolean> useEnvironmentBrightness = new BooleanParameter(true);
 
 	/** Defines whether to use the defined normals */
-	public Parameter<Boolean> useNormals = new Parameter<>(false);
+	public Parameter<Boolean> useNormals = new BooleanParameter(false);
 
 	/**
 	 * Defines the color to apply to the face (useful for grass and leaves) usePerVertexColor must be false (Block Level).<br>
 	 * Overrides the Block.colorMultiplier() and Block.getRenderColor()
 	 */
-	public Parameter<Integer> colorMultiplier = new Parameter<>(null);
+	public Parameter<Integer> colorMultiplier = new IntParameter(null);
 
 	/**
 	 * Defines the color factor for the face (Block Level). Used for shading the faces depending on their orientation : <br>
@@ -110,37 +149,39 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 	 * - TOP : 1<br>
 	 * - BOTTOM : 0.5<br>
 	 */
-	public Parameter<Float> colorFactor = new Parameter<>(1.0F);
+	public Parameter<Float> colorFactor = new FloatParameter(1.0F);
 
 	/** Defines brightness of the face (only used if useBlockBrightness = false) (Block Level) */
-	public Parameter<Integer> brightness = new Parameter<>(15728640); // 983055 - 15728640
+	public Parameter<Integer> brightness = new IntParameter(15728640); // 983055 - 15728640
 
 	/** Defines alpha transparency for the face (GL11.GL_BLEND needs to be set before). usePerVertexAlpha must be false (Block Level) */
-	public Parameter<Integer> alpha = new Parameter<>(255);
+	public Parameter<Integer> alpha = new IntParameter(255);
 
 	/** Defines the general direction of a face. Used for normals, and offset for AO and brightness calculation (Face Level) */
-	public Parameter<EnumFacing> direction = new Parameter<>(null);
+	public Parameter<EnumFacing> direction = new ObjectParameter<>(null);
 
 	/** Defines which direction will be used to get the block icon. If ForgeDirection.UNKNOWN, no texture will be used (Face Level) */
-	public Parameter<EnumFacing> textureSide = new Parameter<>(null);
+	public Parameter<EnumFacing> textureSide = new ObjectParameter<>(null);
 
 	/** Defines which block to take into account for AO calculation (Face Level) */
-	public Parameter<int[][][]> aoMatrix = new Parameter<>(null);
+	public Parameter<int[][][]> aoMatrix = new ObjectParameter<>(null);
 
 	/** Defines whether to flip the texture on the U coordinates (Face Level) */
-	public Parameter<Boolean> flipU = new Parameter<>(false);
+	public Parameter<Boolean> flipU = new BooleanParameter(false);
 
 	/** Defines whether to flip the texture on the U coordinates (Face Level) */
-	public Parameter<Boolean> flipV = new Parameter<>(false);
+	public Parameter<Boolean> flipV = new BooleanParameter(false);
 
 	/** Defines whether a face should deducts its parameters before rendering. (Face level). */
-	public Parameter<Boolean> deductParameters = new Parameter<>(false);
+	public Parameter<Boolean> deductParameters = new BooleanParameter(false);
 
 	/**
 	 * Instantiates a new {@link RenderParameters}.
 	 */
 	public RenderParameters()
 	{
+		System.arraycopy(defaultValues, 0, values, 0, COUNT);
+		System.arraycopy(defaultObjects, 0, objects, 0, COUNT);
 		buildList();
 	}
 
@@ -157,10 +198,13 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 
 	/**
 	 * Builds the list of {@link Parameter} in this {@link RenderParameters}.
+	 *
+	 * @deprecated the declared parameters are stored in slots, use the fields directly
 	 */
+	@Deprecated
 	protected void buildList()
 	{
-		listParams = new LinkedList<>();
+		listParams = new ArrayList<>(COUNT);
 		listParams.add(renderAllFaces);
 		listParams.add(useBlockBounds);
 		listParams.add(renderBounds);
@@ -192,29 +236,53 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 	}
 
 	/**
-	 * Gets the {@link Parameter} at <code>index</code>.
+	 * Resets all {@link Parameter parameters} to their default value.
+	 */
+	public void reset()
+	{
+		setMask = 0;
+		System.arraycopy(defaultValues, 0, values, 0, COUNT);
+		System.arraycopy(defaultObjects, 0, objects, 0, COUNT);
+		for (int i = COUNT; i < listParams.size(); i++)
+			listParams.get(i).reset();
+	}
+
+	/**
+	 * Merges the {@link Parameter parameters} added to the {@link #listParams} by subclasses, which are not stored in slots.
 	 *
-	 * @param index the index
-	 * @return the parameter
+	 * @param params the params
 	 */
-	private Parameter<?> getParameter(int index)
+	private void mergeExtraParameters(RenderParameters params)
 	{
-		if (index < 0 || index >= listParams.size())
-			return null;
-		return listParams.get(index);
+		for (int i = COUNT; i < Math.min(listParams.size(), params.listParams.size()); i++)
+			listParams.get(i).merge(params.listParams.get(i));
 	}
 
 	/**
-	 * Resets all {@link Parameter parameters} to their default value.
+	 * Copies all the values of <code>params</code> inside this {@link RenderParameters}.<br>
+	 * If <code>params</code> is <code>null</code>, this {@link RenderParameters} is reset.
+	 *
+	 * @param params the params
 	 */
-	public void reset()
+	public void copy(RenderParameters params)
 	{
-		for (Parameter<?> param : listParams)
-			param.reset();
+		if (params == null)
+		{
+			reset();
+			return;
+		}
+
+		setMask = params.setMask;
+		System.arraycopy(params.values, 0, values, 0, COUNT);
+		System.arraycopy(params.objects, 0, objects, 0, COUNT);
+		for (int i = COUNT; i < listParams.size(); i++)
+			listParams.get(i).reset();
+		mergeExtraParameters(params);
 	}
 
 	/**
-	 * Merges all the values of <code>params</code> inside this {@link RenderParameters} {@link Parameter parameters}.
+	 * Merges all the values of <code>params</code> inside this {@link RenderParameters} {@link Parameter parameters}.<br>
+	 * Only the parameters explicitly set in <code>params</code> are merged.
 	 *
 	 * @param params the params
 	 */
@@ -223,8 +291,16 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 		if (params == null)
 			return;
 
-		for (int i = 0; i < listParams.size(); i++)
-			getParameter(i).merge(params.getParameter(i));
+		long mask = params.setMask;
+		while (mask != 0)
+		{
+			int index = Long.numberOfTrailingZeros(mask);
+			values[index] = params.values[index];
+			objects[index] = params.objects[index];
+			mask &= mask - 1;
+		}
+		setMask |= params.setMask;
+		mergeExtraParameters(params);
 	}
 
 	@Override
@@ -254,55 +330,365 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 	 */
 	public static RenderParameters merge(RenderParameters rp1, RenderParameters rp2)
 	{
-		if (rp1 == null)
-			return rp2 == null ? new RenderParameters() : rp2.clone();
+		return merge(rp1, rp2, new RenderParameters());
+	}
 
-		RenderParameters rp = rp1.clone();
-		rp.merge(rp2);
-		return rp;
+	/**
+	 * Merges <code>rp1</code> and <code>rp2</code> into <code>into</code>.<br>
+	 * Allows to reuse the same {@link RenderParameters} instance without allocating a new one.
+	 *
+	 * @param rp1 the rp1
+	 * @param rp2 the rp2
+	 * @param into the render parameters to merge into
+	 * @return <code>into</code>
+	 */
+	public static RenderParameters merge(RenderParameters rp1, RenderParameters rp2, RenderParameters into)
+	{
+		into.copy(rp1);
+		into.merge(rp2);
+		return into;
+	}
+
+	/**
+	 * Gets the value of a boolean {@link Parameter} of this {@link RenderParameters} without boxing.
+	 *
+	 * @param parameter the parameter
+	 * @return the value
+	 */
+	public boolean getBoolean(Parameter<Boolean> parameter)
+	{
+		if (parameter instanceof BooleanParameter)
+			return ((BooleanParameter) parameter).getBoolean();
+		Boolean value = parameter.get();
+		return value != null && value;
+	}
+
+	/**
+	 * Gets the value of an int {@link Parameter} of this {@link RenderParameters} without boxing.<br>
+	 * Returns 0 if the value is not set and the default is <code>null</code>.
+	 *
+	 * @param parameter the parameter
+	 * @return the value
+	 */
+	public int getInt(Parameter<Integer> parameter)
+	{
+		if (parameter instanceof IntParameter)
+			return ((IntParameter) parameter).getInt();
+		Integer value = parameter.get();
+		return value != null ? value : 0;
+	}
+
+	/**
+	 * Checks whether an int {@link Parameter} of this {@link RenderParameters} holds a value, either set or default.
+	 *
+	 * @param parameter the parameter
+	 * @return true, if not null
+	 */
+	public boolean hasValue(Parameter<Integer> parameter)
+	{
+		if (parameter instanceof IntParameter)
+			return ((IntParameter) parameter).hasValue();
+		return parameter.get() != null;
+	}
+
+	/**
+	 * Gets the value of a float {@link Parameter} of this {@link RenderParameters} without boxing.
+	 *
+	 * @param parameter the parameter
+	 * @return the value
+	 */
+	public float getFloat(Parameter<Float> parameter)
+	{
+		if (parameter instanceof FloatParameter)
+			return ((FloatParameter) parameter).getFloat();
+		Float value = parameter.get();
+		return value != null ? value : 0;
 	}
 
 	@Override
 	public RenderParameters clone()
 	{
-		try
-		{
-			RenderParameters rp = (RenderParameters) super.clone();
-			rp.renderAllFaces = renderAllFaces.clone();
-			rp.useBlockBounds = useBlockBounds.clone();
-			rp.renderBounds = renderBounds.clone();
-			rp.useCustomTexture = useCustomTexture.clone();
-			rp.applyTexture = applyTexture.clone();
-			rp.iconProvider = iconProvider.clone();
-			rp.icon = icon.clone();
-			rp.useWorldSensitiveIcon = useWorldSensitiveIcon.clone();
-			rp.useTexture = useTexture.clone();
-			rp.interpolateUV = interpolateUV.clone();
-			rp.rotateIcon = rotateIcon.clone();
-			rp.calculateAOColor = calculateAOColor.clone();
-			rp.calculateBrightness = calculateBrightness.clone();
-			rp.usePerVertexColor = usePerVertexColor.clone();
-			rp.usePerVertexAlpha = usePerVertexAlpha.clone();
-			rp.usePerVertexBrightness = usePerVertexBrightness.clone();
-			rp.useEnvironmentBrightness = useEnvironmentBrightness.clone();
-			rp.useNormals = useNormals.clone();
-			rp.colorMultiplier = colorMultiplier.clone();
-			rp.colorFactor = colorFactor.clone();
-			rp.brightness = brightness.clone();
-			rp.alpha = alpha.clone();
-			rp.direction = direction.clone();
-			rp.textureSide = textureSide.clone();
-			rp.aoMatrix = aoMatrix.clone();
-			rp.flipU = flipU.clone();
-			rp.flipV = flipV.clone();
-			rp.deductParameters = deductParameters.clone();
-			rp.buildList();
-			return rp;
-		}
-		catch (CloneNotSupportedException e)
-		{
-			e.printStackTrace();
-		}
-		return null;
+		RenderParameters rp = new RenderParameters();
+		rp.copy(this);
+		return rp;
+	}
+
+	/**
+	 * Base class for the {@link Parameter parameters} backed by a slot of this {@link RenderParameters}.
+	 *
+	 * @param <T> the type of value
+	 */
+	public abstract class SlotParameter<T> extends Parameter<T>
+	{
+		/** Slot index of this {@link SlotParameter}. */
+		protected final int index;
+		/** Bit of this {@link SlotParameter} in the mask. */
+		protected final long bit;
+
+		protected SlotParameter()
+		{
+			super(null);
+			this.index = nextIndex++;
+			this.bit = 1L << index;
+		}
+
+		/**
+		 * Checks whether a value was explicitly set for this {@link SlotParameter}.
+		 *
+		 * @return true, if set
+		 */
+		public boolean isSet()
+		{
+			return (setMask & bit) != 0;
+		}
+
+		@Override
+		public T getValue()
+		{
+			return isSet() ? get() : null;
+		}
+
+		@Override
+		public void reset()
+		{
+			setMask &= ~bit;
+			values[index] = defaultValues[index];
+			objects[index] = defaultObjects[index];
+		}
+
+		@Override
+		public void set(T value)
+		{
+			if (value == null)
+			{
+				reset();
+				return;
+			}
+
+			setValue(value);
+			setMask |= bit;
+		}
+
+		/**
+		 * Stores the value inside the slot.
+		 *
+		 * @param value the value
+		 */
+		protected abstract void setValue(T value);
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void merge(Parameter<?> parameter)
+		{
+			if (parameter.getValue() != null)
+				set((T) parameter.getValue());
+		}
+
+		@Override
+		public String toString()
+		{
+			return getValue() + " [" + getDefault() + "]";
+		}
+	}
+
+	/**
+	 * {@link Parameter} holding a boolean.
+	 */
+	public class BooleanParameter extends SlotParameter<Boolean>
+	{
+		public BooleanParameter(boolean defaultValue)
+		{
+			if (!defaultsInitialized)
+				defaultValues[index] = defaultValue ? 1 : 0;
+		}
+
+		@Override
+		public Boolean getDefault()
+		{
+			return defaultValues[index] != 0;
+		}
+
+		@Override
+		public Boolean get()
+		{
+			return getBoolean();
+		}
+
+		/**
+		 * Gets the value of this {@link BooleanParameter} without boxing.
+		 *
+		 * @return the value
+		 */
+		public boolean getBoolean()
+		{
+			return values[index] != 0;
+		}
+
+		@Override
+		protected void setValue(Boolean value)
+		{
+			values[index] = value ? 1 : 0;
+		}
+
+		public void set(boolean value)
+		{
+			values[index] = value ? 1 : 0;
+			setMask |= bit;
+		}
+	}
+
+	/**
+	 * {@link Parameter} holding an int. The default value can be <code>null</code>.
+	 */
+	public class IntParameter extends SlotParameter<Integer>
+	{
+		public IntParameter(Integer defaultValue)
+		{
+			if (defaultsInitialized)
+				return;
+			if (defaultValue == null)
+				nullDefaults |= bit;
+			else
+				defaultValues[index] = defaultValue;
+		}
+
+		@Override
+		public Integer getDefault()
+		{
+			return (nullDefaults & bit) != 0 ? null : defaultValues[index];
+		}
+
+		@Override
+		public Integer get()
+		{
+			return isSet() || (nullDefaults & bit) == 0 ? values[index] : null;
+		}
+
+		/**
+		 * Gets the value of this {@link IntParameter} without boxing.<br>
+		 * Returns 0 if the value is not set and the default is <code>null</code>.
+		 *
+		 * @return the value
+		 */
+		public int getInt()
+		{
+			return values[index];
+		}
+
+		/**
+		 * Checks whether this {@link IntParameter} holds a value, either set or default.
+		 *
+		 * @return true, if not null
+		 */
+		public boolean hasValue()
+		{
+			return isSet() || (nullDefaults & bit) == 0;
+		}
+
+		@Override
+		protected void setValue(Integer value)
+		{
+			values[index] = value;
+		}
+
+		public void set(int value)
+		{
+			values[index] = value;
+			setMask |= bit;
+		}
+	}
+
+	/**
+	 * {@link Parameter} holding a float.
+	 */
+	public class FloatParameter extends SlotParameter<Float>
+	{
+		public FloatParameter(float defaultValue)
+		{
+			if (!defaultsInitialized)
+				defaultValues[index] = Float.floatToRawIntBits(defaultValue);
+		}
+
+		@Override
+		public Float getDefault()
+		{
+			return Float.intBitsToFloat(defaultValues[index]);
+		}
+
+		@Override
+		public Float get()
+		{
+			return getFloat();
+		}
+
+		/**
+		 * Gets the value of this {@link FloatParameter} without boxing.
+		 *
+		 * @return the value
+		 */
+		public float getFloat()
+		{
+			return Float.intBitsToFloat(values[index]);
+		}
+
+		@Override
+		protected void setValue(Float value)
+		{
+			values[index] = Float.floatToRawIntBits(value);
+		}
+
+		public void set(float value)
+		{
+			values[index] = Float.floatToRawIntBits(value);
+			setMask |= bit;
+		}
+	}
+
+	/**
+	 * {@link Parameter} holding a reference.
+	 *
+	 * @param <T> the type of value
+	 */
+	public class ObjectParameter<T> extends SlotParameter<T>
+	{
+		public ObjectParameter(T defaultValue)
+		{
+			if (!defaultsInitialized)
+				defaultObjects[index] = defaultValue;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T getDefault()
+		{
+			return (T) defaultObjects[index];
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T get()
+		{
+			return (T) objects[index];
+		}
+
+		@Override
+		public Object get(int i)
+		{
+			Object value = objects[index];
+			if (value == null)
+				return null;
+			if (!(value instanceof Object[]))
+				throw new IllegalStateException("Trying to access indexed element of non-array Parameter");
+			if (i < 0 || i >= Array.getLength(value))
+				return null;
+
+			return Array.get(value, i);
+		}
+
+		@Override
+		protected void setValue(T value)
+		{
+			objects[index] = value;
+		}
 	}
 }
@@ -0,0 +1,254 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.Maps;
+
+import net.malisis.core.MalisisCommand;
+import net.malisis.core.MalisisCore;
+import net.malisis.core.registry.AutoLoad;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/**
+ * Counters and timers for the rendering hot paths of {@link MalisisRenderer}.<br>
+ * Disabled by default, the cost when disabled is a single field read for each instrumented call. The statistics are controlled with the
+ * following debug commands :
+ * <ul>
+ * <li><code>/malisis debug renderstats</code> : enables or disables the collection (and resets the values when enabled)</li>
+ * <li><code>/malisis debug renderstats_dump</code> : displays the values as a table in the chat and the log</li>
+ * <li><code>/malisis debug renderstats_csv</code> : exports the values to <code>renderstats/&lt;date&gt;.csv</code></li>
+ * </ul>
+ * Counters are updated from the chunk builder threads, so they use {@link LongAdder}.
+ *
+ * @author Ordinastie
+ */
+@AutoLoad
+@SideOnly(Side.CLIENT)
+public class RenderStats
+{
+	/** Whether the statistics are collected. */
+	private static volatile boolean enabled = false;
+	/** Time when the collection was last enabled. */
+	private static long startTime;
+
+	/** Number of calls to renderBlock() and time spent, per block class. */
+	private static final Map<Class<?>, Timer> blockTimers = Maps.newConcurrentMap();
+	/** Number of vertexes written. */
+	private static final LongAdder vertexes = new LongAdder();
+	/** Number of faces culled by shouldRenderFace(). */
+	private static final LongAdder culledFaces = new LongAdder();
+	/** Number of TESR draw calls. */
+	private static final LongAdder tesrDraws = new LongAdder();
+	/** Number of {@link IAnimatedRenderable} drawn by the {@link AnimatedRenderer}. */
+	private static final LongAdder animatedRenderables = new LongAdder();
+	/** Number of Tessellator.draw() flushes. */
+	private static final LongAdder tessellatorDraws = new LongAdder();
+
+	static
+	{
+		MalisisCommand.registerDebug("renderstats", RenderStats::toggle);
+		MalisisCommand.registerDebug("renderstats_dump", RenderStats::dump);
+		MalisisCommand.registerDebug("renderstats_csv", RenderStats::exportCsv);
+	}
+
+	/**
+	 * Checks whether the statistics are collected.
+	 *
+	 * @return true, if enabled
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the collection of the statistics. Values are reset when enabling.
+	 *
+	 * @param enabled the enabled
+	 */
+	public static void setEnabled(boolean enabled)
+	{
+		if (enabled)
+			reset();
+		RenderStats.enabled = enabled;
+	}
+
+	/**
+	 * Resets all the values.
+	 */
+	public static void reset()
+	{
+		blockTimers.clear();
+		vertexes.reset();
+		culledFaces.reset();
+		tesrDraws.reset();
+		animatedRenderables.reset();
+		tessellatorDraws.reset();
+		startTime = System.nanoTime();
+	}
+
+	/**
+	 * Gets the start time to pass to {@link #blockRendered(Class, long)}, or 0 if disabled.
+	 *
+	 * @return the start time
+	 */
+	public static long start()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records a renderBlock() call for the block class.
+	 *
+	 * @param blockClass the block class
+	 * @param start the time returned by {@link #start()}
+	 */
+	public static void blockRendered(Class<?> blockClass, long start)
+	{
+		if (start == 0 || !enabled)
+			return;
+		blockTimers.computeIfAbsent(blockClass, c -> new Timer()).add(System.nanoTime() - start);
+	}
+
+	public static void vertexDrawn()
+	{
+		if (enabled)
+			vertexes.increment();
+	}
+
+	public static void faceCulled()
+	{
+		if (enabled)
+			culledFaces.increment();
+	}
+
+	public static void tesrDrawn()
+	{
+		if (enabled)
+			tesrDraws.increment();
+	}
+
+	public static void animatedRenderableDrawn()
+	{
+		if (enabled)
+			animatedRenderables.increment();
+	}
+
+	public static void tessellatorDrawn()
+	{
+		if (enabled)
+			tessellatorDraws.increment();
+	}
+
+	/**
+	 * Builds the rows of statistics. Each row is made of a name, a count, the total time and the average time in nanoseconds.
+	 *
+	 * @return the rows
+	 */
+	private static List<Object[]> rows()
+	{
+		List<Object[]> rows = new ArrayList<>();
+		blockTimers.entrySet()
+				   .stream()
+				   .sorted((e1, e2) -> Long.compare(e2.getValue().nanos.sum(), e1.getValue().nanos.sum()))
+				   .forEach(e -> {
+					   long count = e.getValue().count.sum();
+					   long nanos = e.getValue().nanos.sum();
+					   rows.add(new Object[] { "renderBlock:" + e.getKey().getName(), count, nanos, count != 0 ? nanos / count : 0 });
+				   });
+		rows.add(new Object[] { "vertexes", vertexes.sum(), 0L, 0L });
+		rows.add(new Object[] { "culledFaces", culledFaces.sum(), 0L, 0L });
+		rows.add(new Object[] { "tesrDraws", tesrDraws.sum(), 0L, 0L });
+		rows.add(new Object[] { "animatedRenderables", animatedRenderables.sum(), 0L, 0L });
+		rows.add(new Object[] { "tessellatorDraws", tessellatorDraws.sum(), 0L, 0L });
+		return rows;
+	}
+
+	private static void toggle()
+	{
+		setEnabled(!enabled);
+		MalisisCore.message(enabled ? "malisiscore.commands.renderstats.enabled" : "malisiscore.commands.renderstats.disabled");
+	}
+
+	private static void dump()
+	{
+		long elapsed = (System.nanoTime() - startTime) / 1_000_000;
+		String header = String.format("%-60s %12s %14s %10s", "name", "count", "total ns", "avg ns");
+		MalisisCore.log.info("[RenderStats] {} ms collected{}", elapsed, enabled ? "" : " (disabled)");
+		MalisisCore.log.info("[RenderStats] {}", header);
+		MalisisCore.message(header);
+		for (Object[] row : rows())
+		{
+			String line = String.format("%-60s %12d %14d %10d", row);
+			MalisisCore.log.info("[RenderStats] {}", line);
+			MalisisCore.message(line);
+		}
+	}
+
+	private static void exportCsv()
+	{
+		File file = new File("renderstats/" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date()) + ".csv");
+		file.getParentFile().mkdirs();
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8"))
+		{
+			writer.println("name,count,total_ns,avg_ns");
+			for (Object[] row : rows())
+				writer.println(row[0] + "," + row[1] + "," + row[2] + "," + row[3]);
+		}
+		catch (IOException e)
+		{
+			MalisisCore.log.error("[RenderStats] Could not write {}", file, e);
+			return;
+		}
+		MalisisCore.message("malisiscore.commands.renderstats.exported", file.getAbsolutePath());
+	}
+
+	/**
+	 * Call count and total time for a block class.
+	 */
+	private static class Timer
+	{
+		private final LongAdder count = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		private void add(long time)
+		{
+			count.increment();
+			nanos.add(time);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import net.malisis.core.block.IComponent;
+import net.malisis.core.block.ISmartCull;
+import net.minecraft.block.state.IBlockState;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/**
+ * Caches, for each {@link IBlockState}, whether the block uses smart culling and the sides its render bounds touch, as given by
+ * {@link ISmartCull#getBoundaryMask(IBlockState)}.<br>
+ * This lets {@link MalisisRenderer} cull the faces of a block without looking up its components or building its bounding box for each
+ * face.
+ *
+ * @author Ordinastie
+ */
+@SideOnly(Side.CLIENT)
+public class SmartCullCache
+{
+	/** The block does not use smart culling. */
+	public static final int NO_SMART_CULL = -2;
+	/** The block uses smart culling but its bounds depend on the world. */
+	public static final int DYNAMIC = -1;
+
+	private static final Map<IBlockState, Integer> masks = Maps.newConcurrentMap();
+
+	/**
+	 * Gets the boundary mask for the {@link IBlockState}.<br>
+	 * Returns {@link #NO_SMART_CULL} if the block is not smart culled, {@link #DYNAMIC} if the render bounds must be checked for each face,
+	 * or the 6-bit mask of the sides touched by the render bounds.
+	 *
+	 * @param state the state
+	 * @return the boundary mask
+	 */
+	public static int getBoundaryMask(IBlockState state)
+	{
+		if (state == null)
+			return NO_SMART_CULL;
+
+		Integer mask = masks.get(state);
+		if (mask == null)
+		{
+			mask = computeMask(state);
+			masks.put(state, mask);
+		}
+		return mask;
+	}
+
+	private static int computeMask(IBlockState state)
+	{
+		ISmartCull sc = IComponent.getComponent(ISmartCull.class, state.getBlock());
+		if (sc == null || !sc.shouldSmartCull())
+			return NO_SMART_CULL;
+
+		int mask = sc.getBoundaryMask(state);
+		return mask < 0 ? DYNAMIC : mask & 0x3F;
+	}
+}
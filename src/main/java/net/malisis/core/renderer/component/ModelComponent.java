@@ -114,8 +114,12 @@ public class ModelComponent implements IRenderComponent
 		return model;
 	}
 
+	/**
+	 * Renders the {@link MalisisModel}.<br>
+	 * Synchronized as the model is reloaded and transformed for each render, and chunks are rendered concurrently.
+	 */
 	@Override
-	public void render(Block block, MalisisRenderer<? extends TileEntity> renderer)
+	public synchronized void render(Block block, MalisisRenderer<? extends TileEntity> renderer)
 	{
 		loadModel();
 		model.resetState();
@@ -41,16 +41,19 @@ public class ShapeComponent implements IRenderComponent
 {
 	protected Shape shape;
 	RenderParameters rp = new RenderParameters();
+	/** Copy of the {@link #shape} for each thread rendering this {@link ShapeComponent}, as chunks are rendered concurrently. */
+	private final ThreadLocal<Shape> threadShape = ThreadLocal.withInitial(() -> shape.duplicate());
 
 	public ShapeComponent(Shape shape)
 	{
 		this.shape = shape;
+		rp.interpolateUV.set(false);
 	}
 
 	@Override
 	public void render(Block block, MalisisRenderer<? extends TileEntity> renderer)
 	{
-		rp.interpolateUV.set(false);
+		Shape shape = threadShape.get();
 		shape.resetState();
 		if (renderer.getRenderType() == RenderType.BLOCK)
 		{
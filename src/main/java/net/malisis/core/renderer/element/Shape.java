@@ -25,6 +25,7 @@
 package net.malisis.core.renderer.element;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +58,18 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 	/** The merged vertexes making up this {@link Shape}. */
 	protected Map<String, MergedVertex> mergedVertexes;
 
+	/** Number of vertexes stored in {@link #storedDoubles} and {@link #storedInts}. */
+	private int storedCount = -1;
+	/** Positions and UVs of the stored state, packed per {@link Vertex}. */
+	private double[] storedDoubles;
+	/** Colors, alpha, brightness and normals of the stored state, packed per {@link Vertex}. */
+	private int[] storedInts;
+
+	private static final Vector3f CENTER = new Vector3f(0.5F, 0.5F, 0.5F);
+	private static final Vector3f NEGATIVE_CENTER = new Vector3f(-0.5F, -0.5F, -0.5F);
+	/** Value of {@link #transformMatrix} when it holds no transformation. */
+	private static final Matrix4f RESET_MATRIX = new Matrix4f().translate(CENTER);
+
 	{
 		resetMatrix();
 	}
@@ -67,6 +80,7 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 	public Shape()
 	{
 		this.faces = new Face[0];
+		storeVertexes();
 	}
 
 	/**
@@ -77,6 +91,7 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 	public Shape(Face... faces)
 	{
 		this.faces = faces;
+		storeVertexes();
 	}
 
 	/**
@@ -101,6 +116,25 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 		for (int i = 0; i < shapeFaces.length; i++)
 			faces[i] = new Face(shapeFaces[i]);
 		copyMatrix(s);
+		storeVertexes();
+	}
+
+	/**
+	 * Creates a copy of this {@link Shape} that also shares its stored state, so that {@link #resetState()} brings both back to the same
+	 * vertexes, even if this {@link Shape} was transformed after {@link #storeState()}.
+	 *
+	 * @return the copy
+	 */
+	public Shape duplicate()
+	{
+		Shape shape = new Shape(this);
+		if (storedCount >= 0)
+		{
+			shape.storedCount = storedCount;
+			shape.storedDoubles = storedDoubles.clone();
+			shape.storedInts = storedInts.clone();
+		}
+		return shape;
 	}
 
 	//#region FACES
@@ -131,6 +165,15 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 		}
 
 		this.faces = ArrayUtils.addAll(this.faces, faces);
+		if (storedCount >= 0)
+		{
+			//the added vertexes are stored with their current state
+			int count = vertexCount(faces);
+			storedDoubles = Arrays.copyOf(storedDoubles, (storedCount + count) * Vertex.DOUBLE_STRIDE);
+			storedInts = Arrays.copyOf(storedInts, (storedCount + count) * Vertex.INT_STRIDE);
+			writeState(faces, storedCount);
+			storedCount += count;
+		}
 
 		return this;
 	}
@@ -189,7 +232,34 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 			}
 		}
 
-		faces = ArrayUtils.removeElement(faces, face);
+		int faceIndex = ArrayUtils.indexOf(faces, face);
+		if (faceIndex == -1)
+			return this;
+
+		if (storedCount >= 0)
+		{
+			//drop the stored state of the removed vertexes
+			int from = vertexCount(Arrays.copyOf(faces, faceIndex));
+			int count = vertexCount(new Face[] { face });
+			if (from + count <= storedCount)
+			{
+				System.arraycopy(	storedDoubles,
+									(from + count) * Vertex.DOUBLE_STRIDE,
+									storedDoubles,
+									from * Vertex.DOUBLE_STRIDE,
+									(storedCount - from - count) * Vertex.DOUBLE_STRIDE);
+				System.arraycopy(	storedInts,
+									(from + count) * Vertex.INT_STRIDE,
+									storedInts,
+									from * Vertex.INT_STRIDE,
+									(storedCount - from - count) * Vertex.INT_STRIDE);
+				storedCount -= count;
+			}
+			else
+				storedCount = -1;
+		}
+
+		faces = ArrayUtils.remove(faces, faceIndex);
 		return this;
 	}
 
@@ -322,8 +392,22 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 	private void resetMatrix()
 	{
 		transformMatrix.setIdentity();
-		transformMatrix.translate(new Vector3f(0.5F, 0.5F, 0.5F));
+		transformMatrix.translate(CENTER);
+	}
 
+	/**
+	 * Checks whether the {@link #transformMatrix} holds no transformation.<br>
+	 * The values are compared, as subclasses may modify the matrix directly.
+	 *
+	 * @return true, if there is nothing to apply
+	 */
+	private boolean isMatrixReset()
+	{
+		Matrix4f m = transformMatrix, r = RESET_MATRIX;
+		return m.m00 == r.m00 && m.m01 == r.m01 && m.m02 == r.m02 && m.m03 == r.m03
+				&& m.m10 == r.m10 && m.m11 == r.m11 && m.m12 == r.m12 && m.m13 == r.m13
+				&& m.m20 == r.m20 && m.m21 == r.m21 && m.m22 == r.m22 && m.m23 == r.m23
+				&& m.m30 == r.m30 && m.m31 == r.m31 && m.m32 == r.m32 && m.m33 == r.m33;
 	}
 
 	/**
@@ -354,14 +438,28 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 			return this;
 		}
 
+		//nothing to apply, matrix is still the identity once transformed back
+		if (isMatrixReset())
+			return this;
+
 		//transform back to original place
-		transformMatrix.translate(new Vector3f(-0.5F, -0.5F, -0.5F));
+		transformMatrix.translate(NEGATIVE_CENTER);
 
+		Matrix4f m = transformMatrix;
+		float m00 = m.m00, m10 = m.m10, m20 = m.m20, m30 = m.m30;
+		float m01 = m.m01, m11 = m.m11, m21 = m.m21, m31 = m.m31;
+		float m02 = m.m02, m12 = m.m12, m22 = m.m22, m32 = m.m32;
 		for (Face f : faces)
 		{
 			for (Vertex v : f.getVertexes())
-				if (v != null)
-					v.applyMatrix(transformMatrix);
+			{
+				if (v == null)
+					continue;
+				float x = (float) v.getX();
+				float y = (float) v.getY();
+				float z = (float) v.getZ();
+				v.set(m00 * x + m10 * y + m20 * z + m30, m01 * x + m11 * y + m21 * z + m31, m02 * x + m12 * y + m22 * z + m32);
+			}
 		}
 
 		resetMatrix();
@@ -538,7 +636,9 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 				mv.translate(x, y, z);
 		}
 		else
+		{
 			transformMatrix.translate(new Vector3f(x, y, z));
+		}
 	}
 
 	/**
@@ -630,20 +730,67 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 	}
 
 	/**
-	 * Stores the current state of each {@link Vertex} making up this {@link Shape}.
+	 * Stores the current state of each {@link Vertex} making up this {@link Shape}.<br>
+	 * The state is packed into primitive arrays owned by this {@link Shape} so that {@link #resetState()} can restore it in a single pass.
+	 * The state is stored when the {@link Shape} is created and updated when faces are added or removed.
 	 *
 	 * @return this {@link Shape}
 	 */
 	public Shape storeState()
 	{
 		applyMatrix();
+		storeVertexes();
+		return this;
+	}
+
+	/**
+	 * Packs the current state of each {@link Vertex} making up this {@link Shape}, without applying the pending transformations.
+	 */
+	private void storeVertexes()
+	{
+		int count = vertexCount(faces);
+		if (storedDoubles == null || storedDoubles.length != count * Vertex.DOUBLE_STRIDE)
+		{
+			storedDoubles = new double[count * Vertex.DOUBLE_STRIDE];
+			storedInts = new int[count * Vertex.INT_STRIDE];
+		}
+
+		writeState(faces, 0);
+		storedCount = count;
+	}
+
+	/**
+	 * Packs the state of the vertexes of the {@link Face faces} into the stored arrays, starting at the vertex <code>index</code>.
+	 *
+	 * @param faces the faces
+	 * @param index the index of the first vertex
+	 */
+	private void writeState(Face[] faces, int index)
+	{
 		for (Face f : faces)
 		{
 			for (Vertex v : f.getVertexes())
 				if (v != null)
-					v.setInitialState();
+					v.writeState(storedDoubles, storedInts, index++);
 		}
-		return this;
+	}
+
+	/**
+	 * Counts the vertexes of the {@link Face faces}.
+	 *
+	 * @param faces the faces
+	 * @return the count
+	 */
+	private static int vertexCount(Face[] faces)
+	{
+		int count = 0;
+		for (Face f : faces)
+		{
+			for (Vertex v : f.getVertexes())
+				if (v != null)
+					count++;
+		}
+		return count;
 	}
 
 	/**
@@ -654,11 +801,32 @@ public class Shape implements ITransformable.Translate, ITransformable.Rotate, I
 	public Shape resetState()
 	{
 		resetMatrix();
+		if (storedCount < 0)
+		{
+			for (Face f : faces)
+			{
+				for (Vertex v : f.getVertexes())
+					if (v != null)
+						v.resetState();
+			}
+			return this;
+		}
+
+		int index = 0;
 		for (Face f : faces)
 		{
 			for (Vertex v : f.getVertexes())
-				if (v != null)
+			{
+				if (v == null)
+					continue;
+				//vertexes changed since the state was stored
+				if (index >= storedCount)
+				{
 					v.resetState();
+					continue;
+				}
+				v.readState(storedDoubles, storedInts, index++);
+			}
 		}
 		return this;
 	}
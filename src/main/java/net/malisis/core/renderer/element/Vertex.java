@@ -25,7 +25,6 @@
 package net.malisis.core.renderer.element;
 
 import org.lwjgl.util.vector.Matrix4f;
-import org.lwjgl.util.vector.Vector4f;
 
 import net.malisis.core.util.Point;
 import net.minecraft.client.renderer.vertex.VertexFormat;
@@ -35,6 +34,10 @@ import net.minecraft.util.math.Vec3d;
 public class Vertex
 {
 	public static final int BRIGHTNESS_MAX = (240 << 16) | 240; //sky << 16 | block
+	/** Number of double values per {@link Vertex} used by {@link #writeState(double[], int[], int)}. */
+	static final int DOUBLE_STRIDE = 5;
+	/** Number of int values per {@link Vertex} used by {@link #writeState(double[], int[], int)}. */
+	static final int INT_STRIDE = 4;
 
 	/** Base name of this {@link Vertex}, set when first instanciated and kept after transformation for easy access. */
 	private String baseName;
@@ -53,40 +56,54 @@ public class Vertex
 	private double u = 0.0F;
 	private double v = 0.0F;
 
+	/**
+	 * State restored by {@link #resetState()}.<br>
+	 * Captured when this {@link Vertex} is first modified, or with {@link #setInitialState()}, unless a {@link Shape} stores the state of
+	 * this {@link Vertex} itself.
+	 */
 	private Vertex initialState;
+	/** Whether a {@link Shape} stores the state of this {@link Vertex}. */
+	private boolean storedByShape;
 
-	public Vertex(double x, double y, double z, int rgba, int brightness, double u, double v, int normal, boolean isInitialState)
+	public Vertex(double x, double y, double z, int rgba, int brightness, double u, double v, int normal)
 	{
-		set(x, y, z);
-		setRGBA(rgba);
-		setBrightness(brightness);
-		setUV(u, v);
 		this.x = x;
 		this.y = y;
 		this.z = z;
-
+		this.color = (rgba >>> 8) & 0xFFFFFF;
+		this.alpha = rgba & 255;
+		this.brightness = brightness;
 		this.u = u;
 		this.v = v;
 		this.normal = normal;
 		this.baseName();
+	}
 
-		if (!isInitialState)
-			initialState = new Vertex(x, y, z, rgba, brightness, u, v, normal, true);
+	/**
+	 * Instantiates a new {@link Vertex}.
+	 *
+	 * @deprecated the initial state is captured when the {@link Vertex} is first modified, use
+	 *             {@link #Vertex(double, double, double, int, int, double, double, int)} instead
+	 */
+	@Deprecated
+	public Vertex(double x, double y, double z, int rgba, int brightness, double u, double v, int normal, boolean isInitialState)
+	{
+		this(x, y, z, rgba, brightness, u, v, normal);
 	}
 
 	public Vertex(double x, double y, double z, int rgba, int brightness)
 	{
-		this(x, y, z, rgba, brightness, 0, 0, 0, false);
+		this(x, y, z, rgba, brightness, 0, 0, 0);
 	}
 
 	public Vertex(double x, double y, double z)
 	{
-		this(x, y, z, 0xFFFFFFFF, BRIGHTNESS_MAX, 0, 0, 0, false);
+		this(x, y, z, 0xFFFFFFFF, BRIGHTNESS_MAX, 0, 0, 0);
 	}
 
 	public Vertex(Vertex vertex)
 	{
-		this(vertex.x, vertex.y, vertex.z, vertex.color << 8 | vertex.alpha, vertex.getBrightness(), vertex.u, vertex.v, 0, false);
+		this(vertex.x, vertex.y, vertex.z, vertex.color << 8 | vertex.alpha, vertex.getBrightness(), vertex.u, vertex.v, 0);
 		baseName = vertex.baseName;
 	}
 
@@ -97,7 +114,7 @@ public class Vertex
 
 	public Vertex(Vertex vertex, int rgba, int brightness, float u, float v)
 	{
-		this(vertex.x, vertex.y, vertex.z, rgba, brightness, u, v, 0, false);
+		this(vertex.x, vertex.y, vertex.z, rgba, brightness, u, v, 0);
 	}
 
 	//#region Getters/Setters
@@ -113,6 +130,7 @@ public class Vertex
 
 	public Vertex setX(double x)
 	{
+		captureInitialState();
 		this.x = x;
 		return this;
 	}
@@ -129,6 +147,7 @@ public class Vertex
 
 	public Vertex setY(double y)
 	{
+		captureInitialState();
 		this.y = y;
 		return this;
 	}
@@ -145,12 +164,14 @@ public class Vertex
 
 	public Vertex setZ(double z)
 	{
+		captureInitialState();
 		this.z = z;
 		return this;
 	}
 
 	public void set(double x, double y, double z)
 	{
+		captureInitialState();
 		this.x = x;
 		this.y = y;
 		this.z = z;
@@ -163,6 +184,7 @@ public class Vertex
 
 	public Vertex setColor(int color)
 	{
+		captureInitialState();
 		this.color = color & 0xFFFFFF;
 		return this;
 	}
@@ -174,6 +196,7 @@ public class Vertex
 
 	public Vertex setAlpha(int alpha)
 	{
+		captureInitialState();
 		this.alpha = alpha & 255;
 		return this;
 	}
@@ -188,6 +211,7 @@ public class Vertex
 
 	public Vertex setRGBA(int rgba)
 	{
+		captureInitialState();
 		this.color = (rgba >>> 8) & 0xFFFFFF;
 		this.alpha = rgba & 255;
 		return this;
@@ -210,6 +234,7 @@ public class Vertex
 
 	public Vertex setBrightness(int brightness)
 	{
+		captureInitialState();
 		this.brightness = brightness;
 		return this;
 	}
@@ -221,6 +246,7 @@ public class Vertex
 
 	public Vertex setNormal(float x, float y, float z)
 	{
+		captureInitialState();
 		byte b0 = (byte) (x * 127.0F);
 		byte b1 = (byte) (y * 127.0F);
 		byte b2 = (byte) (z * 127.0F);
@@ -247,6 +273,7 @@ public class Vertex
 
 	public void setUV(double u, double v)
 	{
+		captureInitialState();
 		this.u = u;
 		this.v = v;
 	}
@@ -263,6 +290,7 @@ public class Vertex
 	 */
 	public Vertex translate(double x, double y, double z)
 	{
+		captureInitialState();
 		this.x += x;
 		this.y += y;
 		this.z += z;
@@ -276,6 +304,7 @@ public class Vertex
 
 	public Vertex scaleX(float f, float offset)
 	{
+		captureInitialState();
 		x = (x - offset) * f + offset;
 		return this;
 	}
@@ -287,6 +316,7 @@ public class Vertex
 
 	public Vertex scaleY(float f, float offset)
 	{
+		captureInitialState();
 		y = (y - offset) * f + offset;
 		return this;
 	}
@@ -298,6 +328,7 @@ public class Vertex
 
 	public Vertex scaleZ(float f, float offset)
 	{
+		captureInitialState();
 		z = (z - offset) * f + offset;
 		return this;
 	}
@@ -330,6 +361,7 @@ public class Vertex
 
 	public Vertex rotateAroundX(double angle, double centerX, double centerY, double centerZ)
 	{
+		captureInitialState();
 		angle = Math.toRadians(angle);
 		double ty = y - centerY;
 		double tz = z - centerZ;
@@ -347,6 +379,7 @@ public class Vertex
 
 	public Vertex rotateAroundY(double angle, double centerX, double centerY, double centerZ)
 	{
+		captureInitialState();
 		angle = Math.toRadians(angle);
 		double tx = x - centerX;
 		double tz = z - centerZ;
@@ -364,6 +397,7 @@ public class Vertex
 
 	public Vertex rotateAroundZ(double angle, double centerX, double centerY, double centerZ)
 	{
+		captureInitialState();
 		angle = Math.toRadians(angle);
 		double tx = x - centerX;
 		double ty = y - centerY;
@@ -376,11 +410,13 @@ public class Vertex
 
 	public void limitU(float min, float max)
 	{
+		captureInitialState();
 		u = Math.max(Math.min(u, max), min);
 	}
 
 	public void limitV(float min, float max)
 	{
+		captureInitialState();
 		v = Math.max(Math.min(v, max), min);
 	}
 
@@ -437,17 +473,20 @@ public class Vertex
 		return value;
 	}
 
-	public void applyMatrix(Matrix4f transformMatrix)
+	public void applyMatrix(Matrix4f m)
 	{
-		Vector4f vec = new Vector4f((float) x, (float) y, (float) z, 1F);
-		Matrix4f.transform(transformMatrix, vec, vec);
-		x = vec.x;
-		y = vec.y;
-		z = vec.z;
+		captureInitialState();
+		float fx = (float) x;
+		float fy = (float) y;
+		float fz = (float) z;
+		x = m.m00 * fx + m.m10 * fy + m.m20 * fz + m.m30;
+		y = m.m01 * fx + m.m11 * fy + m.m21 * fz + m.m31;
+		z = m.m02 * fx + m.m12 * fy + m.m22 * fz + m.m32;
 	}
 
 	/**
-	 * Gets the vertex data for this {@link Vertex}.
+	 * Gets the vertex data for this {@link Vertex}.<br>
+	 * Allocates a new array for each call, prefer {@link VertexWriter} to write directly into a buffer.
 	 *
 	 * @param vertexFormat the vertex format
 	 * @param offset the offset
@@ -505,12 +544,73 @@ public class Vertex
 
 	public void setInitialState()
 	{
-		initialState.setState(this);
+		if (initialState == null)
+			initialState = new Vertex(x, y, z, color << 8 | alpha, brightness, u, v, normal);
+		else
+			initialState.setState(this);
+	}
+
+	/**
+	 * Captures the current state as the initial state before the first modification of this {@link Vertex}.
+	 */
+	private void captureInitialState()
+	{
+		if (initialState == null && !storedByShape)
+			initialState = new Vertex(x, y, z, color << 8 | alpha, brightness, u, v, normal);
 	}
 
 	public void resetState()
 	{
-		setState(initialState);
+		if (initialState != null)
+			setState(initialState);
+	}
+
+	/**
+	 * Writes the state of this {@link Vertex} into the primitive arrays at the specified index.<br>
+	 * <code>doubles</code> holds {@value #DOUBLE_STRIDE} values per vertex, <code>ints</code> holds {@value #INT_STRIDE} values per vertex.
+	 *
+	 * @param doubles the doubles
+	 * @param ints the ints
+	 * @param index the index of the vertex
+	 */
+	void writeState(double[] doubles, int[] ints, int index)
+	{
+		storedByShape = true;
+		int d = index * DOUBLE_STRIDE;
+		doubles[d] = x;
+		doubles[d + 1] = y;
+		doubles[d + 2] = z;
+		doubles[d + 3] = u;
+		doubles[d + 4] = v;
+
+		int i = index * INT_STRIDE;
+		ints[i] = color;
+		ints[i + 1] = alpha;
+		ints[i + 2] = brightness;
+		ints[i + 3] = normal;
+	}
+
+	/**
+	 * Reads the state of this {@link Vertex} from the primitive arrays at the specified index.
+	 *
+	 * @param doubles the doubles
+	 * @param ints the ints
+	 * @param index the index of the vertex
+	 */
+	void readState(double[] doubles, int[] ints, int index)
+	{
+		int d = index * DOUBLE_STRIDE;
+		x = doubles[d];
+		y = doubles[d + 1];
+		z = doubles[d + 2];
+		u = doubles[d + 3];
+		v = doubles[d + 4];
+
+		int i = index * INT_STRIDE;
+		color = ints[i];
+		alpha = ints[i + 1];
+		brightness = ints[i + 2];
+		normal = ints[i + 3];
 	}
 
 	/**
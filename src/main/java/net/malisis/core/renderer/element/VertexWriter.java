@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer.element;
+
+import java.nio.IntBuffer;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+
+/**
+ * Writes {@link Vertex} data directly into a {@link BufferBuilder}.<br>
+ * The offsets of each element are resolved once per {@link VertexFormat}, so writing a vertex does not allocate any intermediate array nor
+ * query the format.
+ *
+ * @author Ordinastie
+ */
+public class VertexWriter
+{
+	/** Writers already resolved for each {@link VertexFormat}. */
+	private static final Map<VertexFormat, VertexWriter> writers = Maps.newConcurrentMap();
+
+	/** Format handled by this {@link VertexWriter}. */
+	private final VertexFormat vertexFormat;
+	/** Size of a vertex (in ints). */
+	private final int size;
+	/** Index of the color element, or -1. */
+	private final int colorIndex;
+	/** Index of the texture UV element, or -1. */
+	private final int uvIndex;
+	/** Index of the lightmap UV element, or -1. */
+	private final int lightmapIndex;
+	/** Index of the normal element, or -1. */
+	private final int normalIndex;
+
+	private VertexWriter(VertexFormat vertexFormat)
+	{
+		this.vertexFormat = vertexFormat;
+		this.size = vertexFormat.getIntegerSize();
+		this.colorIndex = vertexFormat.hasColor() ? vertexFormat.getColorOffset() / 4 : -1;
+		this.uvIndex = vertexFormat.hasUvOffset(0) ? vertexFormat.getUvOffsetById(0) / 4 : -1;
+		this.lightmapIndex = vertexFormat.hasUvOffset(1) ? vertexFormat.getUvOffsetById(1) / 4 : -1;
+		this.normalIndex = vertexFormat.hasNormal() ? vertexFormat.getNormalOffset() / 4 : -1;
+	}
+
+	/**
+	 * Gets the {@link VertexFormat} handled by this {@link VertexWriter}.
+	 *
+	 * @return the vertex format
+	 */
+	public VertexFormat getVertexFormat()
+	{
+		return vertexFormat;
+	}
+
+	/**
+	 * Writes the {@link Vertex} into the {@link BufferBuilder}.<br>
+	 * The buffer needs to be drawing with the {@link VertexFormat} of this {@link VertexWriter}.
+	 *
+	 * @param buffer the buffer
+	 * @param vertex the vertex
+	 * @param offsetX the X offset of the position
+	 * @param offsetY the Y offset of the position
+	 * @param offsetZ the Z offset of the position
+	 */
+	public void write(BufferBuilder buffer, Vertex vertex, double offsetX, double offsetY, double offsetZ)
+	{
+		buffer.growBuffer(size * 4 + vertexFormat.getSize());
+		IntBuffer ints = buffer.rawIntBuffer;
+		int index = buffer.vertexCount * size;
+
+		ints.put(index, Float.floatToRawIntBits((float) (vertex.getX() + offsetX)));
+		ints.put(index + 1, Float.floatToRawIntBits((float) (vertex.getY() + offsetY)));
+		ints.put(index + 2, Float.floatToRawIntBits((float) (vertex.getZ() + offsetZ)));
+		if (colorIndex != -1)
+			ints.put(index + colorIndex, vertex.getRGBA());
+		if (uvIndex != -1)
+		{
+			ints.put(index + uvIndex, Float.floatToRawIntBits((float) vertex.getU()));
+			ints.put(index + uvIndex + 1, Float.floatToRawIntBits((float) vertex.getV()));
+		}
+		if (lightmapIndex != -1)
+			ints.put(index + lightmapIndex, vertex.getBrightness());
+		if (normalIndex != -1)
+			ints.put(index + normalIndex, vertex.getNormal());
+
+		buffer.vertexCount++;
+	}
+
+	/**
+	 * Gets the {@link VertexWriter} for the {@link VertexFormat}.
+	 *
+	 * @param vertexFormat the vertex format
+	 * @return the vertex writer
+	 */
+	public static VertexWriter of(VertexFormat vertexFormat)
+	{
+		return writers.computeIfAbsent(vertexFormat, VertexWriter::new);
+	}
+}
@@ -67,6 +67,19 @@ public interface IBlockIconProvider extends IIconProvider
 		return getIcon(state, side);
 	}
 
+	/**
+	 * Whether the {@link Icon icons} provided depend on the world or the position of the block, and not only on the {@link IBlockState}
+	 * and the side.<br>
+	 * Icons of providers that are not world sensitive are cached by {@link IconCache}. By default, providers overriding
+	 * {@link #getIcon(IBlockAccess, BlockPos, IBlockState, EnumFacing)} are considered world sensitive.
+	 *
+	 * @return true, if world sensitive
+	 */
+	public default boolean isWorldSensitive()
+	{
+		return IconCache.overridesWorldIcon(this);
+	}
+
 	/**
 	 * Gets the {@link Icon} to use for the item. (Only used if the item associated with the block isn't already a
 	 * {@link IItemIconProvider}).
@@ -0,0 +1,148 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.renderer.icon.provider;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import net.malisis.core.registry.AutoLoad;
+import net.malisis.core.registry.MalisisRegistry;
+import net.malisis.core.renderer.icon.Icon;
+import net.malisis.core.util.callback.CallbackResult;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.renderer.texture.TextureMap;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/**
+ * Memoizes the {@link Icon icons} returned by {@link IBlockIconProvider IBlockIconProviders} whose icons only depend on the
+ * {@link IBlockState} and the side.<br>
+ * Once resolved, an icon is retrieved with a single map lookup followed by an array access. Providers that are
+ * {@link IBlockIconProvider#isWorldSensitive() world sensitive} are always queried directly.<br>
+ * The cache is cleared when the textures are stitched.
+ *
+ * @author Ordinastie
+ */
+@AutoLoad
+@SideOnly(Side.CLIENT)
+public class IconCache
+{
+	/**
+	 * Whether the {@link IBlockIconProvider} class overrides the world sensitive getIcon() method.<br>
+	 * {@link SidesIconProvider} own override only delegates to the side and is not considered.
+	 */
+	private static final ClassValue<Boolean> overridesWorldIcon = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			try
+			{
+				Class<?> declaring = type.getMethod("getIcon", IBlockAccess.class, BlockPos.class, IBlockState.class, EnumFacing.class)
+											.getDeclaringClass();
+				return declaring != IBlockIconProvider.class && declaring != SidesIconProvider.class;
+			}
+			catch (NoSuchMethodException e)
+			{
+				return true;
+			}
+		}
+	};
+
+	/** Icons for each provider, for each {@link IBlockState}, indexed by side (6 for no side). */
+	private static final Map<IBlockIconProvider, Map<IBlockState, Icon[]>> cache = Maps.newConcurrentMap();
+
+	static
+	{
+		MalisisRegistry.onTextureStitched(IconCache::onTextureStitched, CallbackOption.of());
+	}
+
+	/**
+	 * Gets the {@link Icon} from the {@link IBlockIconProvider}, using the cached value if the provider is not world sensitive.
+	 *
+	 * @param provider the provider
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 * @param side the side
+	 * @return the icon
+	 */
+	public static Icon getIcon(IBlockIconProvider provider, IBlockAccess world, BlockPos pos, IBlockState state, EnumFacing side)
+	{
+		if (state == null || provider.isWorldSensitive())
+			return provider.getIcon(world, pos, state, side);
+
+		Icon[] icons = cache.computeIfAbsent(provider, p -> Maps.newConcurrentMap()).computeIfAbsent(state, s -> new Icon[7]);
+		int index = side != null ? side.getIndex() : 6;
+		Icon icon = icons[index];
+		if (icon == null)
+			icons[index] = icon = provider.getIcon(world, pos, state, side);
+		return icon;
+	}
+
+	/**
+	 * Checks whether the {@link IBlockIconProvider} class overrides
+	 * {@link IBlockIconProvider#getIcon(IBlockAccess, BlockPos, IBlockState, EnumFacing)}.
+	 *
+	 * @param provider the provider
+	 * @return true, if overridden
+	 */
+	static boolean overridesWorldIcon(IBlockIconProvider provider)
+	{
+		return overridesWorldIcon.get(provider.getClass());
+	}
+
+	/**
+	 * Clears the cached {@link Icon icons} of the {@link IBlockIconProvider}.<br>
+	 * Called by providers when their icons are changed.
+	 *
+	 * @param provider the provider
+	 */
+	public static void clear(IBlockIconProvider provider)
+	{
+		cache.remove(provider);
+	}
+
+	/**
+	 * Clears all the cached {@link Icon icons}.<br>
+	 * Should be called if a provider changes its icons after they have been used for rendering.
+	 */
+	public static void clear()
+	{
+		cache.clear();
+	}
+
+	private static CallbackResult<Void> onTextureStitched(TextureMap map)
+	{
+		clear();
+		return CallbackResult.noResult();
+	}
+}
@@ -95,6 +95,12 @@ public class MegaTextureIconProvider extends SidesIconProvider
 		return this.numBlocks[side.getIndex()];
 	}
 
+	@Override
+	public boolean isWorldSensitive()
+	{
+		return true;
+	}
+
 	@Override
 	public Icon getIcon(IBlockAccess world, BlockPos pos, IBlockState state, EnumFacing side)
 	{
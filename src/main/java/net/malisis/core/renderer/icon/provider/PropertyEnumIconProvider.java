@@ -64,11 +64,12 @@ public class PropertyEnumIconProvider<T extends Enum<T> & IStringSerializable> i
 	public void setIcon(T enumValue, Icon icon)
 	{
 		icons.put(enumValue, icon);
+		IconCache.clear(this);
 	}
 
 	public void setIcon(T enumValue, String iconName)
 	{
-		icons.put(enumValue, Icon.from(iconName));
+		setIcon(enumValue, Icon.from(iconName));
 	}
 
 	@Override
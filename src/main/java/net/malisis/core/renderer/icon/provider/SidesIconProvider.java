@@ -79,7 +79,7 @@ public class SidesIconProvider implements ISidesIconProvider
 	 */
 	public void setDefaultIcon(String name)
 	{
-		defaultIcon = Icon.from(name);
+		setDefaultIcon(Icon.from(name));
 	}
 
 	/**
@@ -90,6 +90,7 @@ public class SidesIconProvider implements ISidesIconProvider
 	public void setDefaultIcon(Icon icon)
 	{
 		this.defaultIcon = icon;
+		IconCache.clear(this);
 	}
 
 	/**
@@ -130,6 +131,7 @@ public class SidesIconProvider implements ISidesIconProvider
 		if (defaultIcon == null)
 			defaultIcon = icon;
 		sideIcons[side.getIndex()] = icon;
+		IconCache.clear(this);
 	}
 
 	public void setSideIcon(EnumFacing side, String name)
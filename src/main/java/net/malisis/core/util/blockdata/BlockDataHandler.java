@@ -28,10 +28,11 @@ import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.base.Function;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
+import com.google.common.collect.MapMaker;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -65,6 +66,10 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
  * {@link #getData(String, IBlockAccess, BlockPos)} and {@link #removeData(String, IBlockAccess, BlockPos)} with the corresponding
  * identifier.
  *
+ * <p>
+ * Data is stored per side and per {@link Chunk}, and can be read from any thread, including the chunk render threads. Data should only
+ * be written from the thread owning the world.
+ *
  * @author Ordinastie
  */
 @AutoLoad
@@ -85,7 +90,9 @@ public class BlockDataHandler
 	}
 
 	private Map<String, HandlerInfo<?>> handlerInfos = new HashMap<>();
-	private static final ThreadLocal<Table<String, Chunk, ChunkData<?>>> datas = ThreadLocal.withInitial(HashBasedTable::create);
+	/** Data for each chunk, by identifier. Chunks are weakly referenced and compared by identity. */
+	private ConcurrentMap<Chunk, ConcurrentMap<String, ChunkData<?>>> serverDatas = new MapMaker().weakKeys().makeMap();
+	private ConcurrentMap<Chunk, ConcurrentMap<String, ChunkData<?>>> clientDatas = new MapMaker().weakKeys().makeMap();
 
 	public BlockDataHandler()
 	{
@@ -97,6 +104,32 @@ public class BlockDataHandler
 		return handlerInfos;
 	}
 
+	/**
+	 * Gets the data stored for the {@link Chunk}, for the side of its world.
+	 *
+	 * @param chunk the chunk
+	 * @return the datas
+	 */
+	private ConcurrentMap<Chunk, ConcurrentMap<String, ChunkData<?>>> datas(Chunk chunk)
+	{
+		return chunk.getWorld().isRemote ? clientDatas : serverDatas;
+	}
+
+	/**
+	 * Gets the {@link ChunkCache} based on the passed {@link IBlockAccess}, unwrapping the Optifine one if needed.
+	 *
+	 * @param world the world
+	 * @return the chunk cache, or null if the world is not a chunk cache
+	 */
+	private ChunkCache chunkCache(IBlockAccess world)
+	{
+		if (chunkCacheClass != null && chunkCacheField != null && chunkCacheClass.isInstance(world))
+			return Silenced.get(() -> ((ChunkCache) chunkCacheField.get(world)));
+		if (world instanceof ChunkCache)
+			return (ChunkCache) world;
+		return null;
+	}
+
 	/**
 	 * Gets the actual world object based on the passed {@link IBlockAccess}.
 	 *
@@ -107,31 +140,34 @@ public class BlockDataHandler
 	{
 		if (world instanceof World)
 			return (World) world;
-		else if (world instanceof ChunkCache)
-			return ((ChunkCache) world).world;
-
-		if (!FMLClientHandler.instance().hasOptifine())
-			return null;
-		if (chunkCacheClass == null || chunkCacheField != null)
-			return null;
-		if (!chunkCacheClass.isAssignableFrom(world.getClass()))
-			return null;
 
-		return world(Silenced.get(() -> ((ChunkCache) chunkCacheField.get(world))));
+		ChunkCache chunkCache = chunkCache(world);
+		return chunkCache != null ? chunkCache.world : null;
 	}
 
 	/**
-	 * Gets the {@link ChunkData} for the specified identifier and {@link BlockPos}
+	 * Gets the {@link Chunk} at the {@link BlockPos} based on the passed {@link IBlockAccess}.<br>
+	 * For a {@link ChunkCache}, the chunks it holds are used, because the world chunk provider is not safe to use from the chunk render
+	 * threads.
 	 *
-	 * @param <T> the generic type
-	 * @param identifier the identifier
 	 * @param world the world
 	 * @param pos the pos
-	 * @return the chunk data
+	 * @return the chunk, or null if not available
 	 */
-	private <T> ChunkData<T> chunkData(String identifier, World world, BlockPos pos)
+	private Chunk chunk(IBlockAccess world, BlockPos pos)
 	{
-		return world != null ? chunkData(identifier, world, world.getChunk(pos)) : null;
+		if (world instanceof World)
+			return ((World) world).getChunk(pos);
+
+		ChunkCache chunkCache = chunkCache(world);
+		if (chunkCache == null)
+			return null;
+
+		int x = (pos.getX() >> 4) - chunkCache.chunkX;
+		int z = (pos.getZ() >> 4) - chunkCache.chunkZ;
+		if (x < 0 || x >= chunkCache.chunkArray.length || z < 0 || z >= chunkCache.chunkArray[x].length)
+			return null;
+		return chunkCache.chunkArray[x][z];
 	}
 
 	/**
@@ -139,37 +175,52 @@ public class BlockDataHandler
 	 *
 	 * @param <T> the generic type
 	 * @param identifier the identifier
-	 * @param world the world
 	 * @param chunk the chunk
 	 * @return the chunk data
 	 */
 	@SuppressWarnings("unchecked")
-	private <T> ChunkData<T> chunkData(String identifier, World world, Chunk chunk)
+	private <T> ChunkData<T> chunkData(String identifier, Chunk chunk)
 	{
-		Table<String, Chunk, ChunkData<?>> data = datas.get();
-		return (ChunkData<T>) data.get(identifier, chunk);
-
+		if (chunk == null)
+			return null;
+		Map<String, ChunkData<?>> data = datas(chunk).get(chunk);
+		return data != null ? (ChunkData<T>) data.get(identifier) : null;
 	}
 
 	/**
-	 * Creates the {@link ChunkData} for specified identifier for the {@link Chunk} at the {@link BlockPos}.
+	 * Gets the {@link ChunkData} for specified identifier for the {@link Chunk}, creating it if needed.
 	 *
 	 * @param <T> the generic type
 	 * @param identifier the identifier
-	 * @param world the world
-	 * @param pos the pos
+	 * @param chunk the chunk
 	 * @return the chunk data
 	 */
 	@SuppressWarnings("unchecked")
-	private <T> ChunkData<T> createChunkData(String identifier, World world, BlockPos pos)
+	private <T> ChunkData<T> createChunkData(String identifier, Chunk chunk)
 	{
-		Chunk chunk = world.getChunk(pos);
+		return (ChunkData<T>) chunkDatas(chunk).computeIfAbsent(identifier, id -> new ChunkData<>(handlerInfos.get(id)));
+	}
 
-		//System.out.println("createChunkData (" + chunk.xPosition + "/" + chunk.zPosition + ") for " + identifier);
+	/**
+	 * Stores the {@link ChunkData} for the {@link Chunk}.
+	 *
+	 * @param chunk the chunk
+	 * @param chunkData the chunk data
+	 */
+	private void putChunkData(Chunk chunk, ChunkData<?> chunkData)
+	{
+		chunkDatas(chunk).put(chunkData.handlerInfos.identifier, chunkData);
+	}
 
-		ChunkData<T> chunkData = new ChunkData<>((HandlerInfo<T>) handlerInfos.get(identifier));
-		datas.get().put(identifier, chunk, chunkData);
-		return chunkData;
+	/**
+	 * Gets all the {@link ChunkData} for the {@link Chunk}, by identifier, creating the storage if needed.
+	 *
+	 * @param chunk the chunk
+	 * @return the chunk datas
+	 */
+	private ConcurrentMap<String, ChunkData<?>> chunkDatas(Chunk chunk)
+	{
+		return datas(chunk).computeIfAbsent(chunk, c -> new ConcurrentHashMap<>());
 	}
 
 	//#region Events
@@ -193,7 +244,7 @@ public class BlockDataHandler
 			//					+ handlerInfo.identifier);
 			ChunkData<?> chunkData = new ChunkData<>(handlerInfo);
 			chunkData.fromBytes(Unpooled.copiedBuffer(nbt.getByteArray(handlerInfo.identifier)));
-			datas.get().put(handlerInfo.identifier, event.getChunk(), chunkData);
+			putChunkData(event.getChunk(), chunkData);
 		}
 	}
 
@@ -209,7 +260,7 @@ public class BlockDataHandler
 
 		for (HandlerInfo<?> handlerInfo : handlerInfos.values())
 		{
-			ChunkData<?> chunkData = chunkData(handlerInfo.identifier, event.getWorld(), event.getChunk());
+			ChunkData<?> chunkData = chunkData(handlerInfo.identifier, event.getChunk());
 			if (chunkData != null && chunkData.hasData())
 			{
 				//				MalisisCore.message("onDataSave (" + event.getChunk().xPosition + "/" + event.getChunk().zPosition + ") for "
@@ -219,11 +270,11 @@ public class BlockDataHandler
 				nbt.setByteArray(handlerInfo.identifier, buf.capacity(buf.writerIndex()).array());
 			}
 
-			//unload data on save because saving is called after unload
-			if (event.getChunk().unloadQueued)
-				datas.get().remove(handlerInfo.identifier, event.getChunk());
-
 		}
+
+		//unload data on save because saving is called after unload
+		if (event.getChunk().unloadQueued)
+			serverDatas.remove(event.getChunk());
 	}
 
 	/**
@@ -239,10 +290,7 @@ public class BlockDataHandler
 		if (!event.getWorld().isRemote)
 			return;
 
-		for (HandlerInfo<?> handlerInfo : handlerInfos.values())
-		{
-			datas.get().remove(handlerInfo.identifier, event.getChunk());
-		}
+		clientDatas.remove(event.getChunk());
 	}
 
 	/**
@@ -257,7 +305,7 @@ public class BlockDataHandler
 		Chunk chunk = event.getPlayer().world.getChunk(event.getChunk().x, event.getChunk().z);
 		for (HandlerInfo<?> handlerInfo : handlerInfos.values())
 		{
-			ChunkData<?> chunkData = instance.chunkData(handlerInfo.identifier, chunk.getWorld(), chunk);
+			ChunkData<?> chunkData = instance.chunkData(handlerInfo.identifier, chunk);
 			if (chunkData != null && chunkData.hasData())
 				BlockDataMessage.sendBlockData(chunk, handlerInfo.identifier, chunkData.toBytes(Unpooled.buffer()), event.getPlayer());
 		}
@@ -289,7 +337,7 @@ public class BlockDataHandler
 	 */
 	public static <T> T getData(String identifier, IBlockAccess world, BlockPos pos)
 	{
-		ChunkData<T> chunkData = instance.<T> chunkData(identifier, instance.world(world), pos);
+		ChunkData<T> chunkData = instance.<T> chunkData(identifier, instance.chunk(world, pos));
 		return chunkData != null ? chunkData.getData(pos) : null;
 	}
 
@@ -321,9 +369,7 @@ public class BlockDataHandler
 	public static <T> void setData(String identifier, IBlockAccess world, BlockPos pos, T data, boolean sendToClients)
 	{
 		World w = instance.world(world);
-		ChunkData<T> chunkData = instance.<T> chunkData(identifier, w, pos);
-		if (chunkData == null)
-			chunkData = instance.<T> createChunkData(identifier, instance.world(world), pos);
+		ChunkData<T> chunkData = instance.<T> createChunkData(identifier, w.getChunk(pos));
 
 		//MalisisCore.message("SetData " + identifier + " for " + pos + " > " + data);
 		chunkData.setData(pos, data);
@@ -381,7 +427,7 @@ public class BlockDataHandler
 		//MalisisCore.message("Received blockData (" + chunkX + "/" + chunkZ + ") for " + identifier);
 		Chunk chunk = Utils.getClientWorld().getChunk(chunkX, chunkZ);
 		ChunkData<?> chunkData = new ChunkData<>(handlerInfo).fromBytes(data);
-		datas.get().put(handlerInfo.identifier, chunk, chunkData);
+		instance.putChunkData(chunk, chunkData);
 	}
 
 	public static BlockDataHandler get()
@@ -416,7 +462,7 @@ public class BlockDataHandler
 	static class ChunkData<T>
 	{
 		private HandlerInfo<T> handlerInfos;
-		private HashMap<BlockPos, T> data = new HashMap<>();
+		private ConcurrentMap<BlockPos, T> data = new ConcurrentHashMap<>();
 
 		public ChunkData(HandlerInfo<T> handlerInfo)
 		{
@@ -436,7 +482,7 @@ public class BlockDataHandler
 		public void setData(BlockPos pos, T blockData)
 		{
 			if (blockData != null)
-				data.put(pos, blockData);
+				data.put(pos.toImmutable(), blockData);
 			else
 				data.remove(pos);
 		}
@@ -448,7 +494,8 @@ public class BlockDataHandler
 				BlockPos pos = BlockPos.fromLong(buf.readLong());
 				ByteBuf b = buf.readBytes(buf.readInt());
 				T blockData = handlerInfos.fromBytes.apply(b);
-				data.put(pos, blockData);
+				if (blockData != null)
+					data.put(pos, blockData);
 			}
 
 			return this;
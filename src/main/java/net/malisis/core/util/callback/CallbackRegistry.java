@@ -26,14 +26,11 @@ package net.malisis.core.util.callback;
 
 import static com.google.common.base.Preconditions.*;
 
-import java.util.List;
 import java.util.function.BiFunction;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Ordering;
-
 import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.malisis.core.util.callback.ICallback.ICallbackPredicate;
 import net.malisis.core.util.callback.ICallback.Priority;
@@ -41,7 +38,12 @@ import net.malisis.core.util.callback.ICallback.Priority;
 /**
  * A {@link CallbackRegistry} allows the registration and processing of {@link ICallback ICallbacks}.<br>
  * Users are encouraged to have a custom implementation that will expose a more specialized registration and process for the
- * {@code ICallback}.
+ * {@code ICallback}.<br>
+ * Specialized registries called often should process their callbacks with
+ * {@link #processCallbacks(IPredicateInvoker4, ICallbackInvoker4, Object, Object, Object, Object)} (or its 3 and 6 parameters versions) and
+ * non-capturing method references to the typed methods of their {@code ICallback} and {@link ICallbackPredicate}. No array is then
+ * allocated for the parameters, and no allocation happens at all when the callbacks return shared {@link CallbackResult CallbackResults}
+ * like {@link CallbackResult#noResult()}.
  *
  * @author Ordinastie
  * @param <C> the type of {@link ICallback}
@@ -50,8 +52,9 @@ import net.malisis.core.util.callback.ICallback.Priority;
  */
 public class CallbackRegistry<C extends ICallback<V>, P extends ICallbackPredicate, V>
 {
-	/** List of registered {@link ICallback}. */
-	protected List<Pair<C, CallbackOption<P>>> callbacks = Lists.newArrayList();
+	/** Registered {@link ICallback ICallbacks}, sorted by priority. Replaced on registration, so it can be processed from any thread. */
+	@SuppressWarnings("unchecked")
+	protected volatile Pair<C, CallbackOption<P>>[] callbacks = new Pair[0];
 
 	protected BiFunction<CallbackResult<V>, CallbackResult<V>, CallbackResult<V>> reduce = this::doReduce;
 
@@ -68,20 +71,20 @@ public class CallbackRegistry<C extends ICallback<V>, P extends ICallbackPredica
 	}
 
 	/**
-	 * Registers a {@link ICallback} to be call when the {@link ICallbackPredicate} returns true.
+	 * Registers a {@link ICallback} to be call when the {@link ICallbackPredicate} returns true.<br>
+	 * The callback is inserted after the callbacks with the same or a higher priority, so callbacks with the same priority are processed in
+	 * registration order.
 	 *
 	 * @param callback the callback
 	 * @param option the option
 	 */
-	public void registerCallback(C callback, CallbackOption<P> option)
+	public synchronized void registerCallback(C callback, CallbackOption<P> option)
 	{
-		callbacks.add(Pair.of(callback, option));
-		callbacks = Ordering.natural()
-							.reverse()
-							.onResultOf(Priority::ordinal)
-							.onResultOf(CallbackOption<P>::getPriority)
-							.onResultOf(Pair<C, CallbackOption<P>>::getRight)
-							.sortedCopy(callbacks);
+		Pair<C, CallbackOption<P>>[] current = callbacks;
+		int index = 0;
+		while (index < current.length && current[index].getRight().getPriority().ordinal() >= option.getPriority().ordinal())
+			index++;
+		callbacks = ArrayUtils.add(current, index, Pair.of(callback, option));
 	}
 
 	/**
@@ -92,9 +95,6 @@ public class CallbackRegistry<C extends ICallback<V>, P extends ICallbackPredica
 	 */
 	public CallbackResult<V> processCallbacks(Object... params)
 	{
-		if (callbacks.size() == 0)
-			return null;
-
 		CallbackResult<V> result = CallbackResult.noResult();
 		Priority lastPriority = Priority.HIGHEST;
 		for (Pair<C, CallbackOption<P>> pair : callbacks)
@@ -115,4 +115,177 @@ public class CallbackRegistry<C extends ICallback<V>, P extends ICallbackPredica
 
 		return result;
 	}
+
+	/**
+	 * Processes the registered {@link ICallback ICallbacks} according to their priority, passing the parameters to their typed methods.
+	 *
+	 * @param <A> the type of the first parameter
+	 * @param <B> the type of the second parameter
+	 * @param <D> the type of the third parameter
+	 * @param predicateInvoker calls the typed method of the {@link ICallbackPredicate}
+	 * @param callbackInvoker calls the typed method of the {@link ICallback}
+	 * @param a the first parameter
+	 * @param b the second parameter
+	 * @param d the third parameter
+	 * @return the callback result
+	 */
+	protected <A, B, D> CallbackResult<V> processCallbacks(IPredicateInvoker3<P, A, B, D> predicateInvoker,
+			ICallbackInvoker3<C, V, A, B, D> callbackInvoker, A a, B b, D d)
+	{
+		CallbackResult<V> result = CallbackResult.noResult();
+		Priority lastPriority = Priority.HIGHEST;
+		for (Pair<C, CallbackOption<P>> pair : callbacks)
+		{
+			CallbackOption<P> option = pair.getRight();
+			if (result.isCancelled() && option.getPriority() != lastPriority)
+				return result;
+
+			if (option.getPredicate() == null || predicateInvoker.apply(option.getPredicate(), a, b, d))
+			{
+				result = reduce.apply(result, callbackInvoker.call(pair.getLeft(), a, b, d));
+				if (result.isForcedCancelled())
+					return result;
+
+				lastPriority = option.getPriority();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Processes the registered {@link ICallback ICallbacks} according to their priority, passing the parameters to their typed methods.
+	 *
+	 * @param <A> the type of the first parameter
+	 * @param <B> the type of the second parameter
+	 * @param <D> the type of the third parameter
+	 * @param <E> the type of the fourth parameter
+	 * @param predicateInvoker calls the typed method of the {@link ICallbackPredicate}
+	 * @param callbackInvoker calls the typed method of the {@link ICallback}
+	 * @param a the first parameter
+	 * @param b the second parameter
+	 * @param d the third parameter
+	 * @param e the fourth parameter
+	 * @return the callback result
+	 */
+	protected <A, B, D, E> CallbackResult<V> processCallbacks(IPredicateInvoker4<P, A, B, D, E> predicateInvoker,
+			ICallbackInvoker4<C, V, A, B, D, E> callbackInvoker, A a, B b, D d, E e)
+	{
+		CallbackResult<V> result = CallbackResult.noResult();
+		Priority lastPriority = Priority.HIGHEST;
+		for (Pair<C, CallbackOption<P>> pair : callbacks)
+		{
+			CallbackOption<P> option = pair.getRight();
+			if (result.isCancelled() && option.getPriority() != lastPriority)
+				return result;
+
+			if (option.getPredicate() == null || predicateInvoker.apply(option.getPredicate(), a, b, d, e))
+			{
+				result = reduce.apply(result, callbackInvoker.call(pair.getLeft(), a, b, d, e));
+				if (result.isForcedCancelled())
+					return result;
+
+				lastPriority = option.getPriority();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Processes the registered {@link ICallback ICallbacks} according to their priority, passing the parameters to their typed methods.
+	 *
+	 * @param <A> the type of the first parameter
+	 * @param <B> the type of the second parameter
+	 * @param <D> the type of the third parameter
+	 * @param <E> the type of the fourth parameter
+	 * @param <F> the type of the fifth parameter
+	 * @param <G> the type of the sixth parameter
+	 * @param predicateInvoker calls the typed method of the {@link ICallbackPredicate}
+	 * @param callbackInvoker calls the typed method of the {@link ICallback}
+	 * @param a the first parameter
+	 * @param b the second parameter
+	 * @param d the third parameter
+	 * @param e the fourth parameter
+	 * @param f the fifth parameter
+	 * @param g the sixth parameter
+	 * @return the callback result
+	 */
+	protected <A, B, D, E, F, G> CallbackResult<V> processCallbacks(IPredicateInvoker6<P, A, B, D, E, F, G> predicateInvoker,
+			ICallbackInvoker6<C, V, A, B, D, E, F, G> callbackInvoker, A a, B b, D d, E e, F f, G g)
+	{
+		CallbackResult<V> result = CallbackResult.noResult();
+		Priority lastPriority = Priority.HIGHEST;
+		for (Pair<C, CallbackOption<P>> pair : callbacks)
+		{
+			CallbackOption<P> option = pair.getRight();
+			if (result.isCancelled() && option.getPriority() != lastPriority)
+				return result;
+
+			if (option.getPredicate() == null || predicateInvoker.apply(option.getPredicate(), a, b, d, e, f, g))
+			{
+				result = reduce.apply(result, callbackInvoker.call(pair.getLeft(), a, b, d, e, f, g));
+				if (result.isForcedCancelled())
+					return result;
+
+				lastPriority = option.getPriority();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Calls the typed method of a {@link ICallbackPredicate} taking 3 parameters.
+	 */
+	@FunctionalInterface
+	public interface IPredicateInvoker3<P, A, B, D>
+	{
+		public boolean apply(P predicate, A a, B b, D d);
+	}
+
+	/**
+	 * Calls the typed method of a {@link ICallback} taking 3 parameters.
+	 */
+	@FunctionalInterface
+	public interface ICallbackInvoker3<C, V, A, B, D>
+	{
+		public CallbackResult<V> call(C callback, A a, B b, D d);
+	}
+
+	/**
+	 * Calls the typed method of a {@link ICallbackPredicate} taking 4 parameters.
+	 */
+	@FunctionalInterface
+	public interface IPredicateInvoker4<P, A, B, D, E>
+	{
+		public boolean apply(P predicate, A a, B b, D d, E e);
+	}
+
+	/**
+	 * Calls the typed method of a {@link ICallback} taking 4 parameters.
+	 */
+	@FunctionalInterface
+	public interface ICallbackInvoker4<C, V, A, B, D, E>
+	{
+		public CallbackResult<V> call(C callback, A a, B b, D d, E e);
+	}
+
+	/**
+	 * Calls the typed method of a {@link ICallbackPredicate} taking 6 parameters.
+	 */
+	@FunctionalInterface
+	public interface IPredicateInvoker6<P, A, B, D, E, F, G>
+	{
+		public boolean apply(P predicate, A a, B b, D d, E e, F f, G g);
+	}
+
+	/**
+	 * Calls the typed method of a {@link ICallback} taking 6 parameters.
+	 */
+	@FunctionalInterface
+	public interface ICallbackInvoker6<C, V, A, B, D, E, F, G>
+	{
+		public CallbackResult<V> call(C callback, A a, B b, D d, E e, F f, G g);
+	}
 }
@@ -155,6 +155,16 @@ public interface ICallback<T>
 			return priority;
 		}
 
+		/**
+		 * Gets the {@link ICallbackPredicate} held by this {@link ICallback.CallbackOption}.
+		 *
+		 * @return the predicate, or <code>null</code> if the callback should always be called
+		 */
+		public P getPredicate()
+		{
+			return predicate;
+		}
+
 		/**
 		 * Returns the result of the {@link ICallbackPredicate} held by this {@link ICallback.CallbackOption}.
 		 *
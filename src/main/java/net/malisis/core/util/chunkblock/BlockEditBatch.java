@@ -0,0 +1,479 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.util.chunkblock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import net.malisis.core.util.MBlockState;
+import net.malisis.core.util.chunklistener.IBlockListener;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * Sets a large number of blocks in a {@link World}, processing the chunk blocks callbacks per batch rather than per block.<br>
+ * The changes are grouped by {@link Chunk} and applied chunk after chunk with {@link World#setBlockState(BlockPos, IBlockState, int)}, and
+ * while they are applied :
+ * <ul>
+ * <li>the {@link IBlockListener} of a chunk are resolved once, when its first block is set,</li>
+ * <li>{@link IBlockListener.Pre} listeners are still called for every block, and can cancel it,</li>
+ * <li>{@link IBlockListener.Post} listeners receive all the changes in their range in a single
+ * {@link IBlockListener.Post#onBlocksSet(World, BlockPos, List)} call once the batch is applied,</li>
+ * <li>{@link IChunkBlock} coordinates are stored and removed once the batch is applied, resolving each affected chunk once.</li>
+ * </ul>
+ * Consequently, listeners placed by the batch do not receive the changes of that same batch, and listeners removed by the batch do not
+ * receive them either.<br>
+ * Blocks set by other means while the batch is applied (neighbor updates, {@link net.minecraft.block.Block#onBlockAdded}, etc.) are not
+ * part of the batch, and their listeners are processed the regular way.<br>
+ * A {@link BlockEditBatch} is not thread-safe, and must be applied on the thread that is allowed to modify the world.
+ *
+ * @author Ordinastie
+ */
+public class BlockEditBatch
+{
+	private static final ThreadLocal<BlockEditBatch> current = new ThreadLocal<>();
+
+	private final World world;
+	private final int flags;
+	/** Changes to apply, grouped by chunk. */
+	private final Map<Long, ChunkEdit> edits = new LinkedHashMap<>();
+	private int size = 0;
+
+	/** Chunk currently being applied. */
+	private ChunkEdit currentEdit;
+	/** Queued change currently being set, the only one handled by the listeners of the batch. */
+	private MBlockState currentState;
+	/** Changes of {@link IChunkBlock} blocks, stored once the batch is applied. */
+	private final List<Change> chunkBlockChanges = new ArrayList<>();
+	/** Coordinates of the {@link IChunkBlock} blocks replaced during the batch. */
+	private final TLongSet removedChunkBlocks = new TLongHashSet();
+	/** Listeners resolved during the batch, shared by all the chunks they are stored in. */
+	private final TLongObjectMap<Listener<IBlockListener.Pre>> preListeners = new TLongObjectHashMap<>();
+	private final TLongObjectMap<Listener<IBlockListener.Post>> postListeners = new TLongObjectHashMap<>();
+	/** {@link IBlockListener.Post} listeners that received changes, in order. */
+	private final List<Listener<IBlockListener.Post>> notified = new ArrayList<>();
+
+	/**
+	 * Instantiates a new {@link BlockEditBatch} that sets the blocks with the specified flags.
+	 *
+	 * @param world the world
+	 * @param flags the flags, see {@link World#setBlockState(BlockPos, IBlockState, int)}
+	 */
+	public BlockEditBatch(World world, int flags)
+	{
+		this.world = world;
+		this.flags = flags;
+	}
+
+	/**
+	 * Instantiates a new {@link BlockEditBatch} that sends the changes to the clients and notifies the neighbors.
+	 *
+	 * @param world the world
+	 */
+	public BlockEditBatch(World world)
+	{
+		this(world, 3);
+	}
+
+	public World getWorld()
+	{
+		return world;
+	}
+
+	/**
+	 * Gets the number of changes queued in this {@link BlockEditBatch}.
+	 *
+	 * @return the int
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Queues a change of {@link IBlockState} at the {@link BlockPos}.
+	 *
+	 * @param pos the pos
+	 * @param state the state
+	 * @return this {@link BlockEditBatch}
+	 */
+	public BlockEditBatch setBlockState(BlockPos pos, IBlockState state)
+	{
+		pos = pos.toImmutable();
+		Long key = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+		edits.computeIfAbsent(key, k -> new ChunkEdit()).add(new MBlockState(pos, state));
+		size++;
+		return this;
+	}
+
+	/**
+	 * Queues a change of {@link IBlockState}.
+	 *
+	 * @param state the state
+	 * @return this {@link BlockEditBatch}
+	 */
+	public BlockEditBatch setBlockState(MBlockState state)
+	{
+		return setBlockState(state.getPos(), state.getBlockState());
+	}
+
+	/**
+	 * Queues the removal of the block at the {@link BlockPos}.
+	 *
+	 * @param pos the pos
+	 * @return this {@link BlockEditBatch}
+	 */
+	public BlockEditBatch setBlockToAir(BlockPos pos)
+	{
+		return setBlockState(pos, Blocks.AIR.getDefaultState());
+	}
+
+	/**
+	 * Applies all the queued changes to the world, then clears them so this {@link BlockEditBatch} can be reused.<br>
+	 * If setting a block fails, the {@link IChunkBlock} coordinates of the blocks already set are still stored, but the
+	 * {@link IBlockListener.Post} listeners are not notified.
+	 *
+	 * @return the number of blocks actually set
+	 */
+	public int apply()
+	{
+		BlockEditBatch previous = current.get();
+		current.set(this);
+		int set = 0;
+		boolean applied = false;
+		try
+		{
+			for (Map.Entry<Long, ChunkEdit> entry : edits.entrySet())
+			{
+				long key = entry.getKey();
+				currentEdit = entry.getValue();
+				currentEdit.chunk = world.getChunk((int) key, (int) (key >> 32));
+				for (MBlockState state : currentEdit.states)
+				{
+					currentState = state;
+					if (world.setBlockState(state.getPos(), state.getBlockState(), flags))
+						set++;
+				}
+				currentState = null;
+			}
+			applied = true;
+		}
+		finally
+		{
+			currentEdit = null;
+			currentState = null;
+			if (previous != null)
+				current.set(previous);
+			else
+				current.remove();
+			edits.clear();
+			size = 0;
+
+			try
+			{
+				if (!chunkBlockChanges.isEmpty())
+					ChunkBlockHandler.get().handleChunkBlocks(world, chunkBlockChanges);
+
+				if (applied)
+				{
+					for (Listener<IBlockListener.Post> listener : notified)
+						if (!removedChunkBlocks.contains(listener.coord))
+							listener.component.onBlocksSet(world, listener.pos, listener.changes);
+				}
+			}
+			finally
+			{
+				chunkBlockChanges.clear();
+				removedChunkBlocks.clear();
+				preListeners.clear();
+				postListeners.clear();
+				notified.clear();
+			}
+		}
+
+		return set;
+	}
+
+	/**
+	 * Gets the {@link BlockEditBatch} being applied on the current thread for the {@link World}.
+	 *
+	 * @param world the world
+	 * @return the batch, or <code>null</code>
+	 */
+	public static BlockEditBatch current(World world)
+	{
+		BlockEditBatch batch = current.get();
+		return batch != null && batch.world == world ? batch : null;
+	}
+
+	/**
+	 * Gets the {@link BlockEditBatch} being applied on the current thread, if the change is the one it is currently setting.<br>
+	 * Blocks set while that change is applied (neighbor updates, {@link net.minecraft.block.Block#onBlockAdded}, etc.) are not part of the
+	 * batch.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param newState the new state
+	 * @return the batch, or <code>null</code>
+	 */
+	public static BlockEditBatch current(Chunk chunk, BlockPos pos, IBlockState newState)
+	{
+		BlockEditBatch batch = current.get();
+		if (batch == null || batch.currentState == null || batch.currentEdit.chunk != chunk)
+			return null;
+		return batch.currentState.getBlockState() == newState && batch.currentState.getPos().equals(pos) ? batch : null;
+	}
+
+	/**
+	 * Defers the storage of the {@link IChunkBlock} coordinates until the batch is applied.
+	 *
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @param removed whether the old block was an {@link IChunkBlock}
+	 */
+	void deferChunkBlock(BlockPos pos, IBlockState oldState, IBlockState newState, boolean removed)
+	{
+		pos = pos.toImmutable();
+		chunkBlockChanges.add(new Change(pos, oldState, newState));
+		if (removed)
+			removedChunkBlocks.add(pos.toLong());
+	}
+
+	/**
+	 * Calls the {@link IBlockListener.Pre} listeners of the current chunk in range of the {@link BlockPos}.
+	 *
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return true, if the block can be set, false if a listener cancelled it
+	 */
+	public boolean processPreListeners(BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		if (currentEdit.preListeners == null)
+			currentEdit.preListeners = resolveListeners(IBlockListener.Pre.class, preListeners);
+
+		for (Listener<IBlockListener.Pre> listener : currentEdit.preListeners[section(pos.getY())])
+		{
+			if (listener.accepts(pos) && !removedChunkBlocks.contains(listener.coord)
+					&& !listener.component.onBlockSet(world, listener.pos, pos, oldState, newState))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Records the change for the {@link IBlockListener.Post} listeners of the current chunk in range of the {@link BlockPos}.
+	 *
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 */
+	public void processPostListeners(BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		//the change is set, anything set until the next one is not part of the batch
+		currentState = null;
+		if (currentEdit.postListeners == null)
+			currentEdit.postListeners = resolveListeners(IBlockListener.Post.class, postListeners);
+
+		Change change = null;
+		for (Listener<IBlockListener.Post> listener : currentEdit.postListeners[section(pos.getY())])
+		{
+			if (!listener.accepts(pos))
+				continue;
+			if (change == null)
+				change = new Change(pos.toImmutable(), oldState, newState);
+			if (listener.changes.isEmpty())
+				notified.add(listener);
+			listener.changes.add(change);
+		}
+	}
+
+	/**
+	 * Resolves the listeners stored in the current chunk whose range intersects the changes of that chunk.<br>
+	 * Listeners already resolved for another chunk of the batch are reused, so that they receive their changes only once.
+	 *
+	 * @param type the type
+	 * @param resolved the listeners already resolved
+	 * @return the listeners for each section
+	 */
+	private <T extends IChunkBlock> Listener<T>[][] resolveListeners(Class<T> type, TLongObjectMap<Listener<T>> resolved)
+	{
+		List<Listener<T>> listeners = new ArrayList<>();
+		ChunkBlockHandler.get().forEachComponent(currentEdit.chunk, currentEdit.bounds(), type, (coord, component) -> {
+			Listener<T> listener = resolved.get(coord);
+			if (listener == null)
+			{
+				listener = new Listener<>(BlockPos.fromLong(coord), component);
+				resolved.put(coord, listener);
+			}
+			listeners.add(listener);
+			return true;
+		});
+		return bySection(listeners);
+	}
+
+	/**
+	 * Splits the listeners by the 16 blocks high sections their range reaches.
+	 *
+	 * @param listeners the listeners
+	 * @return the listeners for each section
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends IChunkBlock> Listener<T>[][] bySection(List<Listener<T>> listeners)
+	{
+		List<Listener<T>>[] lists = new List[16];
+		for (int s = 0; s < 16; s++)
+			lists[s] = new ArrayList<>();
+		for (Listener<T> listener : listeners)
+			for (int s = section(listener.minY); s <= section(listener.maxY); s++)
+				lists[s].add(listener);
+
+		Listener<T>[][] sections = new Listener[16][];
+		for (int s = 0; s < 16; s++)
+			sections[s] = lists[s].toArray(new Listener[0]);
+		return sections;
+	}
+
+	private static int section(int y)
+	{
+		return Math.min(Math.max(y >> 4, 0), 15);
+	}
+
+	/**
+	 * Changes queued for a single {@link Chunk}.
+	 */
+	private static class ChunkEdit
+	{
+		private final List<MBlockState> states = new ArrayList<>();
+		private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+		private int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+		private Chunk chunk;
+		private Listener<IBlockListener.Pre>[][] preListeners;
+		private Listener<IBlockListener.Post>[][] postListeners;
+
+		private void add(MBlockState state)
+		{
+			states.add(state);
+			minX = Math.min(minX, state.getX());
+			minY = Math.min(minY, state.getY());
+			minZ = Math.min(minZ, state.getZ());
+			maxX = Math.max(maxX, state.getX());
+			maxY = Math.max(maxY, state.getY());
+			maxZ = Math.max(maxZ, state.getZ());
+		}
+
+		private AxisAlignedBB bounds()
+		{
+			return new AxisAlignedBB(minX, minY, minZ, maxX, maxY, maxZ);
+		}
+	}
+
+	/**
+	 * Listener resolved for a batch, along with its component and range box.
+	 */
+	private static class Listener<T extends IChunkBlock>
+	{
+		final BlockPos pos;
+		final long coord;
+		final T component;
+		final int minX, minY, minZ, maxX, maxY, maxZ;
+		final List<Change> changes = new ArrayList<>();
+
+		Listener(BlockPos pos, T component)
+		{
+			int range = component.blockRange();
+			this.pos = pos;
+			this.coord = pos.toLong();
+			this.component = component;
+			this.minX = pos.getX() - range;
+			this.minY = pos.getY() - range;
+			this.minZ = pos.getZ() - range;
+			this.maxX = pos.getX() + range;
+			this.maxY = pos.getY() + range;
+			this.maxZ = pos.getZ() + range;
+		}
+
+		/**
+		 * Checks whether the modified {@link BlockPos} should be passed to this {@link Listener}.
+		 *
+		 * @param modified the modified
+		 * @return true, if the position is in range and is not the listener itself
+		 */
+		boolean accepts(BlockPos modified)
+		{
+			int x = modified.getX(), y = modified.getY(), z = modified.getZ();
+			if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ)
+				return false;
+			if (x == pos.getX() && y == pos.getY() && z == pos.getZ())
+				return false;
+			return component.isInRange(pos, modified);
+		}
+	}
+
+	/**
+	 * A block change applied by a {@link BlockEditBatch}.
+	 */
+	public static class Change
+	{
+		private final BlockPos pos;
+		private final IBlockState oldState;
+		private final IBlockState newState;
+
+		public Change(BlockPos pos, IBlockState oldState, IBlockState newState)
+		{
+			this.pos = pos;
+			this.oldState = oldState;
+			this.newState = newState;
+		}
+
+		public BlockPos getPos()
+		{
+			return pos;
+		}
+
+		public IBlockState getOldState()
+		{
+			return oldState;
+		}
+
+		public IBlockState getNewState()
+		{
+			return newState;
+		}
+	}
+}
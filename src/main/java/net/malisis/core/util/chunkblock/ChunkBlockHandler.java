@@ -25,14 +25,18 @@
 package net.malisis.core.util.chunkblock;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.ArrayUtils;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
+import com.google.common.collect.MapMaker;
 
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.procedure.TLongProcedure;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -43,24 +47,29 @@ import net.malisis.core.registry.MalisisRegistry;
 import net.malisis.core.util.MBlockPos;
 import net.malisis.core.util.MBlockState;
 import net.malisis.core.util.Utils;
-import net.malisis.core.util.WeakNested;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.malisis.core.util.callback.ICallback.Priority;
+import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockPos.MutableBlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.util.Constants.NBT;
 import net.minecraftforge.event.world.ChunkDataEvent;
 import net.minecraftforge.event.world.ChunkWatchEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 
 /**
  * This class is the entry point for blocks that need to stored inside a chunk for later processing.<br>
- * The static methods are called via ASM which then call the process for the corresponding server or client instance.
+ * The static methods are called via ASM which then call the process for the corresponding server or client instance.<br>
+ * The coordinates can be added, removed and queried from any thread, so chunk blocks can be placed by asynchronous world generation.
  *
  * @author Ordinastie
  *
@@ -69,12 +78,14 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 public class ChunkBlockHandler
 {
 	private static ChunkBlockHandler instance = new ChunkBlockHandler();
+	/** NBT key for the coordinates saved with the chunk. */
+	private static final String NBT_KEY = "chunkNotifier";
+	/** Current version of the NBT format. The legacy format is a raw byte array, without version. */
+	private static final int NBT_VERSION = 1;
 
-	private WeakNested.Set<Chunk, BlockPos> serverChunks = new WeakNested.Set<>(Sets::newHashSet);
-	private WeakNested.Set<Chunk, BlockPos> clientChunks = new WeakNested.Set<>(Sets::newHashSet);
-
-	//	private Map<Chunk, List<BlockPos>> serverChunks = new WeakHashMap<>();
-	//	private Map<Chunk, List<BlockPos>> clientChunks = new WeakHashMap<>();
+	/** Coordinates stored for each chunk, packed with {@link BlockPos#toLong()}. Chunks are weakly referenced and compared by identity. */
+	private ConcurrentMap<Chunk, ChunkBlockIndex> serverChunks = new MapMaker().weakKeys().makeMap();
+	private ConcurrentMap<Chunk, ChunkBlockIndex> clientChunks = new MapMaker().weakKeys().makeMap();
 
 	public ChunkBlockHandler()
 	{
@@ -82,43 +93,199 @@ public class ChunkBlockHandler
 		MalisisRegistry.onPreSetBlock(this::handleChunkBlock, CallbackOption.of(Priority.LOWEST));
 	}
 
-	public WeakNested.Set<Chunk, BlockPos> chunks(Chunk chunk)
+	private ConcurrentMap<Chunk, ChunkBlockIndex> chunks(Chunk chunk)
 	{
 		return chunk.getWorld().isRemote ? clientChunks : serverChunks;
 	}
 
 	/**
-	 * Gets all the coordinates stored in the chunk.<br>
-	 * If no coordinates are stored for the chunk, saves the newList for it.
+	 * Gets the {@link ChunkBlockIndex} for the chunk, creating it if needed.<br>
+	 * Indexes are kept for as long as the chunk is loaded, even when empty, so that a concurrent addition is never lost.
 	 *
 	 * @param chunk the chunk
-	 * @return the coords
+	 * @return the index
 	 */
-	//	private Optional<List<BlockPos>> getCoords(Chunk chunk, List<BlockPos> newList)
-	//	{
-	//		Optional<List<BlockPos>> o = getCoords(chunk);
-	//		if (o.isPresent())
-	//			return o;
-	//
-	//		(chunk.getWorld().isRemote ? clientChunks : serverChunks).put(chunk, newList);
-	//		return Optional.of(newList);
-	//	}
+	private ChunkBlockIndex getOrCreateIndex(Chunk chunk)
+	{
+		return chunks(chunk).computeIfAbsent(chunk, c -> new ChunkBlockIndex());
+	}
 
 	/**
-	 * Gets all the coordinates stored in the chunk.
+	 * Gets all the coordinates stored in the chunk, packed with {@link BlockPos#toLong()}.<br>
+	 * The returned array is the current snapshot used by the index and is not copied, it must not be modified.
 	 *
 	 * @param chunk the chunk
 	 * @return the coords
 	 */
-	//	public Optional<List<BlockPos>> getCoords(Chunk chunk)
-	//	{
-	//		Map<Chunk, List<BlockPos>> chunks = chunk.getWorld().isRemote ? clientChunks : serverChunks;
-	//		return Optional.ofNullable(chunks.get(chunk));
-	//	}
+	public long[] getCoords(Chunk chunk)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index != null ? index.coords() : ArrayUtils.EMPTY_LONG_ARRAY;
+	}
+
+	/**
+	 * Checks whether coordinates are stored in the chunk, without building the coordinates snapshot.
+	 *
+	 * @param chunk the chunk
+	 * @return true, if at least one coordinate is stored
+	 */
+	public boolean hasCoords(Chunk chunk)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index != null && !index.isEmpty();
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for each coordinate stored in the chunk, without copying them.<br>
+	 * The iteration stops when the procedure returns <code>false</code>.
+	 *
+	 * @param chunk the chunk
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates
+	 */
+	public boolean forEachCoord(Chunk chunk, TLongProcedure procedure)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index == null || index.forEach(procedure);
+	}
+
+	/**
+	 * Gets the version of the coordinates stored in the chunk, which changes every time a coordinate is added, removed or resolved.
+	 *
+	 * @param chunk the chunk
+	 * @return the version, or -1 if no coordinate was ever stored in the chunk
+	 */
+	public int getVersion(Chunk chunk)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index != null ? index.version() : -1;
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for each coordinate stored in the chunk whose block has the component.<br>
+	 * The iteration stops when the procedure returns <code>false</code>.
+	 *
+	 * @param chunk the chunk
+	 * @param type the component the block must have
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public boolean forEachCoord(Chunk chunk, Class<?> type, TLongProcedure procedure)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index == null
+				|| index.forEach(	chunk.getWorld(),
+									Integer.MIN_VALUE,
+									Integer.MIN_VALUE,
+									Integer.MIN_VALUE,
+									Integer.MAX_VALUE,
+									Integer.MAX_VALUE,
+									Integer.MAX_VALUE,
+									type,
+									procedure);
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for each coordinate stored in the chunk whose {@link IChunkBlock#blockRange() range} intersects the
+	 * {@link AxisAlignedBB}, and whose block has the component.<br>
+	 * The range is only checked for {@link net.malisis.core.util.chunklistener.IBlockListener IBlockListener} components.<br>
+	 * The iteration stops when the procedure returns <code>false</code>.
+	 *
+	 * @param chunk the chunk
+	 * @param bounds the bounds
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public boolean forEachCoord(Chunk chunk, AxisAlignedBB bounds, Class<?> type, TLongProcedure procedure)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index == null || index.forEach(chunk.getWorld(), bounds, type, procedure);
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for each coordinate stored in the chunk whose {@link IChunkBlock#blockRange() range} contains the
+	 * {@link BlockPos}, and whose block has the component.<br>
+	 * The range is only checked for {@link net.malisis.core.util.chunklistener.IBlockListener IBlockListener} components.<br>
+	 * The iteration stops when the procedure returns <code>false</code>.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public boolean forEachCoord(Chunk chunk, BlockPos pos, Class<?> type, TLongProcedure procedure)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index == null || index.forEach(chunk.getWorld(), pos, type, procedure);
+	}
+
+	/**
+	 * Calls the {@link IComponentProcedure} for each coordinate stored in the chunk whose block has the component, with that component.<br>
+	 * The iteration stops when the procedure returns <code>false</code>.
+	 *
+	 * @param <T> the type of the component
+	 * @param chunk the chunk
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public <T> boolean forEachComponent(Chunk chunk, Class<T> type, IComponentProcedure<? super T> procedure)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index == null
+				|| index.forEach(	chunk.getWorld(),
+									Integer.MIN_VALUE,
+									Integer.MIN_VALUE,
+									Integer.MIN_VALUE,
+									Integer.MAX_VALUE,
+									Integer.MAX_VALUE,
+									Integer.MAX_VALUE,
+									type,
+									procedure);
+	}
+
+	/**
+	 * Calls the {@link IComponentProcedure} for each coordinate stored in the chunk whose {@link IChunkBlock#blockRange() range} intersects
+	 * the {@link AxisAlignedBB}, and whose block has the component, with that component.<br>
+	 * The iteration stops when the procedure returns <code>false</code>.
+	 *
+	 * @param <T> the type of the component
+	 * @param chunk the chunk
+	 * @param bounds the bounds
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public <T> boolean forEachComponent(Chunk chunk, AxisAlignedBB bounds, Class<T> type, IComponentProcedure<? super T> procedure)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index == null || index.forEach(chunk.getWorld(), bounds, type, procedure);
+	}
+
+	/**
+	 * Calls the {@link IComponentProcedure} for each coordinate stored in the chunk whose {@link IChunkBlock#blockRange() range} contains
+	 * the {@link BlockPos}, and whose block has the component, with that component.<br>
+	 * The iteration stops when the procedure returns <code>false</code>.
+	 *
+	 * @param <T> the type of the component
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public <T> boolean forEachComponent(Chunk chunk, BlockPos pos, Class<T> type, IComponentProcedure<? super T> procedure)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		return index == null || index.forEach(chunk.getWorld(), pos, type, procedure);
+	}
 
 	/**
 	 * Stores the coordinate in the chunk data if newState blocks has a {@link IChunkBlock} component.<br>
-	 * Removes the stored coordinate from the chunk data if oldState has {@link IChunkBlock} component.
+	 * Removes the stored coordinate from the chunk data if oldState has {@link IChunkBlock} component.<br>
+	 * When the block is set by a {@link BlockEditBatch}, the coordinates are stored once the batch is applied.
 	 *
 	 * @param chunk the chunk
 	 * @param pos the pos
@@ -128,37 +295,96 @@ public class ChunkBlockHandler
 	 */
 	private CallbackResult<Void> handleChunkBlock(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
 	{
-		IChunkBlock cb = IComponent.getComponent(IChunkBlock.class, oldState.getBlock());
-		if (cb != null)
-			removeCoord(chunk.getWorld(), pos, cb.blockRange());
+		IChunkBlock oldCb = IComponent.getComponent(IChunkBlock.class, oldState.getBlock());
+		IChunkBlock newCb = IComponent.getComponent(IChunkBlock.class, newState.getBlock());
+		if (oldCb == null && newCb == null)
+			return CallbackResult.noResult();
+
+		BlockEditBatch batch = BlockEditBatch.current(chunk.getWorld());
+		if (batch != null)
+		{
+			batch.deferChunkBlock(pos, oldState, newState, oldCb != null);
+			return CallbackResult.noResult();
+		}
+
+		if (oldCb != null)
+			removeCoord(chunk.getWorld(), pos, oldCb.blockRange());
 		//TODO: use post ?
-		cb = IComponent.getComponent(IChunkBlock.class, newState.getBlock());
-		if (cb != null)
-			addCoord(chunk.getWorld(), pos, cb.blockRange());
+		if (newCb != null)
+			addCoord(chunk.getWorld(), pos, newState.getBlock(), newCb.blockRange());
 		return CallbackResult.noResult();
 	}
 
 	/**
-	 * Adds a coordinate for the {@link Chunk Chunks} around {@link BlockPos}.
+	 * Stores and removes the coordinates for the changes deferred by a {@link BlockEditBatch}, in order.<br>
+	 * Each affected chunk is looked up once for the whole batch.
+	 *
+	 * @param world the world
+	 * @param changes the changes
+	 */
+	void handleChunkBlocks(World world, List<BlockEditBatch.Change> changes)
+	{
+		TLongObjectMap<Chunk> loaded = new TLongObjectHashMap<>();
+		for (BlockEditBatch.Change change : changes)
+		{
+			BlockPos pos = change.getPos();
+			long coord = pos.toLong();
+			IChunkBlock cb = IComponent.getComponent(IChunkBlock.class, change.getOldState().getBlock());
+			if (cb != null)
+				forEachAffectedChunk(world, loaded, pos, cb.blockRange(), chunk -> removeCoord(chunk, coord));
+
+			Block block = change.getNewState().getBlock();
+			cb = IComponent.getComponent(IChunkBlock.class, block);
+			if (cb == null)
+				continue;
+			int range = cb.blockRange();
+			forEachAffectedChunk(world, loaded, pos, range, chunk -> getOrCreateIndex(chunk).add(coord, block, range));
+		}
+	}
+
+	/**
+	 * Calls the {@link Consumer} for each loaded {@link Chunk} inside distance from the {@link BlockPos}.<br>
+	 * Chunks are looked up once and kept in the <code>loaded</code> map, <code>null</code> if not loaded.
 	 *
 	 * @param world the world
+	 * @param loaded the chunks already looked up
 	 * @param pos the pos
-	 * @param size the size
+	 * @param distance the distance
+	 * @param consumer the consumer
 	 */
-	private void addCoord(World world, BlockPos pos, int size)
+	private void forEachAffectedChunk(World world, TLongObjectMap<Chunk> loaded, BlockPos pos, int distance, Consumer<Chunk> consumer)
 	{
-		getAffectedChunks(world, pos.getX(), pos.getZ(), size).forEach(c -> addCoord(c, pos));
+		for (int cx = (pos.getX() - distance) >> 4; cx <= (pos.getX() + distance + 1) >> 4; cx++)
+		{
+			for (int cz = (pos.getZ() - distance) >> 4; cz <= (pos.getZ() + distance + 1) >> 4; cz++)
+			{
+				long key = ChunkPos.asLong(cx, cz);
+				Chunk chunk = loaded.get(key);
+				if (chunk == null && !loaded.containsKey(key))
+				{
+					if (world.getChunkProvider() != null && world.getChunkProvider().getLoadedChunk(cx, cz) != null)
+						chunk = world.getChunk(cx, cz);
+					loaded.put(key, chunk);
+				}
+				if (chunk != null)
+					consumer.accept(chunk);
+			}
+		}
 	}
 
 	/**
-	 * Adds a coordinate for the specified {@link Chunk}.
+	 * Adds a coordinate for the {@link Chunk Chunks} around {@link BlockPos}.
 	 *
-	 * @param chunk the chunk
+	 * @param world the world
 	 * @param pos the pos
+	 * @param block the block
+	 * @param size the size
 	 */
-	private void addCoord(Chunk chunk, BlockPos pos)
+	private void addCoord(World world, BlockPos pos, Block block, int size)
 	{
-		chunks(chunk).add(chunk, pos);
+		long coord = pos.toLong();
+		for (Chunk chunk : getAffectedChunks(world, pos.getX(), pos.getZ(), size))
+			getOrCreateIndex(chunk).add(coord, block, size);
 	}
 
 	/**
@@ -170,18 +396,36 @@ public class ChunkBlockHandler
 	 */
 	private void removeCoord(World world, BlockPos pos, int size)
 	{
-		getAffectedChunks(world, pos.getX(), pos.getZ(), size).forEach(c -> removeCoord(c, pos));
+		long coord = pos.toLong();
+		for (Chunk chunk : getAffectedChunks(world, pos.getX(), pos.getZ(), size))
+			removeCoord(chunk, coord);
 	}
 
 	/**
 	 * Removes a coordinate from the specified {@link Chunk}.
 	 *
 	 * @param chunk the chunk
-	 * @param pos the pos
+	 * @param coord the coord
+	 */
+	private void removeCoord(Chunk chunk, long coord)
+	{
+		ChunkBlockIndex index = chunks(chunk).get(chunk);
+		if (index == null)
+			return;
+		index.remove(coord);
+	}
+
+	/**
+	 * Adds all the coordinates to the specified {@link Chunk}.<br>
+	 * The blocks are not known yet, so the coordinates are resolved against the world on the next query.
+	 *
+	 * @param chunk the chunk
+	 * @param newCoords the new coords
 	 */
-	private void removeCoord(Chunk chunk, BlockPos pos)
+	private void addCoords(Chunk chunk, long[] newCoords)
 	{
-		chunks(chunk).remove(chunk, pos);
+		if (newCoords.length != 0)
+			getOrCreateIndex(chunk).addUnresolved(newCoords);
 	}
 
 	//#end updateCoordinates
@@ -189,15 +433,23 @@ public class ChunkBlockHandler
 	//#region Events
 	/**
 	 * Called when a {@link Chunk} is loaded on the server.<br>
-	 * Reads the coordinates saved in the Chunk's NBT.
+	 * Reads the coordinates saved in the Chunk's NBT, in the current or the legacy format.
 	 *
 	 * @param event the event
 	 */
 	@SubscribeEvent
 	public void onDataLoad(ChunkDataEvent.Load event)
 	{
-		if (event.getData().hasKey("chunkNotifier"))
-			chunks(event.getChunk()).addAll(event.getChunk(), readLongArray(event.getData()));
+		NBTTagCompound data = event.getData();
+		switch (data.getTagId(NBT_KEY))
+		{
+			case NBT.TAG_COMPOUND:
+				addCoords(event.getChunk(), readCoords(event.getChunk(), data.getCompoundTag(NBT_KEY)));
+				break;
+			case NBT.TAG_BYTE_ARRAY:
+				addCoords(event.getChunk(), readLongArray(data));
+				break;
+		}
 	}
 
 	/**
@@ -209,41 +461,132 @@ public class ChunkBlockHandler
 	@SubscribeEvent
 	public void onDataSave(ChunkDataEvent.Save event)
 	{
-		Set<BlockPos> coords = chunks(event.getChunk()).get(event.getChunk());
-		if (!coords.isEmpty())
-			writeLongArray(event.getData(), coords);
+		long[] coords = getCoords(event.getChunk());
+		if (coords.length != 0)
+			event.getData().setTag(NBT_KEY, writeCoords(event.getChunk(), coords));
 	}
 
 	/**
-	 * Reads a long array from {@link NBTTagCompound}.<br>
-	 * From IvNBTHelper.readNBTLongs()
+	 * Reads the coordinates from the {@link NBTTagCompound} written by {@link #writeCoords(Chunk, long[])}.<br>
+	 * The coordinates are packed with {@link BlockPos#toLong()} without creating a {@code BlockPos} for each of them.
 	 *
-	 * @author Ivorius
+	 * @param chunk the chunk
 	 * @param compound the compound
-	 * @return the long[]
+	 * @return the coords
+	 */
+	private long[] readCoords(Chunk chunk, NBTTagCompound compound)
+	{
+		int version = compound.getInteger("version");
+		if (version != NBT_VERSION)
+		{
+			MalisisCore.log.error("[ChunkBlockHandler] Unknown chunkNotifier version {} in chunk {},{}, ignoring it.",
+									version,
+									chunk.x,
+									chunk.z);
+			return ArrayUtils.EMPTY_LONG_ARRAY;
+		}
+
+		PacketBuffer buf = new PacketBuffer(Unpooled.wrappedBuffer(compound.getByteArray("data")));
+		MutableBlockPos pos = new MutableBlockPos();
+		int originX = chunk.x << 4;
+		int originZ = chunk.z << 4;
+		int localCount = buf.readVarInt();
+		int externalCount = buf.readVarInt();
+		long[] coords = new long[localCount + externalCount];
+
+		int packed = 0;
+		for (int i = 0; i < localCount; i++)
+		{
+			packed += buf.readVarInt();
+			coords[i] = pos.setPos(originX + (packed & 15), packed >> 8, originZ + ((packed >> 4) & 15)).toLong();
+		}
+		for (int i = localCount; i < coords.length; i++)
+		{
+			int x = originX + zigZagDecode(buf.readVarInt());
+			int y = zigZagDecode(buf.readVarInt());
+			int z = originZ + zigZagDecode(buf.readVarInt());
+			coords[i] = pos.setPos(x, y, z).toLong();
+		}
+		return coords;
+	}
+
+	/**
+	 * Writes the coordinates into a versioned {@link NBTTagCompound}.<br>
+	 * Coordinates inside the chunk are packed on 16 bits relative to the chunk (y << 8 | z << 4 | x), sorted and written as varint deltas,
+	 * which takes one or two bytes each. Coordinates of the neighboring chunk blocks whose range reaches this chunk are written as zigzag
+	 * varints relative to the chunk.
+	 *
+	 * @param chunk the chunk
+	 * @param coords the coords
+	 * @return the NBT tag compound
 	 */
-	private Set<BlockPos> readLongArray(NBTTagCompound compound)
+	private NBTTagCompound writeCoords(Chunk chunk, long[] coords)
 	{
-		ByteBuf bytes = Unpooled.copiedBuffer(compound.getByteArray("chunkNotifier"));
-		Set<BlockPos> set = Sets.newHashSet();
-		for (int i = 0; i < bytes.capacity() / 8; i++)
-			set.add(BlockPos.fromLong(bytes.readLong()));
-		return set;
+		int originX = chunk.x << 4;
+		int originZ = chunk.z << 4;
+		int[] local = new int[coords.length];
+		int localCount = 0;
+		List<BlockPos> external = new ArrayList<>();
+		for (long coord : coords)
+		{
+			BlockPos pos = BlockPos.fromLong(coord);
+			int x = pos.getX() - originX;
+			int z = pos.getZ() - originZ;
+			if (x >= 0 && x < 16 && z >= 0 && z < 16 && pos.getY() >= 0 && pos.getY() < 256)
+				local[localCount++] = pos.getY() << 8 | z << 4 | x;
+			else
+				external.add(pos);
+		}
+		Arrays.sort(local, 0, localCount);
+
+		PacketBuffer buf = new PacketBuffer(Unpooled.buffer(localCount * 2 + external.size() * 6 + 10));
+		buf.writeVarInt(localCount);
+		buf.writeVarInt(external.size());
+		int previous = 0;
+		for (int i = 0; i < localCount; i++)
+		{
+			buf.writeVarInt(local[i] - previous);
+			previous = local[i];
+		}
+		for (BlockPos pos : external)
+		{
+			buf.writeVarInt(zigZagEncode(pos.getX() - originX));
+			buf.writeVarInt(zigZagEncode(pos.getY()));
+			buf.writeVarInt(zigZagEncode(pos.getZ() - originZ));
+		}
+
+		NBTTagCompound compound = new NBTTagCompound();
+		compound.setInteger("version", NBT_VERSION);
+		compound.setByteArray("data", Arrays.copyOf(buf.array(), buf.writerIndex()));
+		return compound;
+	}
+
+	private static int zigZagEncode(int value)
+	{
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int zigZagDecode(int value)
+	{
+		return (value >>> 1) ^ -(value & 1);
 	}
 
 	/**
-	 * Write long array into {@link NBTTagCompound}.<br>
-	 * From IvNBTHelper.writeNBTLongs()
+	 * Reads a long array from {@link NBTTagCompound}.<br>
+	 * Only used for the legacy format, where the coordinates were written as raw {@link BlockPos#toLong()}.<br>
+	 * From IvNBTHelper.readNBTLongs()
 	 *
 	 * @author Ivorius
 	 * @param compound the compound
-	 * @param longs the longs
+	 * @return the long[]
 	 */
-	private void writeLongArray(NBTTagCompound compound, Set<BlockPos> set)
+	private long[] readLongArray(NBTTagCompound compound)
 	{
-		ByteBuf bytes = Unpooled.buffer(set.size() * 8);
-		set.forEach(p -> bytes.writeLong(p.toLong()));
-		compound.setByteArray("chunkNotifier", bytes.array());
+		ByteBuf bytes = Unpooled.wrappedBuffer(compound.getByteArray(NBT_KEY));
+		long[] coords = new long[bytes.capacity() / 8];
+		for (int i = 0; i < coords.length; i++)
+			coords[i] = bytes.readLong();
+		return coords;
 	}
 
 	/**
@@ -256,8 +599,8 @@ public class ChunkBlockHandler
 	public void onChunkWatched(ChunkWatchEvent.Watch event)
 	{
 		Chunk chunk = event.getPlayer().world.getChunk(event.getChunk().x, event.getChunk().z);
-		Set<BlockPos> coords = chunks(chunk).get(chunk);
-		if (!coords.isEmpty())
+		long[] coords = getCoords(chunk);
+		if (coords.length != 0)
 			ChunkBlockMessage.sendCoords(chunk, coords, event.getPlayer());
 	}
 
@@ -269,10 +612,10 @@ public class ChunkBlockHandler
 	 * @param chunkZ the chunk z
 	 * @param coords the coords
 	 */
-	public void setCoords(int chunkX, int chunkZ, Set<BlockPos> coords)
+	public void setCoords(int chunkX, int chunkZ, long[] coords)
 	{
 		Chunk chunk = Utils.getClientWorld().getChunk(chunkX, chunkZ);
-		chunks(chunk).addAll(chunk, coords);
+		addCoords(chunk, coords);
 	}
 
 	//#end Events
@@ -333,6 +676,24 @@ public class ChunkBlockHandler
 		return instance;
 	}
 
+	/**
+	 * Procedure called for a coordinate stored inside a {@link Chunk}, along with the component of the block stored for that coordinate.
+	 *
+	 * @param <T> the type of the component
+	 */
+	@FunctionalInterface
+	public interface IComponentProcedure<T>
+	{
+		/**
+		 * Executes this {@link IComponentProcedure} for the coordinate.
+		 *
+		 * @param coord the coord, packed with {@link BlockPos#toLong()}
+		 * @param component the component, <code>null</code> if no component type was queried
+		 * @return true, to continue with the next coordinate
+		 */
+		public boolean execute(long coord, T component);
+	}
+
 	/**
 	 * This class is the base for a process that is to be called for every coordinate stored inside a {@link Chunk}.
 	 */
@@ -371,7 +732,7 @@ public class ChunkBlockHandler
 										state,
 										chunk.x,
 										chunk.z);
-				get().removeCoord(chunk, state.getPos());
+				get().removeCoord(chunk, coord);
 				return false;
 			}
 
@@ -0,0 +1,485 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.util.chunkblock;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.procedure.TLongProcedure;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import net.malisis.core.MalisisCore;
+import net.malisis.core.block.IComponent;
+import net.malisis.core.util.chunkblock.ChunkBlockHandler.IComponentProcedure;
+import net.malisis.core.util.chunklistener.IBlockListener;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+/**
+ * Spatial index of the {@link IChunkBlock} coordinates stored for a {@link net.minecraft.world.chunk.Chunk Chunk}.<br>
+ * Each coordinate keeps the {@link Block} and the {@link IChunkBlock#blockRange() range} it was registered with, and is put in a bucket for
+ * every 16 blocks high section its range reaches. Queries for {@link IBlockListener} components only visit the buckets overlapping the
+ * queried bounds, and only the coordinates whose range box contains them, without reading the world. Queries for other components, like
+ * {@link net.malisis.core.util.chunkcollision.IChunkCollidable IChunkCollidable} whose boxes may reach further than their range, visit
+ * every coordinate of the chunk whose block has the component.<br>
+ * Coordinates read from NBT or received from the server are resolved against the world on the next query.<br>
+ * The index is thread-safe : modifications are synchronized on the index and only update the maps, in constant time. The snapshots of the
+ * coordinates and buckets read by the queries without locking are rebuilt once, by the first query following modifications, so bulk
+ * modifications only pay for a single rebuild. Procedures are never called with the lock held, so they can modify the index.
+ *
+ * @author Ordinastie
+ */
+public class ChunkBlockIndex
+{
+	private static final int SECTIONS = 16;
+	private static final Entry[][] NO_SECTIONS = new Entry[SECTIONS][0];
+
+	/** All the stored coordinates, packed with {@link BlockPos#toLong()}. Rebuilt when {@link #dirty}. */
+	private volatile long[] coords = ArrayUtils.EMPTY_LONG_ARRAY;
+	/** Resolved entries reaching each section. Rebuilt when {@link #dirty}. */
+	private volatile Entry[][] sections = NO_SECTIONS;
+	/** Whether the coordinates and sections snapshots are out of date. */
+	private volatile boolean dirty = false;
+	/** Resolved entries, by coordinate. Guarded by this. */
+	private final TLongObjectMap<Entry> entries = new TLongObjectHashMap<>();
+	/** Coordinates not yet resolved. Guarded by this. */
+	private final TLongSet pending = new TLongHashSet();
+	/** Whether there are pending coordinates, to avoid locking on queries. */
+	private volatile boolean hasPending = false;
+	/** Number of coordinates stored, resolved or not. */
+	private volatile int size = 0;
+	/** Incremented on every modification, including the resolution of pending coordinates. */
+	private volatile int version = 0;
+
+	/**
+	 * Gets all the coordinates stored in this {@link ChunkBlockIndex}.<br>
+	 * The returned array is shared and must not be modified.
+	 *
+	 * @return the coords
+	 */
+	public long[] coords()
+	{
+		if (dirty)
+			publish();
+		return coords;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the version of this {@link ChunkBlockIndex}, incremented every time a coordinate is added, removed or resolved.<br>
+	 * Allows data derived from the index to be rebuilt only when it changed.
+	 *
+	 * @return the version
+	 */
+	public int version()
+	{
+		return version;
+	}
+
+	/**
+	 * Adds a coordinate for which the {@link Block} and the {@link IChunkBlock} are known.<br>
+	 * A coordinate already stored is replaced.
+	 *
+	 * @param coord the coord
+	 * @param block the block
+	 * @param range the range
+	 */
+	public synchronized void add(long coord, Block block, int range)
+	{
+		if (pending.remove(coord))
+			hasPending = !pending.isEmpty();
+		entries.put(coord, new Entry(coord, block, range));
+		modified();
+	}
+
+	/**
+	 * Adds coordinates that will be resolved against the world on the next query.<br>
+	 * Coordinates already stored are resolved again.
+	 *
+	 * @param newCoords the new coords
+	 */
+	public synchronized void addUnresolved(long[] newCoords)
+	{
+		for (long coord : newCoords)
+		{
+			entries.remove(coord);
+			pending.add(coord);
+		}
+		hasPending = !pending.isEmpty();
+		modified();
+	}
+
+	/**
+	 * Removes a coordinate.
+	 *
+	 * @param coord the coord
+	 */
+	public synchronized void remove(long coord)
+	{
+		boolean removed = entries.remove(coord) != null;
+		if (pending.remove(coord))
+		{
+			hasPending = !pending.isEmpty();
+			removed = true;
+		}
+		if (removed)
+			modified();
+	}
+
+	/**
+	 * Marks the snapshots out of date after a modification. Must be called with the lock held.
+	 */
+	private void modified()
+	{
+		size = entries.size() + pending.size();
+		version++;
+		dirty = true;
+	}
+
+	/**
+	 * Rebuilds the coordinates and sections snapshots from the maps, if they are out of date.
+	 */
+	private synchronized void publish()
+	{
+		if (!dirty)
+			return;
+
+		long[] newCoords = new long[entries.size() + pending.size()];
+		int[] counts = new int[SECTIONS];
+		int i = 0;
+		for (Entry entry : entries.valueCollection())
+		{
+			newCoords[i++] = entry.coord;
+			for (int s = entry.minSection; s <= entry.maxSection; s++)
+				counts[s]++;
+		}
+		for (long coord : pending.toArray())
+			newCoords[i++] = coord;
+
+		Entry[][] newSections = new Entry[SECTIONS][];
+		for (int s = 0; s < SECTIONS; s++)
+		{
+			newSections[s] = new Entry[counts[s]];
+			counts[s] = 0;
+		}
+		for (Entry entry : entries.valueCollection())
+			for (int s = entry.minSection; s <= entry.maxSection; s++)
+				newSections[s][counts[s]++] = entry;
+
+		coords = newCoords;
+		sections = newSections;
+		dirty = false;
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for all the coordinates, resolved or not.
+	 *
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates
+	 */
+	public boolean forEach(TLongProcedure procedure)
+	{
+		for (long coord : coords())
+			if (!procedure.execute(coord))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for the coordinates whose range contains the {@link BlockPos}.<br>
+	 * The range is only checked for {@link IBlockListener} components.
+	 *
+	 * @param world the world
+	 * @param pos the pos
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public boolean forEach(World world, BlockPos pos, Class<?> type, TLongProcedure procedure)
+	{
+		return forEach(world, pos.getX(), pos.getY(), pos.getZ(), pos.getX(), pos.getY(), pos.getZ(), type, procedure);
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for the coordinates whose range intersects the {@link AxisAlignedBB}.<br>
+	 * The range is only checked for {@link IBlockListener} components.
+	 *
+	 * @param world the world
+	 * @param bounds the bounds
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public boolean forEach(World world, AxisAlignedBB bounds, Class<?> type, TLongProcedure procedure)
+	{
+		return forEach(	world,
+						(int) Math.floor(bounds.minX),
+						(int) Math.floor(bounds.minY),
+						(int) Math.floor(bounds.minZ),
+						(int) Math.floor(bounds.maxX),
+						(int) Math.floor(bounds.maxY),
+						(int) Math.floor(bounds.maxZ),
+						type,
+						procedure);
+	}
+
+	/**
+	 * Calls the {@link IComponentProcedure} for the coordinates whose range contains the {@link BlockPos}, with the component of the block
+	 * stored for the coordinate.
+	 *
+	 * @param <T> the type of the component
+	 * @param world the world
+	 * @param pos the pos
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public <T> boolean forEach(World world, BlockPos pos, Class<T> type, IComponentProcedure<? super T> procedure)
+	{
+		return forEach(world, pos.getX(), pos.getY(), pos.getZ(), pos.getX(), pos.getY(), pos.getZ(), type, null, procedure);
+	}
+
+	/**
+	 * Calls the {@link IComponentProcedure} for the coordinates whose range intersects the {@link AxisAlignedBB}, with the component of the
+	 * block stored for the coordinate.
+	 *
+	 * @param <T> the type of the component
+	 * @param world the world
+	 * @param bounds the bounds
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public <T> boolean forEach(World world, AxisAlignedBB bounds, Class<T> type, IComponentProcedure<? super T> procedure)
+	{
+		return forEach(	world,
+						(int) Math.floor(bounds.minX),
+						(int) Math.floor(bounds.minY),
+						(int) Math.floor(bounds.minZ),
+						(int) Math.floor(bounds.maxX),
+						(int) Math.floor(bounds.maxY),
+						(int) Math.floor(bounds.maxZ),
+						type,
+						null,
+						procedure);
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for the coordinates whose range intersects the bounds (inclusive).<br>
+	 * The range is only checked for {@link IBlockListener} components, other components are looked up in the whole chunk.<br>
+	 * Each coordinate is visited once, in the lowest section shared by its range and the bounds.
+	 *
+	 * @param world the world
+	 * @param minX the min X
+	 * @param minY the min Y
+	 * @param minZ the min Z
+	 * @param maxX the max X
+	 * @param maxY the max Y
+	 * @param maxZ the max Z
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public boolean forEach(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, Class<?> type, TLongProcedure procedure)
+	{
+		return forEach(world, minX, minY, minZ, maxX, maxY, maxZ, type, procedure, null);
+	}
+
+	/**
+	 * Calls the {@link IComponentProcedure} for the coordinates whose range intersects the bounds (inclusive), with the component of the
+	 * block stored for the coordinate.<br>
+	 * The {@link IBlockListener} components are kept with the coordinates, so the world is not read.
+	 *
+	 * @param <T> the type of the component
+	 * @param world the world
+	 * @param minX the min X
+	 * @param minY the min Y
+	 * @param minZ the min Z
+	 * @param maxX the max X
+	 * @param maxY the max Y
+	 * @param maxZ the max Z
+	 * @param type the component the block must have, or <code>null</code>
+	 * @param procedure the procedure, called with a <code>null</code> component if the type is <code>null</code>
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public <T> boolean forEach(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, Class<T> type,
+			IComponentProcedure<? super T> procedure)
+	{
+		return forEach(world, minX, minY, minZ, maxX, maxY, maxZ, type, null, procedure);
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean forEach(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, Class<?> type,
+			TLongProcedure procedure, IComponentProcedure<?> componentProcedure)
+	{
+		if (hasPending && world != null)
+			resolve(world);
+
+		if (dirty)
+			publish();
+		Entry[][] sections = this.sections;
+		boolean inRange = isRangeBound(type);
+		int minSection = inRange ? section(minY) : 0;
+		int maxSection = inRange ? section(maxY) : SECTIONS - 1;
+		for (int s = minSection; s <= maxSection; s++)
+		{
+			for (Entry entry : sections[s])
+			{
+				if (s != Math.max(minSection, entry.minSection))
+					continue;
+				if (inRange && !entry.intersects(minX, minY, minZ, maxX, maxY, maxZ))
+					continue;
+				Object component = entry.component(type);
+				if (type != null && component == null)
+					continue;
+				boolean result = procedure != null	? procedure.execute(entry.coord)
+													: ((IComponentProcedure<Object>) componentProcedure).execute(entry.coord, component);
+				if (!result)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Resolves the pending coordinates against the world.<br>
+	 * The world is read without holding the lock. Coordinates where the block is no longer an {@link IChunkBlock} are removed.
+	 *
+	 * @param world the world
+	 */
+	private void resolve(World world)
+	{
+		long[] toResolve;
+		synchronized (this)
+		{
+			toResolve = pending.toArray();
+		}
+
+		for (long coord : toResolve)
+		{
+			BlockPos pos = BlockPos.fromLong(coord);
+			IBlockState state = world.getBlockState(pos);
+			IChunkBlock cb = IComponent.getComponent(IChunkBlock.class, state.getBlock());
+			synchronized (this)
+			{
+				//removed or resolved by another thread meanwhile
+				if (!pending.remove(coord))
+					continue;
+				hasPending = !pending.isEmpty();
+				if (cb != null)
+				{
+					entries.put(coord, new Entry(coord, state.getBlock(), cb.blockRange()));
+					modified();
+					continue;
+				}
+				modified();
+			}
+			MalisisCore.log.info("[ChunkBlockIndex] Removing invalid {} coordinate : {} ({})", world.isRemote ? "client" : "server", pos, state);
+		}
+	}
+
+	/**
+	 * Checks whether the blocks with the component only act within their {@link IChunkBlock#blockRange() range}.<br>
+	 * Only {@link IBlockListener} blocks are bound by their range, through {@link IChunkBlock#isInRange(BlockPos, BlockPos)}.
+	 *
+	 * @param type the type
+	 * @return true, if the range can be used to filter the coordinates
+	 */
+	private static boolean isRangeBound(Class<?> type)
+	{
+		return type != null && (IBlockListener.Pre.class.isAssignableFrom(type) || IBlockListener.Post.class.isAssignableFrom(type));
+	}
+
+	private static int section(int y)
+	{
+		return Math.min(Math.max(y >> 4, 0), SECTIONS - 1);
+	}
+
+	/**
+	 * Coordinate stored along with its {@link Block}, its {@link IBlockListener} components and range box.
+	 */
+	private static class Entry
+	{
+		private final long coord;
+		private final Block block;
+		private final IBlockListener.Pre preListener;
+		private final IBlockListener.Post postListener;
+		private final int minX, minY, minZ, maxX, maxY, maxZ;
+		private final int minSection, maxSection;
+
+		public Entry(long coord, Block block, int range)
+		{
+			BlockPos pos = BlockPos.fromLong(coord);
+			this.coord = coord;
+			this.block = block;
+			this.preListener = IComponent.getComponent(IBlockListener.Pre.class, block);
+			this.postListener = IComponent.getComponent(IBlockListener.Post.class, block);
+			this.minX = pos.getX() - range;
+			this.minY = pos.getY() - range;
+			this.minZ = pos.getZ() - range;
+			this.maxX = pos.getX() + range;
+			this.maxY = pos.getY() + range;
+			this.maxZ = pos.getZ() + range;
+			this.minSection = section(minY);
+			this.maxSection = section(maxY);
+		}
+
+		/**
+		 * Gets the component of the block for this {@link Entry}, without looking it up for the {@link IBlockListener} components.
+		 *
+		 * @param type the type
+		 * @return the component, or <code>null</code> if the block doesn't have it or the type is <code>null</code>
+		 */
+		public Object component(Class<?> type)
+		{
+			if (type == null)
+				return null;
+			if (type == IBlockListener.Pre.class)
+				return preListener;
+			if (type == IBlockListener.Post.class)
+				return postListener;
+			return IComponent.getComponent(type, block);
+		}
+
+		public boolean intersects(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+		{
+			return this.minX <= maxX && this.maxX >= minX && this.minY <= maxY && this.maxY >= minY && this.minZ <= maxZ && this.maxZ >= minZ;
+		}
+	}
+}
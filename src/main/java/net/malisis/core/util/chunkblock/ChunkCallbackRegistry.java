@@ -24,14 +24,14 @@
 
 package net.malisis.core.util.chunkblock;
 
-import java.util.Set;
-
 import net.malisis.core.util.callback.CallbackRegistry;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback;
 import net.malisis.core.util.callback.ICallback.ICallbackPredicate;
+import net.malisis.core.util.chunkblock.ChunkBlockHandler.IComponentProcedure;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallback;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallbackPredicate;
+import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.chunk.Chunk;
 
@@ -43,6 +43,14 @@ import net.minecraft.world.chunk.Chunk;
  */
 public class ChunkCallbackRegistry<C extends IChunkCallback<V>, P extends IChunkCallbackPredicate, V> extends CallbackRegistry<C, P, V>
 {
+	/** Procedure reused by each thread. A new one is created when the callbacks are processed again from within a callback. */
+	private final ThreadLocal<ListenerProcedure> procedures = ThreadLocal.withInitial(ListenerProcedure::new);
+	/** Calls the varargs method of the {@link IChunkCallbackPredicate} with the parameters array. */
+	private final IPredicateInvoker3<P, Chunk, BlockPos, Object[]> varargsPredicate = (predicate, chunk, listener, params) -> predicate
+			.apply(chunk, listener, params);
+	/** Calls the varargs method of the {@link IChunkCallback} with the parameters array. */
+	private final ICallbackInvoker3<C, V, Chunk, BlockPos, Object[]> varargsCallback = (callback, chunk, listener, params) -> callback
+			.call(chunk, listener, params);
 
 	/**
 	 * Processes the {@link IChunkCallback IChunkCallbacks} registered.
@@ -53,30 +61,224 @@ public class ChunkCallbackRegistry<C extends IChunkCallback<V>, P extends IChunk
 	 */
 	public CallbackResult<V> processCallbacks(Chunk chunk, Object... params)
 	{
-		//true = cancel => return
-		Set<BlockPos> coords = ChunkBlockHandler.get().chunks(chunk).get(chunk);
-		return processListeners(coords, chunk, params);
+		return process(chunk, null, null, null, 1, varargsPredicate, varargsCallback, params, null, null);
 	}
 
 	/**
-	 * Processes the {@link IChunkCallback IChunkCallbacks} registered for the list of {@link BlockPos}.
+	 * Processes the {@link IChunkCallback IChunkCallbacks} registered, only for the listeners whose {@link IChunkBlock#blockRange() range}
+	 * contains the {@link BlockPos} and whose block has the component.<br>
+	 * The range is only checked for {@link net.malisis.core.util.chunklistener.IBlockListener IBlockListener} components, other components
+	 * are processed for the whole chunk. The callbacks and predicates are still responsible for the exact range check.
 	 *
-	 * @param list the list
 	 * @param chunk the chunk
+	 * @param type the component the listener block must have, or <code>null</code>
+	 * @param pos the pos
 	 * @param params the params
 	 * @return the callback result
 	 */
-	private CallbackResult<V> processListeners(Set<BlockPos> list, Chunk chunk, Object... params)
+	public CallbackResult<V> processCallbacksInRange(Chunk chunk, Class<?> type, BlockPos pos, Object... params)
+	{
+		return process(chunk, type, pos, null, 1, varargsPredicate, varargsCallback, params, null, null);
+	}
+
+	/**
+	 * Processes the {@link IChunkCallback IChunkCallbacks} registered, only for the listeners whose {@link IChunkBlock#blockRange() range}
+	 * intersects the {@link AxisAlignedBB} and whose block has the component.<br>
+	 * The range is only checked for {@link net.malisis.core.util.chunklistener.IBlockListener IBlockListener} components, other components
+	 * are processed for the whole chunk.
+	 *
+	 * @param chunk the chunk
+	 * @param type the component the listener block must have, or <code>null</code>
+	 * @param bounds the bounds
+	 * @param params the params
+	 * @return the callback result
+	 */
+	public CallbackResult<V> processCallbacksInRange(Chunk chunk, Class<?> type, AxisAlignedBB bounds, Object... params)
+	{
+		return process(chunk, type, null, bounds, 1, varargsPredicate, varargsCallback, params, null, null);
+	}
+
+	/**
+	 * Processes the {@link IChunkCallback IChunkCallbacks} registered like
+	 * {@link #processCallbacksInRange(Chunk, Class, BlockPos, Object...)}, passing the parameters to the typed methods of the callbacks and
+	 * predicates through the invokers, without allocating a parameters array.<br>
+	 * The invokers also receive the component of the listener block, as stored with its coordinate, so it doesn't need to be looked up.
+	 *
+	 * @param <T> the type of the component
+	 * @param <A> the type of the first parameter
+	 * @param <B> the type of the second parameter
+	 * @param <D> the type of the third parameter
+	 * @param chunk the chunk
+	 * @param type the component the listener block must have
+	 * @param pos the pos
+	 * @param predicateInvoker calls the typed method of the predicate with the chunk, the listener, its component and the parameters
+	 * @param callbackInvoker calls the typed method of the callback with the chunk, the listener, its component and the parameters
+	 * @param a the first parameter
+	 * @param b the second parameter
+	 * @param d the third parameter
+	 * @return the callback result
+	 */
+	public <T, A, B, D> CallbackResult<V> processCallbacksInRange(Chunk chunk, Class<T> type, BlockPos pos,
+			IPredicateInvoker6<P, Chunk, BlockPos, T, A, B, D> predicateInvoker,
+			ICallbackInvoker6<C, V, Chunk, BlockPos, T, A, B, D> callbackInvoker, A a, B b, D d)
+	{
+		return process(chunk, type, pos, null, 3, predicateInvoker, callbackInvoker, a, b, d);
+	}
+
+	/**
+	 * Processes the {@link IChunkCallback IChunkCallbacks} registered like
+	 * {@link #processCallbacksInRange(Chunk, Class, AxisAlignedBB, Object...)}, passing the parameters to the typed methods of the
+	 * callbacks and predicates through the invokers, without allocating a parameters array.
+	 *
+	 * @param <A> the type of the first parameter
+	 * @param <B> the type of the second parameter
+	 * @param chunk the chunk
+	 * @param type the component the listener block must have, or <code>null</code>
+	 * @param bounds the bounds
+	 * @param predicateInvoker calls the typed method of the predicate with the chunk, the listener and the parameters
+	 * @param callbackInvoker calls the typed method of the callback with the chunk, the listener and the parameters
+	 * @param a the first parameter
+	 * @param b the second parameter
+	 * @return the callback result
+	 */
+	public <A, B> CallbackResult<V> processCallbacksInRange(Chunk chunk, Class<?> type, AxisAlignedBB bounds,
+			IPredicateInvoker4<P, Chunk, BlockPos, A, B> predicateInvoker, ICallbackInvoker4<C, V, Chunk, BlockPos, A, B> callbackInvoker,
+			A a, B b)
+	{
+		return process(chunk, type, null, bounds, 2, predicateInvoker, callbackInvoker, a, b, null);
+	}
+
+	/**
+	 * Processes the {@link IChunkCallback IChunkCallbacks} registered like
+	 * {@link #processCallbacksInRange(Chunk, Class, AxisAlignedBB, Object...)}, passing the parameter to the typed methods of the
+	 * callbacks and predicates through the invokers, without allocating a parameters array.
+	 *
+	 * @param <A> the type of the parameter
+	 * @param chunk the chunk
+	 * @param type the component the listener block must have, or <code>null</code>
+	 * @param bounds the bounds
+	 * @param predicateInvoker calls the typed method of the predicate with the chunk, the listener and the parameter
+	 * @param callbackInvoker calls the typed method of the callback with the chunk, the listener and the parameter
+	 * @param a the parameter
+	 * @return the callback result
+	 */
+	public <A> CallbackResult<V> processCallbacksInRange(Chunk chunk, Class<?> type, AxisAlignedBB bounds,
+			IPredicateInvoker3<P, Chunk, BlockPos, A> predicateInvoker, ICallbackInvoker3<C, V, Chunk, BlockPos, A> callbackInvoker, A a)
+	{
+		return process(chunk, type, null, bounds, 1, predicateInvoker, callbackInvoker, a, null, null);
+	}
+
+	/**
+	 * Processes the callbacks for the coordinates in range of the {@link BlockPos} or the {@link AxisAlignedBB}, or for the whole chunk if
+	 * both are <code>null</code>.
+	 *
+	 * @param chunk the chunk
+	 * @param type the component the listener block must have, or <code>null</code>
+	 * @param pos the pos
+	 * @param bounds the bounds
+	 * @param count the number of parameters passed to the invokers after the chunk and the listener, and its component for 3 parameters
+	 * @param predicateInvoker the predicate invoker matching the count
+	 * @param callbackInvoker the callback invoker matching the count
+	 * @param a the first parameter
+	 * @param b the second parameter
+	 * @param d the third parameter
+	 * @return the callback result
+	 */
+	private CallbackResult<V> process(Chunk chunk, Class<?> type, BlockPos pos, AxisAlignedBB bounds, int count, Object predicateInvoker,
+			Object callbackInvoker, Object a, Object b, Object d)
+	{
+		if (!ChunkBlockHandler.get().hasCoords(chunk))
+			return CallbackResult.noResult();
+
+		ListenerProcedure procedure = procedures.get();
+		if (procedure.inUse)
+			procedure = new ListenerProcedure();
+		procedure.set(chunk, count, predicateInvoker, callbackInvoker, a, b, d);
+		try
+		{
+			if (pos != null)
+				ChunkBlockHandler.get().forEachComponent(chunk, pos, type, procedure);
+			else if (bounds != null)
+				ChunkBlockHandler.get().forEachComponent(chunk, bounds, type, procedure);
+			else
+				ChunkBlockHandler.get().forEachComponent(chunk, type, procedure);
+			return procedure.result;
+		}
+		finally
+		{
+			procedure.clear();
+		}
+	}
+
+	/**
+	 * Processes the {@link IChunkCallback IChunkCallbacks} registered for each listener coordinate stored in a {@link Chunk}.<br>
+	 * The invokers and parameters are set for the duration of a single process.
+	 */
+	private class ListenerProcedure implements IComponentProcedure<Object>
 	{
-		CallbackResult<V> result = CallbackResult.noResult();
-		for (BlockPos listener : list)
+		private boolean inUse;
+		private Chunk chunk;
+		private int count;
+		private Object predicateInvoker;
+		private Object callbackInvoker;
+		private Object a, b, d;
+		private CallbackResult<V> result;
+
+		private void set(Chunk chunk, int count, Object predicateInvoker, Object callbackInvoker, Object a, Object b, Object d)
+		{
+			this.inUse = true;
+			this.chunk = chunk;
+			this.count = count;
+			this.predicateInvoker = predicateInvoker;
+			this.callbackInvoker = callbackInvoker;
+			this.a = a;
+			this.b = b;
+			this.d = d;
+			this.result = CallbackResult.noResult();
+		}
+
+		private void clear()
+		{
+			inUse = false;
+			chunk = null;
+			predicateInvoker = null;
+			callbackInvoker = null;
+			a = b = d = null;
+			result = null;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean execute(long coord, Object component)
 		{
-			CallbackResult<V> tmp = super.processCallbacks(chunk, listener, params);
+			BlockPos listener = BlockPos.fromLong(coord);
+			CallbackResult<V> tmp;
+			if (count == 1)
+				tmp = processCallbacks(	(IPredicateInvoker3<P, Chunk, BlockPos, Object>) predicateInvoker,
+										(ICallbackInvoker3<C, V, Chunk, BlockPos, Object>) callbackInvoker,
+										chunk,
+										listener,
+										a);
+			else if (count == 2)
+				tmp = processCallbacks(	(IPredicateInvoker4<P, Chunk, BlockPos, Object, Object>) predicateInvoker,
+										(ICallbackInvoker4<C, V, Chunk, BlockPos, Object, Object>) callbackInvoker,
+										chunk,
+										listener,
+										a,
+										b);
+			else
+				tmp = processCallbacks(	(IPredicateInvoker6<P, Chunk, BlockPos, Object, Object, Object, Object>) predicateInvoker,
+										(ICallbackInvoker6<C, V, Chunk, BlockPos, Object, Object, Object, Object>) callbackInvoker,
+										chunk,
+										listener,
+										component,
+										a,
+										b,
+										d);
 			result = reduce.apply(result, tmp);
-			if (result.isForcedCancelled())
-				return result;
+			//true = cancel => stop
+			return !result.isForcedCancelled();
 		}
-		return result;
 	}
 
 	/**
@@ -25,18 +25,26 @@
 package net.malisis.core.util.chunkcollision;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
+import com.google.common.collect.MapMaker;
+
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.block.component.DirectionalComponent;
 import net.malisis.core.registry.AutoLoad;
+import net.malisis.core.registry.MalisisRegistry;
 import net.malisis.core.util.AABBUtils;
 import net.malisis.core.util.BlockPosUtils;
 import net.malisis.core.util.ItemUtils;
 import net.malisis.core.util.MBlockState;
 import net.malisis.core.util.Point;
+import net.malisis.core.util.callback.CallbackRegistry.IPredicateInvoker3;
+import net.malisis.core.util.callback.CallbackRegistry.IPredicateInvoker4;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.malisis.core.util.chunkblock.ChunkBlockHandler;
@@ -64,6 +72,7 @@ import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.world.GetCollisionBoxesEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
 
 /**
  * This class is the entry point for all the chunk collision related calculation.<br>
@@ -75,22 +84,31 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 @AutoLoad
 public class ChunkCollision
 {
+	/** Calls the {@link IChunkCollidablePredicate} for the ray traces, without building a parameters array. */
+	private static final IPredicateInvoker4<IChunkCollidablePredicate, Chunk, BlockPos, Point, Point> RAYTRACE_PREDICATE = (predicate,
+			chunk, listener, src, dest) -> predicate.apply(chunk, listener);
+	/** Calls the {@link IChunkCollidablePredicate} for the block placements, without building a parameters array. */
+	private static final IPredicateInvoker3<IChunkCollidablePredicate, Chunk, BlockPos, AxisAlignedBB[]> PLACE_AT_PREDICATE = (predicate,
+			chunk, listener, aabbs) -> predicate.apply(chunk, listener);
 	private static ChunkCollision instance = new ChunkCollision();
 
-	private ChunkCallbackRegistry<IChunkCallback<Void>, IChunkCallbackPredicate, Void> collisionRegistry = new ChunkCallbackRegistry<>();
-	private ChunkCallbackRegistry<IChunkCallback<RayTraceResult>, IChunkCallbackPredicate, RayTraceResult> rayTraceRegistry = new ChunkCallbackRegistry<>();
-	private ChunkCallbackRegistry<IChunkCallback<Boolean>, IChunkCallbackPredicate, Boolean> placeAtRegistry = new ChunkCallbackRegistry<>();
+	/** Collision broad-phase for each chunk. Chunks are weakly referenced and compared by identity. */
+	private ConcurrentMap<Chunk, CollisionBroadPhase> broadPhases = new MapMaker().weakKeys().makeMap();
+	/** Collision boxes computed during the current tick for each world. Worlds are weakly referenced and compared by identity. */
+	private ConcurrentMap<World, CollisionBoxCache> boxCaches = new MapMaker().weakKeys().makeMap();
+	private ChunkCallbackRegistry<IRayTraceCallback, IChunkCollidablePredicate, RayTraceResult> rayTraceRegistry =
+			new ChunkCallbackRegistry<>();
+	private ChunkCallbackRegistry<IPlaceAtCallback, IChunkCollidablePredicate, Boolean> placeAtRegistry = new ChunkCallbackRegistry<>();
 
 	public ChunkCollision()
 	{
 		MinecraftForge.EVENT_BUS.register(this);
-		collisionRegistry.registerCallback(	this::collisionBoxesCallback,
-											CallbackOption.of((IChunkCallbackPredicate) this::isChunkCollidable));
-		rayTraceRegistry.registerCallback(this::rayTraceCallback, CallbackOption.of((IChunkCallbackPredicate) this::isChunkCollidable));
-		placeAtRegistry.registerCallback(this::placeAtCallback, CallbackOption.of((IChunkCallbackPredicate) this::isChunkCollidable));
+		rayTraceRegistry.registerCallback(this::rayTraceCallback, CallbackOption.of((IChunkCollidablePredicate) this::isChunkCollidable));
+		placeAtRegistry.registerCallback(this::placeAtCallback, CallbackOption.of((IChunkCollidablePredicate) this::isChunkCollidable));
+		MalisisRegistry.onPostSetBlock(this::invalidateCollisionBoxes, CallbackOption.of());
 	}
 
-	public boolean isChunkCollidable(Chunk chunk, BlockPos listener, Object... params)
+	public boolean isChunkCollidable(Chunk chunk, BlockPos listener)
 	{
 		return IComponent.getComponent(IChunkCollidable.class, chunk.getWorld().getBlockState(listener).getBlock()) != null;
 	}
@@ -110,33 +128,147 @@ public class ChunkCollision
 		if (event.getAabb() == null)
 			return;
 
-		for (Chunk chunk : ChunkBlockHandler.getAffectedChunks(event.getWorld(), event.getAabb()))
-			collisionRegistry.processCallbacks(chunk, event.getAabb(), event.getCollisionBoxesList());
+		World world = event.getWorld();
+		AxisAlignedBB mask = event.getAabb();
+		List<AxisAlignedBB> list = event.getCollisionBoxesList();
+		List<Chunk> chunks = ChunkBlockHandler.getAffectedChunks(world, mask);
+		//blocks are stored in every chunk their range reaches, only process them once
+		TLongSet processed = chunks.size() > 1 ? new TLongHashSet() : null;
+		for (Chunk chunk : chunks)
+		{
+			getBroadPhase(chunk).forEach(mask, coord -> {
+				if (processed == null || processed.add(coord))
+					addCollisionBoxes(world, BlockPos.fromLong(coord), mask, list);
+				return true;
+			});
+		}
 	}
 
-	private CallbackResult<Void> collisionBoxesCallback(Chunk chunk, BlockPos listener, Object... params)
+	/**
+	 * Gets the {@link CollisionBroadPhase} for the {@link Chunk}, rebuilding it if the chunk coordinates changed since it was built.
+	 *
+	 * @param chunk the chunk
+	 * @return the broad phase
+	 */
+	private CollisionBroadPhase getBroadPhase(Chunk chunk)
+	{
+		int version = ChunkBlockHandler.get().getVersion(chunk);
+		if (version == -1)
+			return CollisionBroadPhase.EMPTY;
+
+		CollisionBroadPhase broadPhase = broadPhases.get(chunk);
+		if (broadPhase == null || broadPhase.version() != version)
+		{
+			broadPhase = CollisionBroadPhase.build(chunk, version);
+			broadPhases.put(chunk, broadPhase);
+		}
+		return broadPhase;
+	}
+
+	/**
+	 * Adds the collision boxes of the {@link IChunkCollidable} at the {@link BlockPos} that intersect the mask.
+	 *
+	 * @param world the world
+	 * @param listener the listener
+	 * @param mask the mask
+	 * @param list the list
+	 */
+	private void addCollisionBoxes(World world, BlockPos listener, AxisAlignedBB mask, List<AxisAlignedBB> list)
 	{
 		//make sure to get the state from world, because listener may not be inside the passed chunk
-		IBlockState state = chunk.getWorld().getBlockState(listener);
+		IBlockState state = world.getBlockState(listener);
 		IChunkCollidable cc = IComponent.getComponent(IChunkCollidable.class, state.getBlock());
-		AxisAlignedBB mask = (AxisAlignedBB) params[0];
-		@SuppressWarnings("unchecked")
-		List<AxisAlignedBB> list = (List<AxisAlignedBB>) params[1];
+		if (cc == null)
+			return;
 
-		AxisAlignedBB[] aabbs = cc.getCollisionBoundingBoxes(chunk.getWorld(), listener, state);
-		for (AxisAlignedBB aabb : aabbs)
+		for (AxisAlignedBB aabb : getCollisionBoxes(world, listener, state, cc))
 		{
-			if (aabb != null)
-			{
-				aabb = AABBUtils.offset(listener, aabb);
-				if (mask.intersects(aabb))
-					list.add(aabb);
-			}
+			if (aabb != null && mask.intersects(aabb))
+				list.add(aabb);
+		}
+	}
+
+	/**
+	 * Gets the collision boxes of the {@link IChunkCollidable}, offset to its position.<br>
+	 * The boxes are computed once per tick and reused until the end of the tick, or until a block changes in one of the chunks the
+	 * {@link IChunkCollidable} is stored in. The returned array is shared and must not be modified.
+	 *
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 * @param cc the chunk collidable
+	 * @return the collision boxes
+	 */
+	private AxisAlignedBB[] getCollisionBoxes(World world, BlockPos pos, IBlockState state, IChunkCollidable cc)
+	{
+		CollisionBoxCache cache = boxCaches.computeIfAbsent(world, w -> new CollisionBoxCache());
+		long coord = pos.toLong();
+		AxisAlignedBB[] aabbs = cache.get(coord, state);
+		if (aabbs == null)
+		{
+			aabbs = cc.getCollisionBoundingBoxes(world, pos, state);
+			aabbs = aabbs != null ? AABBUtils.offset(pos, aabbs) : new AxisAlignedBB[0];
+			cache.put(coord, state, aabbs);
 		}
+		return aabbs;
+	}
 
+	/**
+	 * Removes the cached collision boxes of the {@link IChunkCollidable} stored in the chunk where a block was set.<br>
+	 * Called after a block is set in the world.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return the callback result
+	 */
+	private CallbackResult<Void> invalidateCollisionBoxes(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		CollisionBoxCache cache = boxCaches.get(chunk.getWorld());
+		if (cache == null || cache.isEmpty())
+			return CallbackResult.noResult();
+
+		cache.remove(pos.toLong());
+		ChunkBlockHandler.get().forEachCoord(chunk, IChunkCollidable.class, coord -> {
+			cache.remove(coord);
+			return true;
+		});
 		return CallbackResult.noResult();
 	}
 
+	/**
+	 * Clears the collision boxes cached for the server worlds at the end of the server tick.
+	 *
+	 * @param event the event
+	 */
+	@SubscribeEvent
+	public void onServerTick(TickEvent.ServerTickEvent event)
+	{
+		if (event.phase == TickEvent.Phase.END)
+			clearCollisionBoxes(false);
+	}
+
+	/**
+	 * Clears the collision boxes cached for the client world at the end of the client tick.
+	 *
+	 * @param event the event
+	 */
+	@SubscribeEvent
+	public void onClientTick(TickEvent.ClientTickEvent event)
+	{
+		if (event.phase == TickEvent.Phase.END)
+			clearCollisionBoxes(true);
+	}
+
+	private void clearCollisionBoxes(boolean remote)
+	{
+		boxCaches.forEach((world, cache) -> {
+			if (world.isRemote == remote)
+				cache.clear();
+		});
+	}
+
 	//#end getCollisionBoundinBoxes
 
 	//#region getRayTraceResult
@@ -175,12 +307,15 @@ public class ChunkCollision
 	public RayTraceResult processCallbacks(Chunk chunk, Point src, Point dest)
 	{
 		rayTraceRegistry.reduce((c1, c2) -> CallbackResult.of(Raytrace.getClosestHit(Type.BLOCK, src, c1.getValue(), c2.getValue())));
-		return rayTraceRegistry.processCallbacks(chunk, src, dest).getValue();
+		AxisAlignedBB bounds = new AxisAlignedBB(src.x, src.y, src.z, dest.x, dest.y, dest.z);
+		return rayTraceRegistry
+				.processCallbacksInRange(chunk, IChunkCollidable.class, bounds, RAYTRACE_PREDICATE, IRayTraceCallback::call, src, dest)
+				.getValue();
 	}
 
-	private CallbackResult<RayTraceResult> rayTraceCallback(Chunk chunk, BlockPos listener, Object... params)
+	private CallbackResult<RayTraceResult> rayTraceCallback(Chunk chunk, BlockPos listener, Point src, Point dest)
 	{
-		RayTraceResult result = new RaytraceBlock(chunk.getWorld(), (Point) params[0], (Point) params[1], listener).trace();
+		RayTraceResult result = new RaytraceBlock(chunk.getWorld(), src, dest, listener).trace();
 		return result != null ? CallbackResult.of(result) : CallbackResult.noResult();
 	}
 
@@ -238,21 +373,30 @@ public class ChunkCollision
 			}
 		}
 
+		AxisAlignedBB bounds = AABBUtils.combine(aabbs);
 		for (Chunk chunk : ChunkBlockHandler.getAffectedChunks(world, aabbs))
 		{
-			CallbackResult<Boolean> result = placeAtRegistry.processCallbacks(chunk, (Object[]) aabbs);
+			CallbackResult<Boolean> result = placeAtRegistry.processCallbacksInRange(	chunk,
+																						IChunkCollidable.class,
+																						bounds,
+																						PLACE_AT_PREDICATE,
+																						IPlaceAtCallback::call,
+																						aabbs);
 			if (result.getValue() != null && !result.getValue())
 				return false;
 		}
 		return true;
 	}
 
-	private CallbackResult<Boolean> placeAtCallback(Chunk chunk, BlockPos listener, Object... params)
+	private CallbackResult<Boolean> placeAtCallback(Chunk chunk, BlockPos listener, AxisAlignedBB[] aabbs)
 	{
-		MBlockState state = new MBlockState(chunk.getWorld(), listener);
-		AxisAlignedBB[] blockBounds = AABBUtils.getCollisionBoundingBoxes(chunk.getWorld(), state, true);
+		World world = chunk.getWorld();
+		IBlockState state = world.getBlockState(listener);
+		IChunkCollidable cc = IComponent.getComponent(IChunkCollidable.class, state.getBlock());
+		if (cc == null)
+			return CallbackResult.noResult();
 
-		return CallbackResult.of(!AABBUtils.isColliding((AxisAlignedBB[]) params, blockBounds));
+		return CallbackResult.of(!AABBUtils.isColliding(aabbs, getCollisionBoxes(world, listener, state, cc)));
 	}
 
 	//#end canPlaceBlockAt
@@ -307,4 +451,49 @@ public class ChunkCollision
 	{
 		return instance;
 	}
+
+	/**
+	 * Specialized {@link IChunkCallback} for the ray traces against the {@link IChunkCollidable} blocks.
+	 */
+	@FunctionalInterface
+	private interface IRayTraceCallback extends IChunkCallback<RayTraceResult>
+	{
+		@Override
+		public default CallbackResult<RayTraceResult> call(Chunk chunk, BlockPos listener, Object... params)
+		{
+			return call(chunk, listener, (Point) params[0], (Point) params[1]);
+		}
+
+		public CallbackResult<RayTraceResult> call(Chunk chunk, BlockPos listener, Point src, Point dest);
+	}
+
+	/**
+	 * Specialized {@link IChunkCallback} for the block placements against the {@link IChunkCollidable} blocks.
+	 */
+	@FunctionalInterface
+	private interface IPlaceAtCallback extends IChunkCallback<Boolean>
+	{
+		@Override
+		public default CallbackResult<Boolean> call(Chunk chunk, BlockPos listener, Object... params)
+		{
+			return call(chunk, listener, (AxisAlignedBB[]) params);
+		}
+
+		public CallbackResult<Boolean> call(Chunk chunk, BlockPos listener, AxisAlignedBB[] aabbs);
+	}
+
+	/**
+	 * Specialized {@link IChunkCallbackPredicate} only depending on the listener {@link BlockPos}.
+	 */
+	@FunctionalInterface
+	private interface IChunkCollidablePredicate extends IChunkCallbackPredicate
+	{
+		@Override
+		public default boolean apply(Chunk chunk, BlockPos listener, Object... params)
+		{
+			return apply(chunk, listener);
+		}
+
+		public boolean apply(Chunk chunk, BlockPos listener);
+	}
 }
\ No newline at end of file
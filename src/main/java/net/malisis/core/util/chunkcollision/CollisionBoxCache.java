@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.util.chunkcollision;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.AxisAlignedBB;
+
+/**
+ * Tick-scoped cache of the collision boxes of the {@link IChunkCollidable} blocks of a world.<br>
+ * Boxes are stored already offset to the block position, and are only returned if the {@link IBlockState} still matches the one they
+ * were computed for.<br>
+ * Returned arrays are shared and must not be modified.
+ *
+ * @author Ordinastie
+ */
+class CollisionBoxCache
+{
+	private final TLongObjectMap<Entry> entries = new TLongObjectHashMap<>();
+
+	/**
+	 * Gets the cached collision boxes for the coordinate.
+	 *
+	 * @param coord the coord
+	 * @param state the state
+	 * @return the boxes, or null if not cached for that state
+	 */
+	synchronized AxisAlignedBB[] get(long coord, IBlockState state)
+	{
+		Entry entry = entries.get(coord);
+		return entry != null && entry.state == state ? entry.aabbs : null;
+	}
+
+	/**
+	 * Caches the collision boxes for the coordinate.
+	 *
+	 * @param coord the coord
+	 * @param state the state
+	 * @param aabbs the aabbs
+	 */
+	synchronized void put(long coord, IBlockState state, AxisAlignedBB[] aabbs)
+	{
+		entries.put(coord, new Entry(state, aabbs));
+	}
+
+	/**
+	 * Removes the cached collision boxes for the coordinate.
+	 *
+	 * @param coord the coord
+	 */
+	synchronized void remove(long coord)
+	{
+		entries.remove(coord);
+	}
+
+	/**
+	 * Checks if this {@link CollisionBoxCache} is empty.
+	 *
+	 * @return true, if empty
+	 */
+	synchronized boolean isEmpty()
+	{
+		return entries.isEmpty();
+	}
+
+	/**
+	 * Clears this {@link CollisionBoxCache}.
+	 */
+	synchronized void clear()
+	{
+		entries.clear();
+	}
+
+	private static class Entry
+	{
+		private final IBlockState state;
+		private final AxisAlignedBB[] aabbs;
+
+		private Entry(IBlockState state, AxisAlignedBB[] aabbs)
+		{
+			this.state = state;
+			this.aabbs = aabbs;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.malisis.core.util.chunkcollision;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import gnu.trove.procedure.TLongProcedure;
+import net.malisis.core.block.BoundingBoxType;
+import net.malisis.core.block.IComponent;
+import net.malisis.core.block.MalisisBlock;
+import net.malisis.core.util.AABBUtils;
+import net.malisis.core.util.chunkblock.ChunkBlockHandler;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * Broad-phase of the {@link IChunkCollidable} blocks stored in a {@link Chunk}.<br>
+ * Holds for each block the world-space union of its collision boxes, sorted by their minimum X, so that only the blocks whose boxes
+ * intersect a query are asked for their detailed boxes.<br>
+ * The union is only known when the boxes depend on the {@link IBlockState} alone (see
+ * {@link MalisisBlock#hasStateBoundingBoxes(IBlockState, BoundingBoxType)}) and the block class does not override
+ * {@link MalisisBlock#getCollisionBoundingBoxes(World, BlockPos, IBlockState)}. Otherwise the block is a candidate for every query reaching
+ * the chunk, as the collision boxes may extend beyond its {@link IChunkCollidable#blockRange() range}. As setting any of these blocks
+ * changes the chunk coordinates, the broad-phase is rebuilt when the {@link ChunkBlockHandler#getVersion(Chunk) version} of the chunk
+ * changes.<br>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author Ordinastie
+ */
+class CollisionBroadPhase
+{
+	/** Broad-phase for chunks without any coordinate. */
+	static final CollisionBroadPhase EMPTY = new CollisionBroadPhase(-1, new long[0], new AxisAlignedBB[0]);
+	/** Bounds of the blocks whose collision boxes are not known in advance. */
+	private static final AxisAlignedBB UNBOUNDED = new AxisAlignedBB(	Double.NEGATIVE_INFINITY,
+																		Double.NEGATIVE_INFINITY,
+																		Double.NEGATIVE_INFINITY,
+																		Double.POSITIVE_INFINITY,
+																		Double.POSITIVE_INFINITY,
+																		Double.POSITIVE_INFINITY);
+
+	/** Whether the block class overrides {@link MalisisBlock#getCollisionBoundingBoxes(World, BlockPos, IBlockState)}. */
+	private static final ClassValue<Boolean> overridesCollisionBoxes = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			try
+			{
+				return type.getMethod("getCollisionBoundingBoxes", World.class, BlockPos.class, IBlockState.class)
+							.getDeclaringClass() != MalisisBlock.class;
+			}
+			catch (NoSuchMethodException e)
+			{
+				return true;
+			}
+		}
+	};
+
+	private final int version;
+	private final long[] coords;
+	private final AxisAlignedBB[] bounds;
+
+	private CollisionBroadPhase(int version, long[] coords, AxisAlignedBB[] bounds)
+	{
+		this.version = version;
+		this.coords = coords;
+		this.bounds = bounds;
+	}
+
+	public int version()
+	{
+		return version;
+	}
+
+	/**
+	 * Calls the {@link TLongProcedure} for the coordinates whose bounds intersect the mask.<br>
+	 * The iteration stops when the procedure returns <code>false</code>.
+	 *
+	 * @param mask the mask
+	 * @param procedure the procedure
+	 * @return true, if the procedure returned <code>true</code> for all the coordinates visited
+	 */
+	public boolean forEach(AxisAlignedBB mask, TLongProcedure procedure)
+	{
+		for (int i = 0; i < bounds.length; i++)
+		{
+			AxisAlignedBB aabb = bounds[i];
+			//sorted by minX, none of the next bounds can intersect
+			if (aabb.minX >= mask.maxX)
+				break;
+			if (aabb.intersects(mask) && !procedure.execute(coords[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Builds the {@link CollisionBroadPhase} for the {@link IChunkCollidable} blocks currently stored in the {@link Chunk}.<br>
+	 * The version must be read before the build, so that a concurrent modification triggers a new build.
+	 *
+	 * @param chunk the chunk
+	 * @param version the version
+	 * @return the collision broad phase
+	 */
+	public static CollisionBroadPhase build(Chunk chunk, int version)
+	{
+		World world = chunk.getWorld();
+		List<Pair<Long, AxisAlignedBB>> entries = new ArrayList<>();
+		ChunkBlockHandler.get().forEachCoord(chunk, IChunkCollidable.class, coord -> {
+			AxisAlignedBB aabb = getBounds(world, BlockPos.fromLong(coord));
+			if (aabb != null)
+				entries.add(Pair.of(coord, aabb));
+			return true;
+		});
+		entries.sort(Comparator.comparingDouble(entry -> entry.getRight().minX));
+
+		long[] sortedCoords = new long[entries.size()];
+		AxisAlignedBB[] sortedBounds = new AxisAlignedBB[entries.size()];
+		for (int i = 0; i < sortedCoords.length; i++)
+		{
+			sortedCoords[i] = entries.get(i).getLeft();
+			sortedBounds[i] = entries.get(i).getRight();
+		}
+		return new CollisionBroadPhase(version, sortedCoords, sortedBounds);
+	}
+
+	/**
+	 * Gets the world-space bounds of the collision boxes of the block at the {@link BlockPos}.<br>
+	 * If the boxes can't be known in advance, the bounds are unlimited.
+	 *
+	 * @param world the world
+	 * @param pos the pos
+	 * @return the bounds, or <code>null</code> if the block has no collision box
+	 */
+	private static AxisAlignedBB getBounds(World world, BlockPos pos)
+	{
+		IBlockState state = world.getBlockState(pos);
+		IChunkCollidable cc = IComponent.getComponent(IChunkCollidable.class, state.getBlock());
+		if (cc == null)
+			return null;
+
+		if (cc instanceof MalisisBlock && !overridesCollisionBoxes.get(cc.getClass())
+				&& ((MalisisBlock) cc).hasStateBoundingBoxes(state, BoundingBoxType.COLLISION))
+		{
+			AxisAlignedBB union = AABBUtils.combine(cc.getCollisionBoundingBoxes(world, pos, state));
+			return union != null ? AABBUtils.offset(pos, union) : null;
+		}
+
+		return UNBOUNDED;
+	}
+}
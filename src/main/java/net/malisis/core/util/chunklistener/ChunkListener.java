@@ -31,9 +31,11 @@ import net.malisis.core.registry.SetBlockCallbackRegistry;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback;
 import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.malisis.core.util.chunkblock.BlockEditBatch;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallback;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallbackPredicate;
+import net.malisis.core.util.chunkblock.IChunkBlock;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.chunk.Chunk;
@@ -52,26 +54,81 @@ public class ChunkListener
 
 	public ChunkListener()
 	{
-		MalisisRegistry.onPreSetBlock(preRegistry::processCallbacks, CallbackOption.of());
-		MalisisRegistry.onPostSetBlock(postRegistry::processCallbacks, CallbackOption.of());
+		MalisisRegistry.onPreSetBlock(this::processPreListeners, CallbackOption.of());
+		MalisisRegistry.onPostSetBlock(this::processPostListeners, CallbackOption.of());
 		preRegistry.registerCallback(this::callPreListener, CallbackOption.of(this::isValidPreListener));
 		postRegistry.registerCallback(this::callPostListener, CallbackOption.of(this::isValidPostListener));
 	}
 
+	/**
+	 * Processes the {@link IBlockListener.Pre} listeners whose range contains the modified {@link BlockPos}.<br>
+	 * When the block is one set by a {@link BlockEditBatch}, the listeners already resolved by the batch are called directly.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return the callback result
+	 */
+	private CallbackResult<Void> processPreListeners(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		BlockEditBatch batch = BlockEditBatch.current(chunk, pos, newState);
+		if (batch != null)
+			return batch.processPreListeners(pos, oldState, newState) ? CallbackResult.noResult() : CANCELLED;
+		return preRegistry.processCallbacksInRange(	chunk,
+													IBlockListener.Pre.class,
+													pos,
+													IBlockListenerPredicate::apply,
+													ChunkListener::callListener,
+													pos,
+													oldState,
+													newState);
+	}
+
+	/**
+	 * Processes the {@link IBlockListener.Post} listeners whose range contains the modified {@link BlockPos}.<br>
+	 * When the block is one set by a {@link BlockEditBatch}, the change is handed to the batch, which notifies the listeners once applied.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return the callback result
+	 */
+	private CallbackResult<Void> processPostListeners(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		BlockEditBatch batch = BlockEditBatch.current(chunk, pos, newState);
+		if (batch != null)
+		{
+			batch.processPostListeners(pos, oldState, newState);
+			return CallbackResult.noResult();
+		}
+		return postRegistry.processCallbacksInRange(	chunk,
+														IBlockListener.Post.class,
+														pos,
+														IBlockListenerPredicate::apply,
+														ChunkListener::callListener,
+														pos,
+														oldState,
+														newState);
+	}
+
 	/**
 	 * Calls {@link IBlockListener.Pre#onBlockSet(net.minecraft.world.World, BlockPos, BlockPos, IBlockState, IBlockState)} for the listener
 	 * {@link BlockPos}.
 	 *
 	 * @param chunk the chunk
 	 * @param listener the listener
+	 * @param component the listener component, or <code>null</code> to read it from the world
 	 * @param modified the modified
 	 * @param oldState the old state
 	 * @param newState the new state
 	 * @return true, if successful
 	 */
-	public boolean callPreListener(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+	public boolean callPreListener(Chunk chunk, BlockPos listener, IChunkBlock component, BlockPos modified, IBlockState oldState,
+			IBlockState newState)
 	{
-		IBlockListener.Pre bl = IComponent.getComponent(IBlockListener.Pre.class, chunk.getWorld().getBlockState(listener).getBlock());
+		IBlockListener.Pre bl = getListener(IBlockListener.Pre.class, chunk, listener, component);
 		return bl.onBlockSet(chunk.getWorld(), listener, modified, oldState, newState);
 	}
 
@@ -80,16 +137,18 @@ public class ChunkListener
 	 *
 	 * @param chunk the chunk
 	 * @param listener the listener
+	 * @param component the listener component, or <code>null</code> to read it from the world
 	 * @param modified the modified
 	 * @param oldState the old state
 	 * @param newState the new state
 	 * @return true, if is valid pre listener
 	 */
-	public boolean isValidPreListener(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+	public boolean isValidPreListener(Chunk chunk, BlockPos listener, IChunkBlock component, BlockPos modified, IBlockState oldState,
+			IBlockState newState)
 	{
 		if (listener.equals(modified))
 			return false;
-		IBlockListener.Pre bl = IComponent.getComponent(IBlockListener.Pre.class, chunk.getWorld().getBlockState(listener).getBlock());
+		IBlockListener.Pre bl = getListener(IBlockListener.Pre.class, chunk, listener, component);
 		if (bl != null && bl.isInRange(listener, modified))
 			return true;
 
@@ -101,14 +160,16 @@ public class ChunkListener
 	 *
 	 * @param chunk the chunk
 	 * @param listener the listener
+	 * @param component the listener component, or <code>null</code> to read it from the world
 	 * @param modified the modified
 	 * @param oldState the old state
 	 * @param newState the new state
 	 * @return true, if successful
 	 */
-	public boolean callPostListener(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+	public boolean callPostListener(Chunk chunk, BlockPos listener, IChunkBlock component, BlockPos modified, IBlockState oldState,
+			IBlockState newState)
 	{
-		IBlockListener.Post bl = IComponent.getComponent(IBlockListener.Post.class, chunk.getWorld().getBlockState(listener).getBlock());
+		IBlockListener.Post bl = getListener(IBlockListener.Post.class, chunk, listener, component);
 		bl.onBlockSet(chunk.getWorld(), listener, modified, oldState, newState);
 		return true;
 	}
@@ -118,22 +179,59 @@ public class ChunkListener
 	 *
 	 * @param chunk the chunk
 	 * @param listener the listener
+	 * @param component the listener component, or <code>null</code> to read it from the world
 	 * @param modified the modified
 	 * @param oldState the old state
 	 * @param newState the new state
 	 * @return true, if is valid post listener
 	 */
-	public boolean isValidPostListener(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+	public boolean isValidPostListener(Chunk chunk, BlockPos listener, IChunkBlock component, BlockPos modified, IBlockState oldState,
+			IBlockState newState)
 	{
 		if (listener.equals(modified))
 			return false;
-		IBlockListener.Post bl = IComponent.getComponent(IBlockListener.Post.class, chunk.getWorld().getBlockState(listener).getBlock());
+		IBlockListener.Post bl = getListener(IBlockListener.Post.class, chunk, listener, component);
 		if (bl != null && bl.isInRange(listener, modified))
 			return true;
 
 		return false;
 	}
 
+	/**
+	 * Gets the listener component passed by the {@link ChunkCallbackRegistry}, or reads it from the world when it wasn't passed.
+	 *
+	 * @param <T> the type of listener
+	 * @param type the type
+	 * @param chunk the chunk
+	 * @param listener the listener
+	 * @param component the component
+	 * @return the listener component
+	 */
+	private static <T extends IChunkBlock> T getListener(Class<T> type, Chunk chunk, BlockPos listener, IChunkBlock component)
+	{
+		if (component != null)
+			return type.cast(component);
+		return IComponent.getComponent(type, chunk.getWorld().getBlockState(listener).getBlock());
+	}
+
+	/**
+	 * Calls the typed method of the {@link IBlockListenerCallback}, without building a parameters array.
+	 *
+	 * @param callback the callback
+	 * @param chunk the chunk
+	 * @param listener the listener
+	 * @param component the listener component
+	 * @param modified the modified
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return the callback result
+	 */
+	private static CallbackResult<Void> callListener(IBlockListenerCallback callback, Chunk chunk, BlockPos listener, IChunkBlock component,
+			BlockPos modified, IBlockState oldState, IBlockState newState)
+	{
+		return callback.call(chunk, listener, component, modified, oldState, newState) ? CallbackResult.noResult() : CANCELLED;
+	}
+
 	/**
 	 * Specialized {@link ICallback} for {@link ChunkCallbackRegistry}.
 	 */
@@ -142,8 +240,9 @@ public class ChunkListener
 		@Override
 		public default CallbackResult<Void> call(Chunk chunk, BlockPos listener, Object... params)
 		{
-			return call(chunk, listener, (BlockPos) params[0], (IBlockState) params[1], (IBlockState) params[2])	? CallbackResult.noResult()
-																													: CANCELLED;
+			return call(chunk, listener, null, (BlockPos) params[0], (IBlockState) params[1], (IBlockState) params[2])
+					? CallbackResult.noResult()
+					: CANCELLED;
 		}
 
 		/**
@@ -153,12 +252,14 @@ public class ChunkListener
 		 *
 		 * @param chunk the chunk
 		 * @param listener the listener
+		 * @param component the listener component, or <code>null</code> if it must be read from the world
 		 * @param modified the modified
 		 * @param oldState the old state
 		 * @param newState the new state
 		 * @return true, if the block should be cancelled
 		 */
-		public boolean call(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState);
+		public boolean call(Chunk chunk, BlockPos listener, IChunkBlock component, BlockPos modified, IBlockState oldState,
+				IBlockState newState);
 	}
 
 	/**
@@ -169,9 +270,10 @@ public class ChunkListener
 		@Override
 		public default boolean apply(Chunk chunk, BlockPos listener, Object... params)
 		{
-			return apply(chunk, listener, (BlockPos) params[0], (IBlockState) params[1], (IBlockState) params[2]);
+			return apply(chunk, listener, null, (BlockPos) params[0], (IBlockState) params[1], (IBlockState) params[2]);
 		}
 
-		public boolean apply(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState);
+		public boolean apply(Chunk chunk, BlockPos listener, IChunkBlock component, BlockPos modified, IBlockState oldState,
+				IBlockState newState);
 	}
 }
@@ -24,6 +24,9 @@
 
 package net.malisis.core.util.chunklistener;
 
+import java.util.List;
+
+import net.malisis.core.util.chunkblock.BlockEditBatch;
 import net.malisis.core.util.chunkblock.IChunkBlock;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
@@ -68,5 +71,20 @@ public final class IBlockListener
 		 * @param newState the new state
 		 */
 		public void onBlockSet(World world, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState);
+
+		/**
+		 * Called once a {@link BlockEditBatch} is applied, with all the blocks placed around this {@link IBlockListener} block by the
+		 * batch.<br>
+		 * Calls {@link #onBlockSet(World, BlockPos, BlockPos, IBlockState, IBlockState)} for each change by default.
+		 *
+		 * @param world the world
+		 * @param listener the listener
+		 * @param changes the changes, in the order they were applied
+		 */
+		public default void onBlocksSet(World world, BlockPos listener, List<BlockEditBatch.Change> changes)
+		{
+			for (BlockEditBatch.Change change : changes)
+				onBlockSet(world, listener, change.getPos(), change.getOldState(), change.getNewState());
+		}
 	}
 }
@@ -38,6 +38,7 @@ import net.malisis.core.util.BlockPosUtils;
 import net.malisis.core.util.EnumFacingUtils;
 import net.malisis.core.util.MBlockState;
 import net.malisis.core.util.blockdata.BlockDataHandler;
+import net.malisis.core.util.chunkblock.BlockEditBatch;
 import net.minecraft.block.properties.PropertyDirection;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.EnumFacing;
@@ -133,14 +134,16 @@ public abstract class MultiBlock implements Iterable<MBlockState>
 
 	public void placeBlocks(World world, BlockPos origin, IBlockState originState, boolean placeOrigin)
 	{
+		BlockEditBatch batch = new BlockEditBatch(world, 2);
 		for (MBlockState mstate : worldStates(world, origin))
 		{
 			if (!mstate.getPos().equals(origin) || placeOrigin)
 			{
 				BlockDataHandler.setData(ORIGIN_BLOCK_DATA, world, mstate.getPos(), origin);
-				mstate.placeBlock(world, 2);
+				batch.setBlockState(mstate);
 			}
 		}
+		batch.apply();
 
 		BlockDataHandler.setData(ORIGIN_BLOCK_DATA, world, origin, origin);
 	}
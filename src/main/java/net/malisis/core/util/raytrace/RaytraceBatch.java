@@ -0,0 +1,471 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.util.raytrace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import net.malisis.core.block.IComponent;
+import net.malisis.core.util.AABBUtils;
+import net.malisis.core.util.Point;
+import net.malisis.core.util.chunkblock.ChunkBlockHandler;
+import net.malisis.core.util.chunkcollision.IChunkCollidable;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.RayTraceResult.Type;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * Traces multiple rays from the same source with {@link RaytraceWorld}.<br>
+ * The loaded chunks and the {@link IChunkCollidable} blocks in reach of the rays are resolved once for all the rays of a trace, instead
+ * of once per ray, and the results are stored in primitive arrays.
+ *
+ * @author Ordinastie
+ */
+public class RaytraceBatch
+{
+	/** World object (needed for ray tracing inside each block). */
+	private final World world;
+	/** Source of the rays. */
+	private final Point src;
+	/** Options for the ray tracing. */
+	private final int options;
+	/** Maximum distance (in blocks) of the rays. */
+	private double maxDistance = RaytraceWorld.DEFAULT_MAX_DISTANCE;
+
+	/** Chunks resolved during the current trace. Chunks not loaded are stored as null. */
+	private final TLongObjectMap<Chunk> chunks = new TLongObjectHashMap<>();
+	/** {@link IChunkCollidable} blocks in reach of the rays of the current trace. */
+	private final List<Collidable> collidables = new ArrayList<>();
+
+	/**
+	 * Instantiates a new {@link RaytraceBatch}.
+	 *
+	 * @param world the world
+	 * @param src the src
+	 * @param options the {@link RaytraceWorld.Options options}
+	 */
+	public RaytraceBatch(World world, Point src, int options)
+	{
+		this.world = world;
+		this.src = src;
+		this.options = options;
+	}
+
+	/**
+	 * Instantiates a new {@link RaytraceBatch}.
+	 *
+	 * @param world the world
+	 * @param src the src
+	 */
+	public RaytraceBatch(World world, Point src)
+	{
+		this(world, src, 0);
+	}
+
+	/**
+	 * Sets the maximum distance (in blocks) of the rays.
+	 *
+	 * @param maxDistance the new max distance
+	 */
+	public void setMaxDistance(double maxDistance)
+	{
+		this.maxDistance = maxDistance;
+	}
+
+	/**
+	 * Gets the maximum distance (in blocks) of the rays.
+	 *
+	 * @return the max distance
+	 */
+	public double getMaxDistance()
+	{
+		return maxDistance;
+	}
+
+	/**
+	 * Traces the rays going in the directions, up to the max distance.
+	 *
+	 * @param directions the directions, as <code>x, y, z</code> triplets
+	 * @return the result
+	 */
+	public Result traceDirections(double[] directions)
+	{
+		checkTriplets(directions);
+		double[] destinations = new double[directions.length];
+		for (int i = 0; i < directions.length; i += 3)
+		{
+			double length = Math.sqrt(directions[i] * directions[i] + directions[i + 1] * directions[i + 1]
+					+ directions[i + 2] * directions[i + 2]);
+			double f = length != 0 ? maxDistance / length : 0;
+			destinations[i] = src.x + directions[i] * f;
+			destinations[i + 1] = src.y + directions[i + 1] * f;
+			destinations[i + 2] = src.z + directions[i + 2] * f;
+		}
+		return trace(destinations);
+	}
+
+	/**
+	 * Traces the rays going to the destinations.<br>
+	 * Rays longer than the max distance are stopped at the max distance.
+	 *
+	 * @param destinations the destinations, as <code>x, y, z</code> triplets
+	 * @return the result
+	 */
+	public Result trace(double[] destinations)
+	{
+		checkTriplets(destinations);
+		Result result = new Result(destinations.length / 3);
+		if (result.size() == 0)
+			return result;
+
+		double[] ends = new double[destinations.length];
+		double minX = src.x, minY = src.y, minZ = src.z;
+		double maxX = src.x, maxY = src.y, maxZ = src.z;
+		for (int i = 0; i < destinations.length; i += 3)
+		{
+			double dx = destinations[i] - src.x, dy = destinations[i + 1] - src.y, dz = destinations[i + 2] - src.z;
+			double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			double f = length > maxDistance ? maxDistance / length : 1;
+			ends[i] = src.x + dx * f;
+			ends[i + 1] = src.y + dy * f;
+			ends[i + 2] = src.z + dz * f;
+
+			minX = Math.min(minX, ends[i]);
+			minY = Math.min(minY, ends[i + 1]);
+			minZ = Math.min(minZ, ends[i + 2]);
+			maxX = Math.max(maxX, ends[i]);
+			maxY = Math.max(maxY, ends[i + 1]);
+			maxZ = Math.max(maxZ, ends[i + 2]);
+		}
+
+		//chunks may have been loaded, unloaded or modified since the last trace
+		chunks.clear();
+		collidables.clear();
+		collectCollidables(new AxisAlignedBB(minX, minY, minZ, maxX, maxY, maxZ));
+
+		for (int i = 0; i < result.size(); i++)
+			result.set(i, new BatchRay(new Point(ends[i * 3], ends[i * 3 + 1], ends[i * 3 + 2])).trace());
+
+		return result;
+	}
+
+	private void checkTriplets(double[] coords)
+	{
+		if (coords.length % 3 != 0)
+			throw new IllegalArgumentException("Coordinates must be x, y, z triplets (length " + coords.length + ")");
+	}
+
+	/**
+	 * Gets the loaded {@link Chunk} at the chunk coordinates, resolving it only once per trace.
+	 *
+	 * @param chunkX the chunk X
+	 * @param chunkZ the chunk Z
+	 * @return the chunk, or null if not loaded
+	 */
+	private Chunk getLoadedChunk(int chunkX, int chunkZ)
+	{
+		long key = ChunkPos.asLong(chunkX, chunkZ);
+		Chunk chunk = chunks.get(key);
+		if (chunk == null && !chunks.containsKey(key))
+		{
+			chunk = world.getChunkProvider().getLoadedChunk(chunkX, chunkZ);
+			chunks.put(key, chunk);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Collects the {@link IChunkCollidable} blocks stored in the loaded chunks that intersect the bounds.
+	 *
+	 * @param bounds the bounds of all the rays
+	 */
+	private void collectCollidables(AxisAlignedBB bounds)
+	{
+		//blocks are stored in every chunk their range reaches, only collect them once
+		TLongSet collected = new TLongHashSet();
+		for (int cx = MathHelper.floor(bounds.minX) >> 4; cx <= MathHelper.floor(bounds.maxX) >> 4; cx++)
+		{
+			for (int cz = MathHelper.floor(bounds.minZ) >> 4; cz <= MathHelper.floor(bounds.maxZ) >> 4; cz++)
+			{
+				Chunk chunk = getLoadedChunk(cx, cz);
+				if (chunk == null)
+					continue;
+
+				ChunkBlockHandler.get().forEachCoord(chunk, bounds, IChunkCollidable.class, coord -> {
+					if (collected.add(coord))
+						addCollidable(BlockPos.fromLong(coord));
+					return true;
+				});
+			}
+		}
+	}
+
+	private void addCollidable(BlockPos pos)
+	{
+		IBlockState state = world.getBlockState(pos);
+		IChunkCollidable cc = IComponent.getComponent(IChunkCollidable.class, state.getBlock());
+		if (cc == null)
+			return;
+
+		AxisAlignedBB[] aabbs = AABBUtils.offset(pos, cc.getRayTraceBoundingBox(world, pos, state));
+		AxisAlignedBB bounds = AABBUtils.combine(aabbs);
+		if (bounds != null)
+			collidables.add(new Collidable(pos, aabbs, bounds));
+	}
+
+	/**
+	 * Gets the closest hit of the collected {@link IChunkCollidable} blocks along the ray going from the source to <code>end</code>.
+	 *
+	 * @param end the end
+	 * @return the closest hit, or null if none
+	 */
+	private RayTraceResult traceCollidables(Point end)
+	{
+		double dx = end.x - src.x, dy = end.y - src.y, dz = end.z - src.z;
+		RayTraceResult closest = null;
+		Raytrace raytrace = null;
+		for (Collidable collidable : collidables)
+		{
+			if (!collidable.intersects(src, dx, dy, dz))
+				continue;
+
+			if (raytrace == null)
+				raytrace = new Raytrace(src, end);
+			Pair<EnumFacing, Point> hit = raytrace.trace(collidable.aabbs);
+			if (hit != null)
+				closest = Raytrace.getClosestHit(	Type.BLOCK,
+													src,
+													closest,
+													new RayTraceResult(hit.getRight().toVec3d(), hit.getLeft(), collidable.pos));
+		}
+		return closest;
+	}
+
+	/**
+	 * {@link RaytraceWorld} for a single ray of the batch, using the chunks and the {@link IChunkCollidable} blocks of the batch.
+	 */
+	private class BatchRay extends RaytraceWorld
+	{
+		private BatchRay(Point dest)
+		{
+			super(RaytraceBatch.this.world, RaytraceBatch.this.src, dest, RaytraceBatch.this.options);
+			setMaxDistance(RaytraceBatch.this.maxDistance);
+		}
+
+		@Override
+		protected Chunk getLoadedChunk(int chunkX, int chunkZ)
+		{
+			return RaytraceBatch.this.getLoadedChunk(chunkX, chunkZ);
+		}
+
+		@Override
+		protected RayTraceResult traceChunkCollision(Point end, RayTraceResult hit)
+		{
+			return Raytrace.getClosestHit(Type.BLOCK, src, hit, traceCollidables(end));
+		}
+	}
+
+	/**
+	 * {@link IChunkCollidable} block collected for a trace, with its ray trace bounding boxes offset to its position.
+	 */
+	static class Collidable
+	{
+		final BlockPos pos;
+		final AxisAlignedBB[] aabbs;
+		/** Union of the bounding boxes. */
+		final AxisAlignedBB bounds;
+
+		Collidable(BlockPos pos, AxisAlignedBB[] aabbs, AxisAlignedBB bounds)
+		{
+			this.pos = pos;
+			this.aabbs = aabbs;
+			this.bounds = bounds;
+		}
+
+		/**
+		 * Checks whether the segment going from <code>src</code> to <code>src + (dx, dy, dz)</code> intersects the bounds of this
+		 * {@link Collidable}.
+		 *
+		 * @param src the src
+		 * @param dx the dx
+		 * @param dy the dy
+		 * @param dz the dz
+		 * @return true, if intersecting
+		 */
+		boolean intersects(Point src, double dx, double dy, double dz)
+		{
+			//slab test, t being the position along the segment
+			double tMin = 0, tMax = 1;
+			if (dx == 0)
+			{
+				if (src.x < bounds.minX || src.x > bounds.maxX)
+					return false;
+			}
+			else
+			{
+				double t1 = (bounds.minX - src.x) / dx, t2 = (bounds.maxX - src.x) / dx;
+				tMin = Math.max(tMin, Math.min(t1, t2));
+				tMax = Math.min(tMax, Math.max(t1, t2));
+			}
+
+			if (dy == 0)
+			{
+				if (src.y < bounds.minY || src.y > bounds.maxY)
+					return false;
+			}
+			else
+			{
+				double t1 = (bounds.minY - src.y) / dy, t2 = (bounds.maxY - src.y) / dy;
+				tMin = Math.max(tMin, Math.min(t1, t2));
+				tMax = Math.min(tMax, Math.max(t1, t2));
+			}
+
+			if (dz == 0)
+			{
+				if (src.z < bounds.minZ || src.z > bounds.maxZ)
+					return false;
+			}
+			else
+			{
+				double t1 = (bounds.minZ - src.z) / dz, t2 = (bounds.maxZ - src.z) / dz;
+				tMin = Math.max(tMin, Math.min(t1, t2));
+				tMax = Math.min(tMax, Math.max(t1, t2));
+			}
+
+			return tMin <= tMax;
+		}
+	}
+
+	/**
+	 * Results of a {@link RaytraceBatch} trace, stored in primitive arrays indexed by ray.
+	 */
+	public static class Result
+	{
+		/** Index of the {@link EnumFacing} hit by each ray, <code>-1</code> if the ray did not hit anything. */
+		private final byte[] sides;
+		/** Position of the block hit by each ray, packed with {@link BlockPos#toLong()}. */
+		private final long[] positions;
+		/** Point hit by each ray, as <code>x, y, z</code> triplets, <code>NaN</code> if the ray did not hit anything. */
+		private final double[] hits;
+
+		Result(int size)
+		{
+			sides = new byte[size];
+			positions = new long[size];
+			hits = new double[size * 3];
+			Arrays.fill(sides, (byte) -1);
+			Arrays.fill(hits, Double.NaN);
+		}
+
+		private void set(int index, RayTraceResult result)
+		{
+			if (result == null || result.typeOfHit != Type.BLOCK)
+				return;
+
+			sides[index] = (byte) result.sideHit.getIndex();
+			positions[index] = result.getBlockPos().toLong();
+			hits[index * 3] = result.hitVec.x;
+			hits[index * 3 + 1] = result.hitVec.y;
+			hits[index * 3 + 2] = result.hitVec.z;
+		}
+
+		/**
+		 * Gets the number of rays.
+		 *
+		 * @return the size
+		 */
+		public int size()
+		{
+			return sides.length;
+		}
+
+		/**
+		 * Checks whether the ray hit a block.
+		 *
+		 * @param index the index of the ray
+		 * @return true, if hit
+		 */
+		public boolean isHit(int index)
+		{
+			return sides[index] != -1;
+		}
+
+		/**
+		 * Gets the side hit by the ray.
+		 *
+		 * @param index the index of the ray
+		 * @return the side, or null if the ray did not hit anything
+		 */
+		public EnumFacing getSide(int index)
+		{
+			return isHit(index) ? EnumFacing.byIndex(sides[index]) : null;
+		}
+
+		/**
+		 * Gets the indexes of the sides hit by the rays, <code>-1</code> for rays that did not hit anything.
+		 *
+		 * @return the sides
+		 */
+		public byte[] getSides()
+		{
+			return sides;
+		}
+
+		/**
+		 * Gets the positions of the blocks hit by the rays, packed with {@link BlockPos#toLong()}.<br>
+		 * Only relevant for the rays that hit a block.
+		 *
+		 * @return the positions
+		 */
+		public long[] getPositions()
+		{
+			return positions;
+		}
+
+		/**
+		 * Gets the points hit by the rays, as <code>x, y, z</code> triplets, <code>NaN</code> for rays that did not hit anything.
+		 *
+		 * @return the hits
+		 */
+		public double[] getHits()
+		{
+			return hits;
+		}
+	}
+}
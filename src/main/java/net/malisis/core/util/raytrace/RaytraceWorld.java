@@ -28,35 +28,39 @@ import java.util.HashMap;
 
 import org.apache.commons.lang3.tuple.Pair;
 
-import net.malisis.core.MalisisCore;
 import net.malisis.core.util.Point;
 import net.malisis.core.util.Ray;
 import net.malisis.core.util.Vector;
 import net.malisis.core.util.chunkcollision.ChunkCollision;
+import net.malisis.core.util.chunkcollision.IChunkCollidable;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockPos.MutableBlockPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 
 /**
- * RayTrace class that offers more control to handle raytracing.
+ * RayTrace class that offers more control to handle raytracing.<br>
+ * Blocks are traversed with primitive coordinates and a single mutable cursor. Empty sections of the chunks are crossed in a single step,
+ * and the ray trace stops when reaching a chunk that is not loaded.
  *
  * @author Ordinastie
  *
  */
 public class RaytraceWorld extends Raytrace
 {
-	/** Number of blocks before we consider ray trace failed. */
-	private static final int MAX_BLOCKS = 200;
+	/** Default maximum distance (in blocks) before the ray trace stops. */
+	public static final double DEFAULT_MAX_DISTANCE = 200;
 	/** World object (needed for ray tracing inside each block). */
 	private World world;
-	/** Vector describing the direction of steps to take when reaching limits of a block. */
-	private Vector step;
-	/** The block coordinates of the source. */
-	private BlockPos blockSrc;
-	/** The block coordinates of the destination. */
-	private BlockPos blockDest;
+	/** Maximum distance (in blocks) before the ray trace stops. */
+	private double maxDistance = DEFAULT_MAX_DISTANCE;
+	/** Visitor called for each block passed by the ray trace. */
+	private IBlockVisitor visitor;
 
 	/** List of blocks passed by the ray trace. Only set if options <code>LOG_BLOCK_PASSED</code> is set */
 	public HashMap<BlockPos, RayTraceResult> blockPassed;
@@ -75,18 +79,6 @@ public class RaytraceWorld extends Raytrace
 		this.world = world;
 		this.options = options;
 
-		blockSrc = new BlockPos(src.toVec3d());
-
-		int stepX = 1, stepY = 1, stepZ = 1;
-		if (ray.direction.x < 0)
-			stepX = -1;
-		if (ray.direction.y < 0)
-			stepY = -1;
-		if (ray.direction.z < 0)
-			stepZ = -1;
-
-		step = new Vector(stepX, stepY, stepZ);
-
 		if (hasOption(Options.LOG_BLOCK_PASSED))
 			blockPassed = new HashMap<>();
 	}
@@ -135,7 +127,6 @@ public class RaytraceWorld extends Raytrace
 	{
 		this(world, new Ray(src, new Vector(src, dest)), options);
 		this.dest = dest;
-		blockDest = new BlockPos(dest.toVec3d());
 	}
 
 	/**
@@ -148,19 +139,37 @@ public class RaytraceWorld extends Raytrace
 	{
 		this(world, new Ray(src, new Vector(src, dest)), 0);
 		this.dest = dest;
-		blockDest = new BlockPos(dest.toVec3d());
 	}
 
 	/**
-	 * Sets the length of this {@link RaytraceWorld}.
+	 * Sets the maximum distance (in blocks) before this {@link RaytraceWorld} stops.<br>
+	 * If a destination is set, the ray trace stops at whichever comes first.
+	 *
+	 * @param maxDistance the new max distance
+	 */
+	public void setMaxDistance(double maxDistance)
+	{
+		this.maxDistance = maxDistance;
+	}
+
+	/**
+	 * Gets the maximum distance (in blocks) before this {@link RaytraceWorld} stops.
 	 *
-	 * @param length the new length
+	 * @return the max distance
 	 */
-	@Override
-	public void setLength(double length)
+	public double getMaxDistance()
 	{
-		super.setLength(length);
-		blockDest = new BlockPos(dest.toVec3d());
+		return maxDistance;
+	}
+
+	/**
+	 * Sets the {@link IBlockVisitor} called for each block passed by this {@link RaytraceWorld}.
+	 *
+	 * @param visitor the visitor
+	 */
+	public void setVisitor(IBlockVisitor visitor)
+	{
+		this.visitor = visitor;
 	}
 
 	/**
@@ -175,69 +184,176 @@ public class RaytraceWorld extends Raytrace
 	}
 
 	/**
-	 * Does the raytracing.
+	 * Does the raytracing.<br>
+	 * Stops at the first block hit, unless <code>PASS_THROUGH</code> or <code>LOG_BLOCK_PASSED</code> option is set, or when the
+	 * {@link IBlockVisitor} returns false.
 	 *
 	 * @return {@link RayTraceResult} with <code>typeOfHit</code> <b>BLOCK</b> if a ray hits a block in the way, or <b>MISS</b> if it
 	 *         reaches <code>dest</code> without any hit
 	 */
 	public RayTraceResult trace()
 	{
-		RayTraceResult mop = null, firstHit = null;
-		double tX, tY, tZ, min;
-		int count = 0;
-		boolean ret = false;
-
-		int currentX = blockSrc.getX();
-		int currentY = blockSrc.getY();
-		int currentZ = blockSrc.getZ();
-
-		while (!ret && count++ <= MAX_BLOCKS)
+		RayTraceResult firstHit = null;
+		double dirX = ray.direction.x, dirY = ray.direction.y, dirZ = ray.direction.z;
+		int stepX = (int) Math.signum(dirX), stepY = (int) Math.signum(dirY), stepZ = (int) Math.signum(dirZ);
+
+		//ray is parametrized with t, so convert the distance
+		double length = ray.direction.length();
+		double tEnd = length != 0 ? maxDistance / length : 0;
+		if (dest != null)
+			tEnd = Math.min(tEnd, 1);
+
+		//only log every block when blocks passed are logged
+		boolean skipEmpty = !hasOption(Options.LOG_BLOCK_PASSED);
+		//logging needs every block up to the end of the ray, even past the first hit
+		boolean stopOnHit = !hasOption(Options.PASS_THROUGH) && !hasOption(Options.LOG_BLOCK_PASSED);
+		double tStop = tEnd;
+		boolean first = true;
+		MutableBlockPos cursor = new MutableBlockPos();
+		Chunk chunk = null;
+
+		int x = MathHelper.floor(src.x);
+		int y = MathHelper.floor(src.y);
+		int z = MathHelper.floor(src.z);
+
+		while (true)
 		{
-			tX = ray.intersectX(currentX + (ray.direction.x > 0 ? 1 : 0));
-			tY = ray.intersectY(currentY + (ray.direction.y > 0 ? 1 : 0));
-			tZ = ray.intersectZ(currentZ + (ray.direction.z > 0 ? 1 : 0));
-
-			min = getMin(tX, tY, tZ);
+			double tX = exit(x, stepX, src.x, dirX);
+			double tY = exit(y, stepY, src.y, dirY);
+			double tZ = exit(z, stepZ, src.z, dirZ);
+			double tExit = Math.min(tX, Math.min(tY, tZ));
 
-			// do not trace first block
-			if (count != 1 || !hasOption(Options.IGNORE_FIRST_BLOCK))
-				mop = rayTraceBlock(new BlockPos(currentX, currentY, currentZ), ray.getPointAt(min));
-			if (firstHit == null)
-				firstHit = mop;
-			if (hasOption(Options.LOG_BLOCK_PASSED))
-				blockPassed.put(new BlockPos(currentX, currentY, currentZ), mop);
+			boolean outside = y < 0 || y > 255;
+			if (outside && (y < 0 ? stepY <= 0 : stepY >= 0))
+				break; //moving away from the world
 
-			if (dest != null && currentX == blockDest.getX() && currentY == blockDest.getY() && currentZ == blockDest.getZ())
-				ret = true;
+			ExtendedBlockStorage storage = null;
+			if (!outside)
+			{
+				if (chunk == null || chunk.x != x >> 4 || chunk.z != z >> 4)
+				{
+					chunk = getLoadedChunk(x >> 4, z >> 4);
+					if (chunk == null)
+						break;
+				}
+				storage = chunk.getBlockStorageArray()[y >> 4];
+			}
 
-			if (!ret)
+			if (outside || (skipEmpty && (storage == Chunk.NULL_BLOCK_STORAGE || storage.isEmpty())))
 			{
-				if (min == tX)
-					currentX += step.x;
-				if (min == tY)
-					currentY += step.y;
-				if (min == tZ)
-					currentZ += step.z;
+				//nothing to hit in this section, jump directly to the next one
+				int sx = x & ~15, sy = y & ~15, sz = z & ~15;
+				tX = exit(stepX > 0 ? sx + 15 : sx, stepX, src.x, dirX);
+				tY = exit(stepY > 0 ? sy + 15 : sy, stepY, src.y, dirY);
+				tZ = exit(stepZ > 0 ? sz + 15 : sz, stepZ, src.z, dirZ);
+				tExit = Math.min(tX, Math.min(tY, tZ));
+				if (tExit >= tEnd)
+					break;
+
+				x = nextSectionCoord(sx, stepX, tX == tExit, src.x + tExit * dirX);
+				y = nextSectionCoord(sy, stepY, tY == tExit, src.y + tExit * dirY);
+				z = nextSectionCoord(sz, stepZ, tZ == tExit, src.z + tExit * dirZ);
+				first = false;
+				continue;
 			}
 
-			if (dest != null && dest.equals(ray.getPointAt(min)))
-				ret = true;
+			cursor.setPos(x, y, z);
+			IBlockState state = chunk.getBlockState(x, y, z);
+			RayTraceResult result = null;
+			// do not trace first block
+			if (!first || !hasOption(Options.IGNORE_FIRST_BLOCK))
+				result = rayTraceBlock(state, cursor, Math.min(tExit, tEnd));
+			first = false;
 
+			if (firstHit == null)
+				firstHit = result;
+			if (blockPassed != null)
+				blockPassed.put(cursor.toImmutable(), result);
+			if (visitor != null && !visitor.visit(cursor, state, result))
+			{
+				//stopped by the visitor, so the collision check ends here too
+				tStop = Math.min(tExit, tEnd);
+				break;
+			}
+			if (firstHit != null && stopOnHit)
+				break;
+			if (tExit >= tEnd)
+				break;
+
+			if (tExit == tX)
+				x += stepX;
+			else if (tExit == tY)
+				y += stepY;
+			else
+				z += stepZ;
 		}
 
+		Point end = dest != null && tStop == 1 ? dest : ray.getPointAt(tStop);
 		if (firstHit == null && dest != null)
-			firstHit = new RayTraceResult(RayTraceResult.Type.MISS, dest.toVec3d(), null, new BlockPos(currentX, currentY, currentZ));
-
-		firstHit = ChunkCollision.get().getRayTraceResult(	world,
-															Pair.of(src, dest),
-															firstHit,
-															hasOption(Options.HIT_LIQUIDS),
-															hasOption(Options.CHECK_COLLISION),
-															true);
-
-		if (!ret)
-			MalisisCore.message("Trace fail : " + MAX_BLOCKS + " blocks passed (" + currentX + "," + currentY + "," + currentZ + ")");
-		return firstHit;
+			firstHit = new RayTraceResult(RayTraceResult.Type.MISS, end.toVec3d(), null, new BlockPos(x, y, z));
+
+		return traceChunkCollision(end, firstHit);
+	}
+
+	/**
+	 * Gets the loaded {@link Chunk} at the chunk coordinates.
+	 *
+	 * @param chunkX the chunk X
+	 * @param chunkZ the chunk Z
+	 * @return the chunk, or null if not loaded
+	 */
+	protected Chunk getLoadedChunk(int chunkX, int chunkZ)
+	{
+		return world.getChunkProvider().getLoadedChunk(chunkX, chunkZ);
+	}
+
+	/**
+	 * Gets the closest hit between the one found for the blocks passed and the {@link IChunkCollidable} blocks along the ray.
+	 *
+	 * @param end the end of the ray
+	 * @param hit the hit found for the blocks passed
+	 * @return the closest hit
+	 */
+	protected RayTraceResult traceChunkCollision(Point end, RayTraceResult hit)
+	{
+		return ChunkCollision.get().getRayTraceResult(	world,
+														Pair.of(src, end),
+														hit,
+														hasOption(Options.HIT_LIQUIDS),
+														hasOption(Options.CHECK_COLLISION),
+														true);
+	}
+
+	/**
+	 * Gets the ray parameter where the ray exits the block <code>coord</code> along an axis.
+	 *
+	 * @param coord the block coordinate
+	 * @param step the step along the axis
+	 * @param origin the origin of the ray along the axis
+	 * @param direction the direction of the ray along the axis
+	 * @return the ray parameter, or <code>Double.POSITIVE_INFINITY</code> if the ray is parallel to the axis
+	 */
+	private static double exit(int coord, int step, double origin, double direction)
+	{
+		if (step == 0)
+			return Double.POSITIVE_INFINITY;
+		return (coord + (step > 0 ? 1 : 0) - origin) / direction;
+	}
+
+	/**
+	 * Gets the block coordinate along an axis once the ray left the section starting at <code>section</code>.
+	 *
+	 * @param section the section start coordinate
+	 * @param step the step along the axis
+	 * @param exitAxis whether the ray leaves the section through this axis
+	 * @param coord the coordinate of the exit point along the axis
+	 * @return the block coordinate
+	 */
+	private static int nextSectionCoord(int section, int step, boolean exitAxis, double coord)
+	{
+		if (exitAxis)
+			return step > 0 ? section + 16 : section - 1;
+		return MathHelper.clamp(MathHelper.floor(coord), section, section + 15);
 	}
 
 	/**
@@ -280,16 +396,53 @@ public class RaytraceWorld extends Raytrace
 	 */
 	public RayTraceResult rayTraceBlock(BlockPos pos, Point exit)
 	{
-		IBlockState state = world.getBlockState(pos);
-		Block block = state.getBlock();
-		//TODO: fix getBoundingBox for IBoundingBox ?
-		if (hasOption(Options.CHECK_COLLISION) && state.getBoundingBox(world, pos) == null)
-			return null;
-		if (!block.canCollideCheck(state, hasOption(Options.HIT_LIQUIDS)))
+		if (!canRayTrace(world.getBlockState(pos), pos))
 			return null;
 		return new RaytraceBlock(world, src, exit, pos).trace();
 	}
 
+	/**
+	 * Raytraces inside the block at the cursor position, up to the ray parameter <code>t</code>.<br>
+	 * Nothing is allocated unless the block can actually be hit.
+	 *
+	 * @param state the state
+	 * @param cursor the cursor
+	 * @param t the ray parameter of the exit point
+	 * @return the {@link RayTraceResult} return by block raytrace
+	 */
+	private RayTraceResult rayTraceBlock(IBlockState state, BlockPos cursor, double t)
+	{
+		if (!canRayTrace(state, cursor))
+			return null;
+		return new RaytraceBlock(world, src, ray.getPointAt(t), cursor.toImmutable()).trace();
+	}
+
+	private boolean canRayTrace(IBlockState state, BlockPos pos)
+	{
+		if (!state.getBlock().canCollideCheck(state, hasOption(Options.HIT_LIQUIDS)))
+			return false;
+		//TODO: fix getBoundingBox for IBoundingBox ?
+		return !hasOption(Options.CHECK_COLLISION) || state.getBoundingBox(world, pos) != null;
+	}
+
+	/**
+	 * Visitor called for each block passed by a {@link RaytraceWorld}.<br>
+	 * Blocks inside empty sections are not visited, unless <code>LOG_BLOCK_PASSED</code> option is set.
+	 */
+	public static interface IBlockVisitor
+	{
+		/**
+		 * Visits a block passed by the ray trace.<br>
+		 * The position is a mutable cursor, use {@link BlockPos#toImmutable()} to keep it.
+		 *
+		 * @param pos the pos
+		 * @param state the state
+		 * @param result the result of the ray trace inside the block, null if not hit
+		 * @return false to stop the ray trace
+		 */
+		public boolean visit(BlockPos pos, IBlockState state, RayTraceResult result);
+	}
+
 	/**
 	 * The Class Options.
 	 */
@@ -297,11 +450,11 @@ public class RaytraceWorld extends Raytrace
 	{
 		/** Ray tracing through liquids returns a hit. */
 		public static int HIT_LIQUIDS = 1;
-		/** Don't stop ray tracing on hit. */
+		/** Don't stop ray tracing on hit. Only the first hit is returned. */
 		public static int PASS_THROUGH = 1 << 1;
 		/** Don't hit the block source of ray tracing. */
 		public static int IGNORE_FIRST_BLOCK = 1 << 2;
-		/** Stores list of blocks passed through ray trace. */
+		/** Stores list of blocks passed through ray trace, up to the end of the ray. Empty sections are then traversed block by block. */
 		public static int LOG_BLOCK_PASSED = 1 << 3;
 		/** Whether a block has to have a collision bounding box to rayTrace it. */
 		public static int CHECK_COLLISION = 1 << 5;